@@ -0,0 +1,121 @@
+package org.uulib.reckon.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uulib.reckon.git.RepositoryGenerator;
+
+/**
+ * The wall-clock time for the installed CLI to start and print the version of a synthetic repository, as a CI job
+ * would. The CLI is launched by the start script of the distribution in the directory given by the
+ * {@code reckon.installDir} system property, with the JVM in {@code reckon.javaHome}, so it uses the distribution's
+ * JVM options and class-data-sharing archive, if one has been created for that JVM. Further JVM options can be given
+ * with {@code -p jvmOptions=...}, for example {@code -Xshare:off} to measure the effect of the archive.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+	@Param({"1000", "5000"})
+	public int tags;
+
+	@Param({"false", "true"})
+	public boolean cached;
+
+	@Param({""})
+	public String jvmOptions;
+
+	private Path directory;
+	private ProcessBuilder command;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException, InterruptedException {
+		directory = Files.createTempDirectory("reckon-benchmark");
+		File gitDir = directory.resolve("repo.git").toFile();
+		new RepositoryGenerator(42)
+				.setCommits(tags * 4)
+				.setTags(tags)
+				.setPackedRefs(true)
+				.setPackedObjects(true)
+				.generate(gitDir)
+				.close();
+
+		String installDir = System.getProperty("reckon.installDir");
+		if(installDir==null) {
+			throw new IllegalStateException("The reckon.installDir system property must be the CLI's installation");
+		}
+		boolean windows = System.getProperty("os.name").startsWith("Windows");
+		List<String> args = new ArrayList<>();
+		args.add(new File(installDir, windows ? "bin/reckon.bat" : "bin/reckon").getPath());
+		args.addAll(Arrays.asList("--repo", gitDir.getPath()));
+		if(!cached) {
+			args.add("--no-cache");
+		}
+
+		command = new ProcessBuilder(args)
+				.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+				.redirectError(ProcessBuilder.Redirect.INHERIT);
+		Map<String, String> environment = command.environment();
+		environment.put("JAVA_HOME", System.getProperty("reckon.javaHome", System.getProperty("java.home")));
+		environment.put("RECKON_OPTS", jvmOptions);
+		environment.remove("JAVA_OPTS");
+
+		if(cached) {
+			launch(); // Populate the cache
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Benchmark
+	public int launch() throws IOException, InterruptedException {
+		int status = command.start().waitFor();
+		if(status!=0) {
+			throw new IllegalStateException("The CLI exited with status " + status);
+		}
+		return status;
+	}
+
+}
@@ -0,0 +1,192 @@
+package org.uulib.reckon.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.InventorySnapshot;
+import org.uulib.reckon.Reckoner;
+import org.uulib.reckon.daemon.ReckonDaemon;
+import org.uulib.reckon.daemon.ReckonDaemonClient;
+import org.uulib.reckon.daemon.ReckonRequest;
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier;
+import org.uulib.reckon.git.TagSelector;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Reckons the version of a git repository from the command line, printing it to standard output. Only Java classes are
+ * used to reckon, so that Groovy is never loaded.
+ *
+ * <pre>
+ * reckon [--repo &lt;dir&gt;] [--scope &lt;scope&gt;] [--stage &lt;stage&gt;] [--tags &lt;regex&gt;] [--metadata commit]
+ *        [--no-cache] [--daemon &lt;port&gt;] [--write-snapshot &lt;file&gt;]
+ * reckon --snapshot &lt;file&gt; [--scope &lt;scope&gt;] [--stage &lt;stage&gt;] [--metadata commit]
+ * reckon --serve &lt;port&gt;
+ * </pre>
+ *
+ * The options are as for a {@linkplain ReckonRequest daemon request}. With {@code --daemon}, the version is reckoned
+ * by the daemon listening on the given port; with {@code --serve}, this process becomes that daemon.
+ * <p>
+ * With {@code --write-snapshot}, the repository's inventory is also written to an {@linkplain InventorySnapshot
+ * inventory snapshot}, from which the version can then be reckoned with {@code --snapshot} where the repository isn't
+ * available.
+ *
+ * @author hWorblehat
+ */
+public final class ReckonCli {
+
+	static final int SUCCESS = 0;
+	static final int FAILURE = 1;
+	static final int USAGE = 2;
+
+	private static final String USAGE_TEXT = "Usage: reckon [--repo <dir>] [--scope <scope>] [--stage <stage>] "
+			+ "[--tags <regex>] [--metadata commit] [--no-cache] [--daemon <port>] [--write-snapshot <file>]\n"
+			+ "       reckon --snapshot <file> [--scope <scope>] [--stage <stage>] [--metadata commit]\n"
+			+ "       reckon --serve <port>";
+
+	private ReckonRequest request = ReckonRequest.forRepository(".");
+	private boolean cache = true;
+	private int daemonPort = -1;
+	private int servePort = -1;
+	private Path snapshot = null;
+	private Path writeSnapshot = null;
+
+	private ReckonCli() {}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Runs the command.
+	 *
+	 * @return The exit status.
+	 */
+	static int run(String[] args, PrintStream out, PrintStream err) {
+		ReckonCli cli = new ReckonCli();
+		try {
+			cli.parse(Arrays.asList(args).iterator());
+		} catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE_TEXT);
+			return USAGE;
+		}
+
+		try {
+			if(cli.servePort >= 0) {
+				cli.serve(out);
+			} else {
+				out.println(cli.reckon());
+			}
+			return SUCCESS;
+		} catch (IOException | RuntimeException e) {
+			err.println("Cannot reckon version: " + (e.getMessage()!=null ? e.getMessage() : e));
+			return FAILURE;
+		}
+	}
+
+	private void parse(Iterator<String> args) {
+		while(args.hasNext()) {
+			String arg = args.next();
+			switch(arg) {
+			case "--repo": request = request.with(ReckonRequest.REPO, value(arg, args)); break;
+			case "--scope": request = request.with(ReckonRequest.SCOPE, value(arg, args)); break;
+			case "--stage": request = request.with(ReckonRequest.STAGE, value(arg, args)); break;
+			case "--tags": request = request.with(ReckonRequest.TAGS, value(arg, args)); break;
+			case "--metadata": request = request.with(ReckonRequest.METADATA, value(arg, args)); break;
+			case "--no-cache": cache = false; break;
+			case "--daemon": daemonPort = port(arg, args); break;
+			case "--serve": servePort = port(arg, args); break;
+			case "--snapshot": snapshot = Paths.get(value(arg, args)); break;
+			case "--write-snapshot": writeSnapshot = Paths.get(value(arg, args)); break;
+			default: throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+		if(snapshot!=null && (writeSnapshot!=null || daemonPort >= 0)) {
+			throw new IllegalArgumentException("--snapshot cannot be used with --write-snapshot or --daemon");
+		}
+		if(writeSnapshot!=null && daemonPort >= 0) {
+			throw new IllegalArgumentException("--write-snapshot cannot be used with --daemon");
+		}
+	}
+
+	private static String value(String option, Iterator<String> args) {
+		if(!args.hasNext()) {
+			throw new IllegalArgumentException("No value given for " + option);
+		}
+		return args.next();
+	}
+
+	private static int port(String option, Iterator<String> args) {
+		String value = value(option, args);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid port for " + option + ": " + value);
+		}
+	}
+
+	private Version reckon() throws IOException {
+		if(snapshot!=null) {
+			return Reckoner.reckon(new InventorySnapshot(snapshot), request.normalStrategy(),
+					request.preReleaseStrategy());
+		}
+		if(daemonPort >= 0) {
+			try(ReckonDaemonClient client = new ReckonDaemonClient(daemonPort)) {
+				ReckonRequest absolute = request.with(ReckonRequest.REPO,
+						new File(request.get(ReckonRequest.REPO).get()).getAbsolutePath());
+				return client.reckon(absolute);
+			}
+		}
+
+		File dir = new File(request.get(ReckonRequest.REPO).get());
+		FileRepositoryBuilder builder = new FileRepositoryBuilder().findGitDir(dir.getAbsoluteFile());
+		if(builder.getGitDir()==null) {
+			throw new IllegalArgumentException("Not a git repository: " + dir);
+		}
+		try(Repository repository = builder.build()) {
+			IndexedInventory inventory = inventory(repository, request.tagSelector());
+			if(writeSnapshot!=null) {
+				InventorySnapshot.write(inventory.getInventory(), writeSnapshot);
+			}
+			return Reckoner.reckon(inventory, request.normalStrategy(), request.preReleaseStrategy());
+		}
+	}
+
+	private IndexedInventory inventory(Repository repository, TagSelector selector) {
+		ConfigurableGitInventorySupplier supplier = new ConfigurableGitInventorySupplier(repository)
+				.withTagsMatching(selector);
+		if(cache) {
+			supplier.withPersistentCache();
+		}
+		return supplier.getIndexedInventory();
+	}
+
+	private void serve(PrintStream out) throws IOException {
+		ReckonDaemon daemon = new ReckonDaemon(servePort);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				daemon.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}));
+		out.println("Reckon daemon listening on port " + daemon.getPort());
+		out.flush();
+		try {
+			Thread.currentThread().join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
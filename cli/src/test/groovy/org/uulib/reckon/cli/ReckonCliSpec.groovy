@@ -0,0 +1,127 @@
+package org.uulib.reckon.cli
+
+import org.ajoberstar.grgit.Grgit
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.git.TestRepositories
+
+import spock.lang.*
+
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class ReckonCliSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	@Rule TemporaryFolder otherDir = new TemporaryFolder()
+	Grgit grgit
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream()
+	ByteArrayOutputStream err = new ByteArrayOutputStream()
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'v1.2.3')
+		commit(grgit, 'More code')
+	}
+
+	def cleanup() {
+		grgit.close()
+	}
+
+	private int run(String... args) {
+		ReckonCli.run(args, new PrintStream(out, true), new PrintStream(err, true))
+	}
+
+	private File getCacheDir() {
+		new File(projectDir.root, '.git/reckon/inventories')
+	}
+
+	def "The repository's version is printed"() {
+		expect:
+		run('--repo', projectDir.root.path) == ReckonCli.SUCCESS
+		out.toString().trim() == '1.3.0'
+		err.size() == 0
+	}
+
+	def "The version is reckoned according to the options"() {
+		expect:
+		run('--repo', projectDir.root.path, '--scope', 'patch', '--stage', 'rc', '--metadata', 'commit') ==
+				ReckonCli.SUCCESS
+		out.toString().trim() == "1.2.4-rc.1+${grgit.head().id}"
+	}
+
+	def "Tags are selected by the given regular expression"() {
+		given:
+		grgit.tag.add(name: 'release-2.0.0')
+
+		expect:
+		run('--repo', projectDir.root.path, '--tags', /release-(.*)/) == ReckonCli.SUCCESS
+		out.toString().trim() == '2.1.0'
+	}
+
+	def "Inventories are cached in the repository unless caching is disabled"() {
+		when:
+		run('--repo', projectDir.root.path, '--no-cache')
+
+		then:
+		!cacheDir.exists()
+
+		when:
+		run('--repo', projectDir.root.path)
+
+		then:
+		cacheDir.list().length == 1
+		out.toString().readLines() == ['1.3.0', '1.3.0']
+	}
+
+	def "The version can be reckoned from a snapshot of the repository's inventory"() {
+		given:
+		File snapshot = new File(otherDir.root, 'inventory.snapshot')
+
+		expect:
+		run('--repo', projectDir.root.path, '--write-snapshot', snapshot.path) == ReckonCli.SUCCESS
+		snapshot.file
+
+		when:
+		grgit.tag.add(name: 'v1.3.0')
+
+		then:
+		run('--snapshot', snapshot.path, '--scope', 'patch') == ReckonCli.SUCCESS
+		out.toString().readLines() == ['1.3.0', '1.2.4']
+	}
+
+	@Unroll
+	def "Invalid options #args are reported with the usage"() {
+		expect:
+		run(args as String[]) == ReckonCli.USAGE
+		out.size() == 0
+		err.toString().readLines()[0] == message
+		err.toString().contains('Usage: reckon')
+
+		where:
+		args                                           | message
+		['--bogus']                                    | 'Unknown option: --bogus'
+		['--scope']                                    | 'No value given for --scope'
+		['--daemon', 'http']                           | 'Invalid port for --daemon: http'
+		['--snapshot', 'a', '--write-snapshot', 'b']   | '--snapshot cannot be used with --write-snapshot or --daemon'
+		['--snapshot', 'a', '--daemon', '1234']        | '--snapshot cannot be used with --write-snapshot or --daemon'
+		['--write-snapshot', 'b', '--daemon', '1234']  | '--write-snapshot cannot be used with --daemon'
+	}
+
+	def "Failing to reckon a version is reported as a failure"() {
+		expect:
+		run('--repo', otherDir.root.path) == ReckonCli.FAILURE
+		out.size() == 0
+		err.toString().trim() == "Cannot reckon version: Not a git repository: ${otherDir.root.path}"
+	}
+
+	def "Invalid requests are reported as failures"() {
+		expect:
+		run('--repo', projectDir.root.path, '--scope', 'huge') == ReckonCli.FAILURE
+		out.size() == 0
+		err.toString().startsWith('Cannot reckon version: ')
+		!err.toString().contains('Usage: reckon')
+	}
+
+}
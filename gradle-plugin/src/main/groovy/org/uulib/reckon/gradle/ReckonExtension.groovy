@@ -1,44 +1,182 @@
 package org.uulib.reckon.gradle
 
 import java.util.concurrent.Callable
+import java.util.stream.Stream
 
 import org.gradle.api.Project
+import org.gradle.api.plugins.ExtraPropertiesExtension
 import org.gradle.api.provider.Property
+import org.gradle.api.provider.Provider
+import org.uulib.reckon.CommitVersion
+import org.uulib.reckon.ReckoningListener
+import org.uulib.reckon.ReckoningListeners
+import org.uulib.reckon.ReckoningMetrics
 import org.uulib.dsl.basedon.BasedOn
 import org.uulib.reckon.dsl.CompoundStrategies
 import org.uulib.reckon.dsl.PartStrategies
 import org.uulib.reckon.dsl.Reckon
 import org.uulib.reckon.dsl.ReckonedVersion
+import org.uulib.reckon.dsl.SharedInventories
 import org.uulib.reckon.dsl.VcsInventories
 import org.uulib.reckon.dsl.VersionStrategies
 
 class ReckonExtension implements VersionStrategies, CompoundStrategies, BasedOn, VcsInventories, PartStrategies {
-	
+
+	private static final List<String> PROPERTIES = ['vcs', 'normalVersion', 'preReleaseVersion']
+	private static final String SHARED_INVENTORIES = 'org.uulib.reckon.sharedInventories'
+	private static final String METRICS = 'org.uulib.reckon.metrics'
+	private static final String APPROXIMATION_WARNINGS = 'org.uulib.reckon.approximationWarnings'
+
 	private final Project project;
-	
+	private final SharedInventories inventories
+
 	final Property<Object> vcs
 	final Property<Object> normalVersion
 	final Property<Object> preReleaseVersion
-	
+
+	/**
+	 * Whether to print a one-line summary of the time spent reckoning versions when the build finishes.
+	 */
+	final Property<Boolean> printMetrics
+
+	/**
+	 * A file to write the one-line summary of the time spent reckoning versions to when the build finishes.
+	 */
+	final Property<Object> metricsFile
+
+	/**
+	 * The version reckoned from this extension. If this is a subproject which doesn't set any properties of its own,
+	 * and the root project also applies the plugin, this is the root project's version.
+	 */
+	final ReckonedVersion reckonedVersion
+
+	/**
+	 * The {@linkplain #reckonedVersion reckoned version} as a provider, for wiring into the properties of tasks and
+	 * other extensions. Nothing is reckoned until its value is first queried.
+	 */
+	final Provider<String> version
+
 	ReckonExtension(Project project) {
 		this.project = project
+		this.inventories = sharedInventories(project.rootProject)
 		vcs = project.objects.property(Object)
 		normalVersion = project.objects.property(Object)
 		preReleaseVersion = project.objects.property(Object)
+		printMetrics = project.objects.property(Boolean)
+		metricsFile = project.objects.property(Object)
+		recordMetrics(project.rootProject)
+		warnOfApproximations(project.rootProject)
+
+		ReckonedVersion own = reckon({})
+		reckonedVersion = new ReckonedVersion({
+			ReckonExtension root = rootExtension()
+			boolean overridden = PROPERTIES.any { this."${it}".present }
+			return (root==null || overridden) ? own.asVersion() : root.reckonedVersion.asVersion()
+		})
+		version = project.providers.provider({ reckonedVersion.asString() } as Callable<String>)
 	}
-	
-	ReckonedVersion reckon(Closure closure) {
-		Reckon.reckon(closure >> {
-			for(prop in ['vcs', 'normalVersion', 'preReleaseVersion']) {
+
+	/**
+	 * Inventories are shared by all projects in the build, so that each repository is only scanned once.
+	 */
+	private static SharedInventories sharedInventories(Project rootProject) {
+		ExtraPropertiesExtension extra = rootProject.extensions.extraProperties
+		synchronized(extra) {
+			if(!extra.has(SHARED_INVENTORIES)) {
+				extra.set(SHARED_INVENTORIES, new SharedInventories())
+			}
+			return (SharedInventories) extra.get(SHARED_INVENTORIES)
+		}
+	}
+
+	/**
+	 * The time spent reckoning is recorded for the whole build, and reported when it finishes according to the
+	 * settings of every project's extension.
+	 */
+	private static void recordMetrics(Project rootProject) {
+		ExtraPropertiesExtension extra = rootProject.extensions.extraProperties
+		synchronized(extra) {
+			if(extra.has(METRICS)) {
+				return
+			}
+			ReckoningMetrics metrics = new ReckoningMetrics()
+			extra.set(METRICS, metrics)
+			ReckoningListeners.Registration registration = ReckoningListeners.register(metrics)
+			rootProject.gradle.buildFinished {
+				registration.close()
+				List<ReckonExtension> extensions = rootProject.allprojects
+						.collect { it.extensions.findByType(ReckonExtension) }
+						.findAll { it!=null }
+				String summary = "Reckon: ${metrics.summary()}"
+				if(extensions.any { it.printMetrics.orNull }) {
+					rootProject.logger.lifecycle(summary)
+				}
+				for(ReckonExtension ext in extensions.findAll { it.metricsFile.present }) {
+					File file = ext.project.file(ext.metricsFile.get())
+					file.parentFile.mkdirs()
+					file.text = summary + System.lineSeparator()
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inventories approximated from incomplete history, such as shallow clones, are logged as warnings for the whole
+	 * build, so that a version which may differ from that of a complete clone is never reckoned silently.
+	 */
+	private static void warnOfApproximations(Project rootProject) {
+		ExtraPropertiesExtension extra = rootProject.extensions.extraProperties
+		synchronized(extra) {
+			if(extra.has(APPROXIMATION_WARNINGS)) {
+				return
+			}
+			extra.set(APPROXIMATION_WARNINGS, true)
+			ReckoningListeners.Registration registration = ReckoningListeners.register(new ReckoningListener() {
+				@Override
+				void inventoryApproximated(String commitId, List<String> approximations) {
+					rootProject.logger.warn("Reckon: the inventory of ${commitId ?: 'the repository'} is approximate, "
+							+ "as ${approximations.join('; ')}. Fetch more history for an exact version.")
+				}
+			})
+			rootProject.gradle.buildFinished {
+				registration.close()
+			}
+		}
+	}
+
+	private ReckonExtension rootExtension() {
+		project==project.rootProject ? null : project.rootProject.extensions.findByType(ReckonExtension)
+	}
+
+	private def valueOf(String prop) {
+		def value = this."${prop}".orNull
+		return value!=null ? value : rootExtension()?.valueOf(prop)
+	}
+
+	private Closure withDefaults(Closure closure) {
+		closure >> {
+			for(prop in PROPERTIES) {
 				if(delegate."${prop}"==null) {
-					delegate."${prop}" = this."${prop}".orNull
+					delegate."${prop}" = this.valueOf(prop)
 				}
 			}
-		})
+		}
+	}
+
+	ReckonedVersion reckon(Closure closure) {
+		Reckon.reckon(inventories, withDefaults(closure))
 	}
-	
+
+	/**
+	 * Reckons the version of every commit reachable from {@code until} but not from {@code since}, using this
+	 * extension's configuration. The returned stream must be closed.
+	 */
+	Stream<CommitVersion> reckonHistory(String since, String until) {
+		Reckon.reckonHistory(withDefaults({}), since, until)
+	}
+
 	Callable<String> projectProperty(String propertyName) {
 		return new ProjectPropertyCallable(project, propertyName)
 	}
-	
+
 }
@@ -0,0 +1,56 @@
+package org.uulib.reckon.gradle
+
+import java.util.stream.Stream
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.TaskAction
+import org.uulib.reckon.CommitVersion
+
+/**
+ * Writes the version that would be reckoned for every commit in a range of history, one {@code <commit> <version>}
+ * line per commit, with parents before their children. Commits whose versions cannot be reckoned are written with the
+ * reason in angle brackets.
+ */
+class ReckonHistoryTask extends DefaultTask {
+
+	/**
+	 * The revision whose history to exclude, or {@code null} to include all history.
+	 */
+	@Input @Optional
+	String since = null
+
+	/**
+	 * The revision whose history to include.
+	 */
+	@Input
+	String until = 'HEAD'
+
+	@OutputFile
+	File outputFile = new File(project.buildDir, 'reckon/history.txt')
+
+	ReckonHistoryTask() {
+		description = 'Reckons the version of every commit in a range of history.'
+		outputs.upToDateWhen { false }
+	}
+
+	@TaskAction
+	void reckonHistory() {
+		ReckonExtension ext = project.extensions.getByType(ReckonExtension)
+		outputFile.parentFile.mkdirs()
+		outputFile.withWriter('UTF-8') { writer ->
+			Stream<CommitVersion> history = ext.reckonHistory(since, until)
+			try {
+				history.forEachOrdered { CommitVersion v ->
+					writer.write(v.toString())
+					writer.write('\n')
+				}
+			} finally {
+				history.close()
+			}
+		}
+	}
+
+}
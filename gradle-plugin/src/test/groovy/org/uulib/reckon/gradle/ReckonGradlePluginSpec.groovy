@@ -135,4 +135,114 @@ Here is some really good code
 		desc = properties.empty ? 'no' : properties.join(' and ')
 	}
 
+	def "Subprojects share the root project's version unless they override it"() {
+		setup:
+		projectDir.newFile('settings.gradle') << """\
+include 'inheriting', 'overriding'
+"""
+		for(sub in ['inheriting', 'overriding']) {
+			projectDir.newFolder(sub)
+			projectDir.newFile("${sub}/build.gradle") << """\
+plugins {
+	id 'org.uulib.reckon'
+}
+
+task('printVersion') {
+	doLast {
+		println "\${project.name}: \${project.version}"
+	}
+}
+"""
+		}
+		new File(projectDir.root, 'overriding/build.gradle') << """\
+reckon {
+	normalVersion = '9.9.9'
+}
+"""
+
+		when:
+		def result = GradleRunner.create()
+				.withPluginClasspath()
+				.withProjectDir(projectDir.root)
+				.withGradleVersion(compatibleGradleVersions[0])
+				.withArguments('printVersion', '-Pstatus=alpha', '--stacktrace')
+				.build()
+
+		then:
+		result.output.contains('inheriting: 1.2.4-alpha.1')
+		result.output.contains('overriding: 9.9.9-alpha.1')
+	}
+
+	def "The versions of all commits in history can be reckoned"() {
+		when:
+		def result = GradleRunner.create()
+				.withPluginClasspath()
+				.withProjectDir(projectDir.root)
+				.withGradleVersion(compatibleGradleVersions[0])
+				.withArguments('reckonHistory', '-Pstatus=alpha', '--stacktrace')
+				.build()
+		List<String> lines = new File(projectDir.root, 'build/reckon/history.txt').readLines()
+
+		then:
+		result.task(':reckonHistory').outcome == SUCCESS
+		lines.size() == 2
+		lines[1] == "${grgit.head().id} 1.2.4-alpha.1"
+	}
+
+	def "A summary of the time spent reckoning can be printed and written to a file"() {
+		setup:
+		new File(projectDir.root, 'build.gradle') << '''\
+reckon {
+	printMetrics = true
+	metricsFile = 'build/reckon/metrics.txt'
+}
+'''
+
+		when:
+		def result = GradleRunner.create()
+				.withPluginClasspath()
+				.withProjectDir(projectDir.root)
+				.withGradleVersion(compatibleGradleVersions[0])
+				.withArguments('printVersion', '-Pstatus=alpha', '--stacktrace')
+				.build()
+		String written = new File(projectDir.root, 'build/reckon/metrics.txt').text.trim()
+
+		then:
+		result.output.contains('Reckon: versions reckoned: 1;')
+		written.startsWith('Reckon: versions reckoned: 1;')
+	}
+
+	def "The version is only reckoned when it is needed"() {
+		setup:
+		new File(projectDir.root, 'build.gradle') << '''\
+reckon {
+	printMetrics = true
+}
+
+task('printProvidedVersion') {
+	inputs.property('providedVersion', reckon.version)
+	doLast {
+		println "provided: ${inputs.properties.providedVersion}"
+	}
+}
+'''
+		GradleRunner runner = GradleRunner.create()
+				.withPluginClasspath()
+				.withProjectDir(projectDir.root)
+				.withGradleVersion(compatibleGradleVersions[0])
+
+		when:
+		def tasks = runner.withArguments('tasks', '-Pstatus=alpha', '--stacktrace').build()
+		def dryRun = runner.withArguments('printProvidedVersion', '--dry-run', '-Pstatus=alpha', '--stacktrace').build()
+		def provided = runner.withArguments('printProvidedVersion', '-Pstatus=alpha', '--stacktrace').build()
+
+		then:
+		tasks.output.contains('Reckon: versions reckoned: 0;')
+		dryRun.output.contains(':printProvidedVersion SKIPPED')
+		dryRun.output.contains('Reckon: versions reckoned: 0;')
+		provided.task(':printProvidedVersion').outcome == SUCCESS
+		provided.output.contains('provided: 1.2.4-alpha.1')
+		provided.output.contains('Reckon: versions reckoned: 1;')
+	}
+
 }
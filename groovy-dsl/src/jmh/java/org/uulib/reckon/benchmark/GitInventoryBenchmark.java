@@ -0,0 +1,149 @@
+package org.uulib.reckon.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier;
+import org.uulib.reckon.git.CountingRepository;
+import org.uulib.reckon.git.InventoryCache;
+import org.uulib.reckon.git.RepositoryGenerator;
+
+/**
+ * The time, allocation and amount of history read to scan the inventory of synthetic repositories of various shapes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GitInventoryBenchmark {
+
+	@Param({"1000", "10000"})
+	public int commits;
+
+	@Param({"10"})
+	public int branches;
+
+	@Param({"100", "1000"})
+	public int tags;
+
+	@Param({"0.5"})
+	public double annotatedTagRatio;
+
+	@Param({"false", "true"})
+	public boolean packed;
+
+	/**
+	 * Whether packed repositories have reachability bitmaps. Loose repositories never do.
+	 */
+	@Param({"false", "true"})
+	public boolean bitmaps;
+
+	private Path directory;
+	private CountingRepository repository;
+	private InventoryCache cache;
+
+	/**
+	 * The commits and objects read per iteration. Divide by the number of operations for the amount read per scan.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Reads {
+
+		public long commitsRead;
+		public long objectsRead;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			commitsRead = 0;
+			objectsRead = 0;
+		}
+
+	}
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		directory = Files.createTempDirectory("reckon-benchmark");
+		File gitDir = directory.resolve("repo.git").toFile();
+		new RepositoryGenerator(42)
+				.setCommits(commits)
+				.setBranches(branches)
+				.setTags(tags)
+				.setAnnotatedTagRatio(annotatedTagRatio)
+				.setPackedRefs(packed)
+				.setPackedObjects(packed)
+				.setBitmaps(bitmaps)
+				.generate(gitDir)
+				.close();
+		repository = new CountingRepository(gitDir);
+		cache = new InventoryCache(directory.resolve("cache"));
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		repository.close();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private VcsInventory count(Reads reads, ConfigurableGitInventorySupplier supplier) {
+		repository.resetCounts();
+		VcsInventory inventory = supplier.getInventory();
+		reads.commitsRead += repository.getCommitsRead();
+		reads.objectsRead += repository.getObjectsRead();
+		return inventory;
+	}
+
+	@Benchmark
+	public VcsInventory scan(Reads reads) {
+		return count(reads, new ConfigurableGitInventorySupplier(repository));
+	}
+
+	/**
+	 * Scans with as many threads as there are available processors.
+	 */
+	@Benchmark
+	public VcsInventory parallelScan(Reads reads) {
+		return count(reads, new ConfigurableGitInventorySupplier(repository)
+				.withParallelism(Runtime.getRuntime().availableProcessors()));
+	}
+
+	@Benchmark
+	public VcsInventory cached(Reads reads) {
+		return count(reads, new ConfigurableGitInventorySupplier(repository).withPersistentCache(cache));
+	}
+
+}
@@ -1,14 +1,23 @@
 package org.uulib.dsl.basedon;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
 import org.uulib.util.Configurator;
 
+/**
+ * Calls the callable that a {@linkplain BasedOnSpec spec} associates with the current value of a basis. The spec is
+ * configured the first time it is needed and compiled into an immutable dispatch table, which is reused by every
+ * later call, unless the spec {@linkplain BasedOnSpec#reevaluateEachTime() asks to be reconfigured} on every call.
+ */
 class BasedOnCallable<S,T> implements Callable<T> {
 	private final Supplier<Optional<S>> basis;
 	private final Configurator<BasedOnSpec<S, T>> configurator;
+	private volatile Dispatch<S, T> compiled = null;
 
 	BasedOnCallable(Supplier<Optional<S>> basis, Configurator<BasedOnSpec<S, T>> configurator) {
 		this.basis = basis;
@@ -17,11 +26,62 @@ class BasedOnCallable<S,T> implements Callable<T> {
 
 	@Override
 	public T call() throws Exception {
-		return configurator.withConfigured(BasedOnSpec::new, config -> basis.get()
-				.map(s -> Optional.ofNullable(config.mappings.get(s)))
-				.orElse(config.whenAbsent)
-				.orElseGet(() -> config.normal.orElseThrow(IllegalStateException::new))
-				.call());
+		Dispatch<S, T> dispatch = compiled;
+		if(dispatch==null) {
+			// Racing threads may each compile the spec, but they compile equivalent tables
+			dispatch = configurator.withConfigured(BasedOnSpec::new, Dispatch::new);
+			if(!dispatch.reevaluated) {
+				compiled = dispatch;
+			}
+		}
+		return dispatch.select(basis.get()).call();
 	}
 
-}
\ No newline at end of file
+	@Override
+	public String toString() {
+		Dispatch<S, T> dispatch = compiled;
+		return "basedOn " + (dispatch!=null ? dispatch : "<not yet configured>");
+	}
+
+	private static final class Dispatch<S, T> {
+
+		private final Map<S, Callable<T>> mappings;
+		private final Callable<T> whenAbsent;
+		private final Callable<T> normal;
+		private final boolean reevaluated;
+
+		Dispatch(BasedOnSpec<S, T> spec) {
+			this.mappings = Collections.unmodifiableMap(new HashMap<>(spec.mappings));
+			this.whenAbsent = spec.whenAbsent.orElse(null);
+			this.normal = spec.normal.orElse(null);
+			this.reevaluated = spec.reevaluated;
+		}
+
+		Callable<T> select(Optional<S> basis) {
+			Callable<T> selected = basis.isPresent() ? mappings.get(basis.get()) : whenAbsent;
+			if(selected==null) {
+				if(normal==null) {
+					throw new IllegalStateException("Nothing is specified for " + basis.map(String::valueOf)
+							.orElse("an absent value") + " and there is no normal value.");
+				}
+				selected = normal;
+			}
+			return selected;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder("{");
+			mappings.forEach((s, t) -> sb.append("when '").append(s).append("' then ").append(t).append("; "));
+			if(whenAbsent!=null) {
+				sb.append("when absent then ").append(whenAbsent).append("; ");
+			}
+			if(normal!=null) {
+				sb.append("normally ").append(normal).append("; ");
+			}
+			return sb.append('}').toString();
+		}
+
+	}
+
+}
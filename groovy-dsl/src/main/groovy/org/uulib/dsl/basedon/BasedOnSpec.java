@@ -16,9 +16,19 @@ public final class BasedOnSpec<S, T> implements BasedOn {
 	Optional<Callable<T>> whenAbsent = Optional.empty();
 	Optional<Callable<T>> normal = Optional.empty();
 	Map<S, Callable<T>> mappings = new HashMap<>();
+	boolean reevaluated = false;
 	
 	BasedOnSpec(){} // package-private
 	
+	/**
+	 * Evaluates this spec's configuration every time a value is needed, instead of only the first time. This is only
+	 * needed if the configuration depends on state that may change, such as which values are mapped or what they are
+	 * mapped to.
+	 */
+	public void reevaluateEachTime() {
+		this.reevaluated = true;
+	}
+	
 	public void normally(Callable<T> normal) {
 		this.normal = Optional.of(normal);
 	}
@@ -0,0 +1,262 @@
+package org.uulib.reckon.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.Reckoner;
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier;
+import org.uulib.reckon.git.InventoryCache;
+import org.uulib.reckon.git.TagSelector;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A long-lived local service that reckons the versions of repositories on request, so that short-lived jobs needn't
+ * each pay for starting a JVM and scanning the repository from cold. Repositories are kept open, and each inventory is
+ * kept until the repository's {@code HEAD} or tags change.
+ * <p>
+ * The daemon listens on a port of the loopback interface. Each connection may send any number of
+ * {@linkplain ReckonRequest requests}, one per line, and receives one response line for each:
+ * {@code OK<tab><version><tab><micros>} or {@code ERROR<tab><message><tab><micros>}, where {@code micros} is how long
+ * the daemon took to handle the request, in microseconds. Failures to accept or serve connections are logged, and
+ * never stop the daemon from accepting others.
+ *
+ * @author hWorblehat
+ *
+ * @see ReckonDaemonClient
+ */
+public final class ReckonDaemon implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReckonDaemon.class);
+
+	/**
+	 * How long to wait before accepting again after failing to accept a connection, so that persistent failures, such
+	 * as running out of file descriptors, don't spin.
+	 */
+	private static final long ACCEPT_RETRY_MILLIS = 100;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor;
+	private final Consumer<ReckonRequest> requestCheck;
+	private final ConcurrentMap<File, Repository> repositories = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, CachedInventory> inventories = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder scans = new LongAdder();
+	private final LongAdder requestNanos = new LongAdder();
+	private volatile boolean closed = false;
+
+	/**
+	 * Starts a daemon.
+	 *
+	 * @param port The port to listen on, or 0 for any free port.
+	 * @throws IOException If the port cannot be listened on.
+	 */
+	public ReckonDaemon(int port) throws IOException {
+		this(port, request -> {});
+	}
+
+	/**
+	 * Starts a daemon which passes each request to a check before reckoning it, so that tests can make requests fail.
+	 *
+	 * @param port The port to listen on, or 0 for any free port.
+	 * @param requestCheck Checks each request, throwing to fail it.
+	 * @throws IOException If the port cannot be listened on.
+	 */
+	ReckonDaemon(int port, Consumer<ReckonRequest> requestCheck) throws IOException {
+		this.requestCheck = requestCheck;
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		AtomicInteger threads = new AtomicInteger();
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "reckon-daemon-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::accept);
+	}
+
+	/**
+	 * @return The port the daemon is listening on.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return The number of requests handled.
+	 */
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	/**
+	 * @return The number of times a repository has been scanned, rather than its inventory reused.
+	 */
+	public long getScanCount() {
+		return scans.sum();
+	}
+
+	/**
+	 * @return The mean time taken to handle a request, in nanoseconds, or 0 if none have been handled.
+	 */
+	public long getMeanRequestNanos() {
+		long count = requests.sum();
+		return count==0 ? 0 : requestNanos.sum() / count;
+	}
+
+	private void accept() {
+		while(!closed) {
+			try {
+				Socket socket = serverSocket.accept();
+				executor.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if(!closed) {
+					logger.warn("Reckon daemon failed to accept a connection", e);
+					pauseAccepting();
+				}
+			}
+		}
+	}
+
+	private void pauseAccepting() {
+		try {
+			Thread.sleep(ACCEPT_RETRY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void serve(Socket socket) {
+		try(Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)) {
+			String line;
+			while((line = in.readLine())!=null) {
+				if(line.isEmpty()) {
+					continue;
+				}
+				out.write(handle(line));
+				out.write('\n');
+				out.flush();
+			}
+		} catch (SocketException e) {
+			// The client has gone away
+		} catch (IOException e) {
+			logger.warn("Reckon daemon failed to serve a connection", e);
+		}
+	}
+
+	/**
+	 * Handles a single request line, returning the response line. Exceptions, and stack overflows, are answered with an
+	 * error, so that the client isn't left waiting; stack overflows are also logged. Any other error leaves the daemon
+	 * in no state to answer, so it is rethrown, closing the connection.
+	 */
+	String handle(String line) {
+		long start = System.nanoTime();
+		String response;
+		try {
+			response = "OK\t" + reckon(ReckonRequest.parse(line));
+		} catch (RuntimeException | IOException e) {
+			response = error(e);
+		} catch (StackOverflowError e) {
+			logger.error("Reckon daemon failed to handle request: " + line, e);
+			response = error(e);
+		}
+		long nanos = System.nanoTime() - start;
+		requests.increment();
+		requestNanos.add(nanos);
+		return response + '\t' + nanos / 1000;
+	}
+
+	private static String error(Throwable failure) {
+		String message = failure.getMessage()!=null ? failure.getMessage() : failure.toString();
+		return "ERROR\t" + message.replace('\t', ' ').replace('\n', ' ');
+	}
+
+	private Version reckon(ReckonRequest request) throws IOException {
+		requestCheck.accept(request);
+		Repository repository = repository(new File(request.get(ReckonRequest.REPO).get()));
+		return Reckoner.reckon(inventory(repository, request.tagSelector()), request.normalStrategy(),
+				request.preReleaseStrategy());
+	}
+
+	private Repository repository(File path) throws IOException {
+		File canonical = path.getCanonicalFile();
+		Repository repository = repositories.get(canonical);
+		if(repository==null) {
+			FileRepositoryBuilder builder = new FileRepositoryBuilder().findGitDir(canonical);
+			if(builder.getGitDir()==null) {
+				throw new IllegalArgumentException("Not a git repository: " + path);
+			}
+			Repository opened = builder.build();
+			repository = repositories.putIfAbsent(canonical, opened);
+			if(repository==null) {
+				repository = opened;
+			} else {
+				opened.close();
+			}
+		}
+		return repository;
+	}
+
+	/**
+	 * Reuses the repository's inventory if neither {@code HEAD} nor any tag has changed since it was scanned.
+	 */
+	private IndexedInventory inventory(Repository repository, TagSelector selector) throws IOException {
+		String key = InventoryCache.key(repository, selector.getKey());
+		CachedInventory cached = inventories.computeIfAbsent(
+				repository.getDirectory().getPath() + '\n' + selector.getKey(), k -> new CachedInventory());
+		synchronized(cached) {
+			if(!key.equals(cached.key)) {
+				cached.inventory = new ConfigurableGitInventorySupplier(repository)
+						.withTagsMatching(selector)
+						.getIndexedInventory();
+				cached.key = key;
+				scans.increment();
+			}
+			return cached.inventory;
+		}
+	}
+
+	/**
+	 * Stops listening, and closes all the repositories the daemon has opened.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		executor.shutdownNow();
+		repositories.values().forEach(Repository::close);
+		repositories.clear();
+		inventories.clear();
+	}
+
+	private static final class CachedInventory {
+		String key = null;
+		IndexedInventory inventory = null;
+	}
+
+}
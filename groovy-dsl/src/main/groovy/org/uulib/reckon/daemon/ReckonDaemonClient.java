@@ -0,0 +1,77 @@
+package org.uulib.reckon.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A connection to a {@linkplain ReckonDaemon daemon} on the local machine, over which any number of requests may be
+ * sent in turn.
+ *
+ * @author hWorblehat
+ */
+public final class ReckonDaemonClient implements AutoCloseable {
+
+	private final Socket socket;
+	private final BufferedReader in;
+	private final Writer out;
+	private long lastRequestMicros = -1;
+
+	/**
+	 * @param port The port the daemon is listening on.
+	 * @throws IOException If the daemon cannot be connected to.
+	 */
+	public ReckonDaemonClient(int port) throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Asks the daemon to reckon a version.
+	 *
+	 * @param request The request.
+	 * @return The reckoned version.
+	 * @throws IOException If communicating with the daemon fails.
+	 * @throws IllegalStateException If the daemon could not reckon the version.
+	 */
+	public Version reckon(ReckonRequest request) throws IOException {
+		out.write(request.toString());
+		out.write('\n');
+		out.flush();
+
+		String response = in.readLine();
+		if(response==null) {
+			throw new IOException("The daemon closed the connection.");
+		}
+		String[] fields = response.split("\t", -1);
+		if(fields.length!=3) {
+			throw new IOException("Malformed response: " + response);
+		}
+		lastRequestMicros = Long.parseLong(fields[2]);
+		if(!"OK".equals(fields[0])) {
+			throw new IllegalStateException(fields[1]);
+		}
+		return Version.valueOf(fields[1]);
+	}
+
+	/**
+	 * @return How long the daemon took to handle the last request, in microseconds, or -1 if none has been sent.
+	 */
+	public long getLastRequestMicros() {
+		return lastRequestMicros;
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+}
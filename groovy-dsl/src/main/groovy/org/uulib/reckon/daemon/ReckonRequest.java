@@ -0,0 +1,131 @@
+package org.uulib.reckon.daemon;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.ajoberstar.reckon.core.NormalStrategy;
+import org.ajoberstar.reckon.core.PreReleaseStrategy;
+import org.ajoberstar.reckon.core.strategy.ScopeNormalStrategy;
+import org.uulib.reckon.git.TagSelector;
+import org.uulib.reckon.strategy.BuildMetadataPartStrategy;
+import org.uulib.reckon.strategy.CompoundPreReleaseStrategy;
+import org.uulib.reckon.strategy.NoPreReleaseStrategy;
+import org.uulib.reckon.strategy.NumberedStagePreReleasePartStrategy;
+import org.uulib.util.ConstantSupplier;
+
+/**
+ * A request for a {@linkplain ReckonDaemon daemon} to reckon the version of a repository. On the wire, a request is a
+ * single line of tab-separated {@code key=value} fields:
+ * <dl>
+ * <dt>{@code repo}</dt><dd>The path of the repository, or any directory within its working tree. Required.</dd>
+ * <dt>{@code scope}</dt><dd>The scope of the normal version: {@code major}, {@code minor} or {@code patch}.</dd>
+ * <dt>{@code stage}</dt><dd>The pre-release stage, numbered as {@code <stage>.<n>}. No stage, or {@code final},
+ *     reckons a final version.</dd>
+ * <dt>{@code tags}</dt><dd>A regular expression selecting the tags to use as versions, as for
+ *     {@link org.uulib.reckon.git.TagSelector#matching(java.util.regex.Pattern) TagSelector.matching}.</dd>
+ * <dt>{@code metadata}</dt><dd>{@code commit} to add the commit ID as build metadata.</dd>
+ * </dl>
+ *
+ * @author hWorblehat
+ */
+public final class ReckonRequest {
+
+	public static final String REPO = "repo";
+	public static final String SCOPE = "scope";
+	public static final String STAGE = "stage";
+	public static final String TAGS = "tags";
+	public static final String METADATA = "metadata";
+
+	private final Map<String, String> fields;
+
+	private ReckonRequest(Map<String, String> fields) {
+		this.fields = Collections.unmodifiableMap(fields);
+	}
+
+	/**
+	 * @param repo The path of the repository.
+	 * @return A request for the repository's version with the default strategies.
+	 */
+	public static ReckonRequest forRepository(String repo) {
+		return new ReckonRequest(Collections.singletonMap(REPO, Objects.requireNonNull(repo)));
+	}
+
+	/**
+	 * @return A copy of this request with a field set.
+	 */
+	public ReckonRequest with(String key, String value) {
+		if(key.isEmpty() || key.indexOf('=') >= 0 || key.indexOf('\t') >= 0 || value.indexOf('\t') >= 0
+				|| key.indexOf('\n') >= 0 || value.indexOf('\n') >= 0) {
+			throw new IllegalArgumentException("Invalid field: " + key + '=' + value);
+		}
+		Map<String, String> updated = new LinkedHashMap<>(fields);
+		updated.put(key, value);
+		return new ReckonRequest(updated);
+	}
+
+	public Optional<String> get(String key) {
+		return Optional.ofNullable(fields.get(key));
+	}
+
+	public Map<String, String> getFields() {
+		return fields;
+	}
+
+	/**
+	 * @return The selector of the tags to use as versions.
+	 */
+	public TagSelector tagSelector() {
+		return get(TAGS).map(regex -> TagSelector.matching(Pattern.compile(regex))).orElse(TagSelector.DEFAULT);
+	}
+
+	/**
+	 * @return The strategy to reckon the normal version with.
+	 */
+	public NormalStrategy normalStrategy() {
+		return new ScopeNormalStrategy(ConstantSupplier.nonNull(get(SCOPE)));
+	}
+
+	/**
+	 * @return The strategy to reckon the pre-release version with.
+	 */
+	public PreReleaseStrategy preReleaseStrategy() {
+		Optional<String> stage = get(STAGE).filter(s -> !s.equals("final"));
+		boolean commitMetadata = get(METADATA).filter("commit"::equals).isPresent();
+		if(!stage.isPresent() && !commitMetadata) {
+			return NoPreReleaseStrategy.INSTANCE;
+		}
+		CompoundPreReleaseStrategy.Builder builder = CompoundPreReleaseStrategy.builder();
+		stage.ifPresent(s -> builder.setPreReleasePart(NumberedStagePreReleasePartStrategy.forStage(s)));
+		if(commitMetadata) {
+			builder.setBuildMetadataPart(BuildMetadataPartStrategy.COMMIT_ID);
+		}
+		return builder.build();
+	}
+
+	static ReckonRequest parse(String line) {
+		Map<String, String> fields = new LinkedHashMap<>();
+		for(String field : line.split("\t")) {
+			int split = field.indexOf('=');
+			if(split <= 0) {
+				throw new IllegalArgumentException("Malformed field: " + field);
+			}
+			fields.put(field.substring(0, split), field.substring(split + 1));
+		}
+		if(!fields.containsKey(REPO)) {
+			throw new IllegalArgumentException("No repository given.");
+		}
+		return new ReckonRequest(fields);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		fields.forEach((k, v) -> sb.append(sb.length()==0 ? "" : "\t").append(k).append('=').append(v));
+		return sb.toString();
+	}
+
+}
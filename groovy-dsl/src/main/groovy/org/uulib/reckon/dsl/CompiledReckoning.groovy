@@ -0,0 +1,191 @@
+package org.uulib.reckon.dsl
+
+import java.util.concurrent.Callable
+import java.util.function.Function
+import java.util.function.Supplier
+
+import org.ajoberstar.reckon.core.NormalStrategy
+import org.ajoberstar.reckon.core.PreReleaseStrategy
+import org.ajoberstar.reckon.core.VcsInventory
+import org.ajoberstar.reckon.core.VcsInventorySupplier
+import org.uulib.reckon.IndexedInventory
+import org.uulib.reckon.Reckoner
+import org.uulib.reckon.strategy.CompoundPreReleaseStrategy
+import org.uulib.reckon.strategy.IndexedPreReleaseStrategy
+import org.uulib.reckon.strategy.PreReleasePartStrategy
+import org.uulib.util.ConstantSupplier
+
+import com.github.zafarkhaja.semver.Version
+
+import groovy.transform.PackageScope
+
+/**
+ * A reckon configuration compiled into an immutable graph of strategies. Values that are fixed when the configuration
+ * is compiled are resolved once; only those given as callables or suppliers, such as {@code basedOn} selections, are
+ * resolved each time a version is reckoned. The graph may be used for any number of reckonings, from any number of
+ * threads, and its {@link #toString()} describes it.
+ */
+final class CompiledReckoning {
+
+	/**
+	 * Supplies the VCS inventory supplier to reckon with.
+	 */
+	final Supplier<VcsInventorySupplier> vcs
+	final NormalStrategy normalStrategy
+	final PreReleaseStrategy preReleaseStrategy
+
+	@PackageScope CompiledReckoning(ReckonSpec spec) {
+		vcs = compile(spec.vcs, CompiledReckoning.&resolveVcsInventory)
+		Supplier<NormalStrategy> normal = compile(spec.normalVersion, CompiledReckoning.&resolveNormalStrategy)
+		normalStrategy = (normal instanceof ConstantSupplier) ? normal.get() : new DeferredNormalStrategy(normal)
+		Supplier<PreReleaseStrategy> preRelease = compile(spec.preReleaseVersion,
+				CompiledReckoning.&resolvePreReleaseStrategy)
+		preReleaseStrategy = (preRelease instanceof ConstantSupplier) ? preRelease.get()
+				: new DeferredPreReleaseStrategy(preRelease)
+	}
+
+	/**
+	 * Reckons a version.
+	 *
+	 * @param inventories Shares the VCS inventory with other reckonings, or {@code null} not to share it.
+	 */
+	Version reckon(SharedInventories inventories) {
+		VcsInventorySupplier supplier = vcs.get()
+		return Reckoner.reckon(inventories==null ? supplier : inventories.share(supplier), normalStrategy,
+				preReleaseStrategy)
+	}
+
+	@Override
+	String toString() {
+		return "vcs = $vcs\nnormalVersion = $normalStrategy\npreReleaseVersion = $preReleaseStrategy"
+	}
+
+	/**
+	 * Resolves a value once if it is fixed, or each time it is needed if it is a callable or supplier.
+	 */
+	@PackageScope static <T> Supplier<T> compile(def value, Function<Object, T> resolver) {
+		while(value instanceof ConstantSupplier) {
+			value = value.get()
+		}
+		switch(value) {
+			case CompoundPreReleaseCallable: return ConstantSupplier.nonNull(resolver.apply(value.compile()))
+			case Supplier:
+			case Callable:
+				return new Deferred<T>(value, resolver)
+			default: return ConstantSupplier.nullable(resolver.apply(value))
+		}
+	}
+
+	private static VcsInventorySupplier resolveVcsInventory(def vcsInventory) {
+		switch(vcsInventory) {
+			case VcsInventorySupplier: return vcsInventory
+			case VcsInventory: return {vcsInventory} as VcsInventorySupplier
+
+			case null: throw new IllegalStateException('VCS inventory not set.')
+			default: throw illegalType('VCS inventory', vcsInventory)
+		}
+	}
+
+	private static NormalStrategy resolveNormalStrategy(def normalStrategy) {
+		switch(normalStrategy) {
+			case NormalStrategy: return normalStrategy
+			case Integer:
+			case String:
+			case Version:
+				return VersionStrategies.version(normalStrategy)
+
+			case null: throw new IllegalStateException('Normal strategy not set.')
+			default: throw illegalType('normal strategy', normalStrategy)
+		}
+	}
+
+	private static PreReleaseStrategy resolvePreReleaseStrategy(def preReleaseStrategy) {
+		switch(preReleaseStrategy) {
+			case PreReleaseStrategy: return preReleaseStrategy
+
+			case String: preReleaseStrategy = PartStrategies.preRelease(preReleaseStrategy) // v Fall through v
+			case PreReleasePartStrategy: return CompoundPreReleaseStrategy.builder()
+			.setPreReleasePart(preReleaseStrategy)
+			.build()
+
+			case null: return VersionStrategies.none
+
+			default: throw illegalType('pre-release strategy', preReleaseStrategy)
+		}
+	}
+
+	private static IllegalStateException illegalType(String desc, def val) {
+		return new IllegalStateException("Don't know how to interpret $desc '$val' of type '${val.class}'")
+	}
+
+	/**
+	 * A value resolved from a callable or supplier each time it is needed.
+	 */
+	private static final class Deferred<T> implements Supplier<T> {
+
+		private final def source
+		private final Function<Object, T> resolver
+
+		Deferred(def source, Function<Object, T> resolver) {
+			this.source = source
+			this.resolver = resolver
+		}
+
+		@Override
+		T get() {
+			return resolver.apply(Util.extract(source))
+		}
+
+		@Override
+		String toString() {
+			return "<deferred: $source>"
+		}
+
+	}
+
+	private static final class DeferredNormalStrategy implements NormalStrategy {
+
+		private final Supplier<NormalStrategy> strategy
+
+		DeferredNormalStrategy(Supplier<NormalStrategy> strategy) {
+			this.strategy = strategy
+		}
+
+		@Override
+		Version reckonNormal(VcsInventory inventory) {
+			return strategy.get().reckonNormal(inventory)
+		}
+
+		@Override
+		String toString() {
+			return strategy.toString()
+		}
+
+	}
+
+	private static final class DeferredPreReleaseStrategy implements IndexedPreReleaseStrategy {
+
+		private final Supplier<PreReleaseStrategy> strategy
+
+		DeferredPreReleaseStrategy(Supplier<PreReleaseStrategy> strategy) {
+			this.strategy = strategy
+		}
+
+		@Override
+		Version reckonTargetVersion(VcsInventory inventory, Version targetNormal) {
+			return strategy.get().reckonTargetVersion(inventory, targetNormal)
+		}
+
+		@Override
+		Version reckonTargetVersion(IndexedInventory inventory, Version targetNormal) {
+			return IndexedPreReleaseStrategy.reckon(strategy.get(), inventory, targetNormal)
+		}
+
+		@Override
+		String toString() {
+			return strategy.toString()
+		}
+
+	}
+
+}
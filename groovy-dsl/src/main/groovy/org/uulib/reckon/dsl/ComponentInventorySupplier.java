@@ -0,0 +1,61 @@
+package org.uulib.reckon.dsl;
+
+import java.io.File;
+import java.util.Objects;
+
+import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.IndexedInventorySupplier;
+import org.uulib.reckon.git.ComponentInventories;
+
+/**
+ * Supplies the inventory of one component of a repository that tags each component's versions separately, such as
+ * {@code <component>/v1.2.3}. When shared through {@link SharedInventories}, the inventories of all the components of
+ * the same repository are computed in a single scan.
+ *
+ * @see ComponentInventories
+ */
+public class ComponentInventorySupplier implements IndexedInventorySupplier {
+
+	private final Repository repository;
+	private final String component;
+	private String separator = ComponentInventories.DEFAULT_SEPARATOR;
+
+	public ComponentInventorySupplier(Repository repository, String component) {
+		this.repository = Objects.requireNonNull(repository);
+		this.component = Objects.requireNonNull(component);
+	}
+
+	/**
+	 * @param separator Separates the component from the version in tag names.
+	 * @return A reference to {@code this} supplier
+	 */
+	public ComponentInventorySupplier withSeparator(String separator) {
+		this.separator = Objects.requireNonNull(separator);
+		return this;
+	}
+
+	public String getComponent() {
+		return component;
+	}
+
+	/**
+	 * Identifies the set of components this supplier's component belongs to, such that suppliers with the same
+	 * partition identity can share a single scan.
+	 *
+	 * @return The identity.
+	 */
+	public String getPartitionIdentity() {
+		return repository.getDirectory().getAbsolutePath() + File.pathSeparatorChar + "components:" + separator;
+	}
+
+	ComponentInventories partition() {
+		return new ComponentInventories(repository, separator);
+	}
+
+	@Override
+	public IndexedInventory getIndexedInventory() {
+		return partition().getIndexedInventory(component);
+	}
+
+}
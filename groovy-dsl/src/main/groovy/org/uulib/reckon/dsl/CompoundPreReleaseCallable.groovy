@@ -1,6 +1,7 @@
 package org.uulib.reckon.dsl
 
 import java.util.concurrent.Callable
+import java.util.function.Supplier
 
 import org.uulib.reckon.strategy.BuildMetadataPartStrategy
 import org.uulib.reckon.strategy.CompoundPreReleaseStrategy
@@ -10,6 +11,11 @@ import org.uulib.util.Configurator
 import groovy.transform.PackageScope
 import groovy.transform.TupleConstructor
 
+/**
+ * Compiles a compound pre-release configuration into a {@link CompoundPreReleaseStrategy}, each time the
+ * configuration containing it is compiled. Parts given as callables or suppliers are resolved each time a version is
+ * reckoned.
+ */
 @TupleConstructor
 @PackageScope final class CompoundPreReleaseCallable implements Callable<CompoundPreReleaseStrategy> {
 
@@ -17,16 +23,24 @@ import groovy.transform.TupleConstructor
 
 	@Override
 	CompoundPreReleaseStrategy call() throws Exception {
-		config.withConfigured({new CompoundPreReleaseSpec()}) { CompoundPreReleaseSpec spec ->
+		return compile()
+	}
+
+	CompoundPreReleaseStrategy compile() {
+		return config.withConfigured({new CompoundPreReleaseSpec()}) { CompoundPreReleaseSpec spec ->
 			return CompoundPreReleaseStrategy.builder()
-					.setPreReleasePart(resolvePart('pre-release', PreReleasePartStrategy, spec.preRelease))
-					.setBuildMetadataPart(resolvePart('build metadata', BuildMetadataPartStrategy, spec.buildMetadata))
+					.setPreReleasePart(compilePart('pre-release', PreReleasePartStrategy, spec.preRelease))
+					.setBuildMetadataPart(compilePart('build metadata', BuildMetadataPartStrategy,
+							spec.buildMetadata))
 					.build()
 		}
 	}
 
+	private static <T> Supplier<T> compilePart(String desc, Class<T> type, def part) {
+		return CompiledReckoning.compile(part) { resolvePart(desc, type, it) }
+	}
+
 	private static <T> T resolvePart(String desc, Class<T> type, def part) {
-		part = Util.extract(part)
 		switch(part) {
 			case type: return part
 			case String: return PartStrategies.part(part)
@@ -1,59 +1,365 @@
 package org.uulib.reckon.dsl;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.ajoberstar.reckon.core.VcsInventory;
-import org.ajoberstar.reckon.core.VcsInventorySupplier;
 import org.ajoberstar.reckon.core.git.GitInventorySupplier;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.CompactVersionSet;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.IndexedInventorySupplier;
+import org.uulib.reckon.ReckoningListener;
+import org.uulib.reckon.ReckoningListener.Phase;
+import org.uulib.reckon.ReckoningListeners;
+import org.uulib.reckon.git.GitHistoryInventories;
+import org.uulib.reckon.git.InventoryCache;
+import org.uulib.reckon.git.Reachability;
+import org.uulib.reckon.git.ShallowInventory;
+import org.uulib.reckon.git.TagSelector;
 
 import groovy.lang.Closure;
 
-public class ConfigurableGitInventorySupplier implements VcsInventorySupplier {
-	
+public class ConfigurableGitInventorySupplier implements IndexedInventorySupplier {
+
 	private final Repository repository;
-	private Function<String, Optional<String>> tagSelector = (tag) -> Optional.of(tag.replaceAll("^v", ""));
-	
+	private Function<String, Optional<String>> tagSelector = TagSelector.DEFAULT;
+	private String tagSelectorKey = TagSelector.DEFAULT.getKey();
+	private InventoryCache cache = null;
+	private boolean withinShallowBoundary = false;
+	private int parallelism = 1;
+
 	public ConfigurableGitInventorySupplier(Repository repository) {
 		this.repository = repository;
 	}
-	
-	public ConfigurableGitInventorySupplier withTagsMatching(Function<String, Optional<String>> tagSelector) {
-		this.tagSelector = tagSelector;
+
+	private ConfigurableGitInventorySupplier withTagSelector(Function<String, Optional<String>> tagSelector,
+			String tagSelectorKey) {
+		this.tagSelector = Objects.requireNonNull(tagSelector);
+		this.tagSelectorKey = tagSelectorKey;
 		return this;
 	}
-	
+
+	/**
+	 * Selects the tags to use as versions with an arbitrary function. As the function cannot be identified, inventories
+	 * computed with it will not be stored in any {@linkplain #withPersistentCache() persistent cache}.
+	 *
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see #withTagsMatching(Function, String)
+	 */
+	public ConfigurableGitInventorySupplier withTagsMatching(Function<String, Optional<String>> tagSelector) {
+		return withTagSelector(tagSelector, null);
+	}
+
+	/**
+	 * Selects the tags to use as versions with an arbitrary function, identified by a key so that inventories computed
+	 * with it can be stored in a {@linkplain #withPersistentCache() persistent cache}.
+	 *
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @param tagSelectorKey Identifies the behaviour of the selector. Selectors that behave differently must have
+	 *                       different keys.
+	 * @return A reference to {@code this} supplier
+	 */
+	public ConfigurableGitInventorySupplier withTagsMatching(Function<String, Optional<String>> tagSelector,
+			String tagSelectorKey) {
+		return withTagSelector(tagSelector, Objects.requireNonNull(tagSelectorKey));
+	}
+
 	public ConfigurableGitInventorySupplier withTagsMatching(Closure<String> tagSelector) {
 		return withTagsMatching(tag -> Optional.ofNullable(tagSelector.call(tag)));
 	}
-	
+
+	public ConfigurableGitInventorySupplier withTagsMatching(TagSelector tagSelector) {
+		return withTagSelector(tagSelector, tagSelector.getKey());
+	}
+
+	/**
+	 * Selects the tags matching a regular expression, extracting the version from its only group, or its group named
+	 * {@code version}, or else the whole tag.
+	 *
+	 * @param regex The regular expression tags must match.
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see TagSelector#matching(Pattern)
+	 */
 	public ConfigurableGitInventorySupplier withTagsMatching(Pattern regex) {
-		return withTagsMatching(tag -> {
-			Matcher m = regex.matcher(tag);
-			if(!m.matches()) {
-				return Optional.empty();
-			}
-			if(m.groupCount()==1) {
-				return Optional.ofNullable(m.group(1));
-			}
-			try {
-				return Optional.ofNullable(m.group("version"));
-			} catch (IllegalArgumentException e) {
-				return Optional.ofNullable(m.group());
-			}
-		});
+		return withTagsMatching(TagSelector.matching(regex));
 	}
-	
+
+	/**
+	 * Selects the tags matching any of several regular expressions, extracting each version with the first that
+	 * matches, as for {@link #withTagsMatching(Pattern)}.
+	 *
+	 * @param regexes The regular expressions tags must match.
+	 * @return A reference to {@code this} supplier
+	 */
+	public ConfigurableGitInventorySupplier withTagsMatchingAny(List<Pattern> regexes) {
+		return withTagsMatching(TagSelector.matchingAny(regexes));
+	}
+
+	public ConfigurableGitInventorySupplier withTagsMatchingAny(Pattern... regexes) {
+		return withTagsMatching(TagSelector.matchingAny(regexes));
+	}
+
 	public ConfigurableGitInventorySupplier withTagsMatching(String regex) {
 		return withTagsMatching(Pattern.compile(regex));
 	}
 
+	/**
+	 * Stores computed inventories in a persistent cache within the repository's git directory, shared between all of
+	 * its worktrees. While neither {@code HEAD}, any tag, nor the shallow boundary of a shallow clone changes,
+	 * subsequent inventories are read from the cache instead of being recomputed.
+	 *
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see InventoryCache
+	 */
+	public ConfigurableGitInventorySupplier withPersistentCache() {
+		return withPersistentCache(InventoryCache.forRepository(repository));
+	}
+
+	/**
+	 * Stores computed inventories in a persistent cache in the given directory.
+	 *
+	 * @param directory The directory in which to store the cache.
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see #withPersistentCache()
+	 */
+	public ConfigurableGitInventorySupplier withPersistentCache(File directory) {
+		return withPersistentCache(new InventoryCache(directory.toPath()));
+	}
+
+	/**
+	 * Stores computed inventories in the given persistent cache.
+	 *
+	 * @param cache The cache to use, or {@code null} to disable caching.
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see #withPersistentCache()
+	 */
+	public ConfigurableGitInventorySupplier withPersistentCache(InventoryCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
+	/**
+	 * Computes inventories from only the tags and history that are present, so that shallow clones never need to be
+	 * deepened. Where the inventory of a shallow clone could differ from that of a complete clone, all
+	 * {@linkplain ReckoningListeners listeners} are notified that it has been
+	 * {@linkplain ReckoningListener#inventoryApproximated(String, List) approximated}, and it is never stored in any
+	 * {@linkplain #withPersistentCache() persistent cache}.
+	 *
+	 * @return A reference to {@code this} supplier
+	 *
+	 * @see ShallowInventory
+	 */
+	public ConfigurableGitInventorySupplier withinShallowBoundary() {
+		this.withinShallowBoundary = true;
+		return this;
+	}
+
+	/**
+	 * Resolves tags, and determines whether the tagged commits that aren't ancestors of {@code HEAD} are parallel, using
+	 * several threads. This is worthwhile for repositories with many thousands of tags or release branches. The
+	 * inventory is the same however many threads are used.
+	 *
+	 * @param parallelism The maximum number of threads to use, or {@code 1} to scan the repository in the calling
+	 *                    thread.
+	 * @return A reference to {@code this} supplier
+	 */
+	public ConfigurableGitInventorySupplier withParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Identifies the inventory this supplier produces, such that any two suppliers with the same identity always
+	 * produce the same inventory for the same repository state.
+	 *
+	 * @return The identity, or empty if the tag selector cannot be identified.
+	 *
+	 * @see #withTagsMatching(Function, String)
+	 */
+	public Optional<String> getIdentity() {
+		return Optional.ofNullable(tagSelectorKey)
+				.map(k -> repository.getDirectory().getAbsolutePath() + File.pathSeparatorChar + selectorKey(k));
+	}
+
 	@Override
-	public VcsInventory getInventory() {
-		return new GitInventorySupplier(repository, tagSelector).getInventory();
+	public IndexedInventory getIndexedInventory() {
+		if(cache==null || tagSelectorKey==null) {
+			return scan();
+		}
+
+		String key;
+		try {
+			key = InventoryCache.key(repository, selectorKey(tagSelectorKey));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if(!withinShallowBoundary) {
+			return cache.computeIfAbsent(key, this::scan);
+		}
+
+		Optional<IndexedInventory> cached = cache.get(key);
+		if(cached.isPresent()) {
+			return cached.get();
+		}
+		ShallowInventory scanned = scanWithinShallowBoundary();
+		if(!scanned.isApproximate()) {
+			cache.put(key, scanned.getInventory());
+		}
+		return scanned.getIndexedInventory();
+	}
+
+	/**
+	 * The inventories of shallow clones depend on the shallow boundary as well as the tags and {@code HEAD}, whether
+	 * or not they are scanned {@linkplain #withinShallowBoundary() within the boundary}, so deepening a clone must
+	 * change their keys. Complete clones scanned in the default way keep the key of the tag selector alone.
+	 */
+	private String selectorKey(String tagSelectorKey) {
+		Set<ObjectId> boundary;
+		try {
+			boundary = ShallowInventory.boundary(repository);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if(boundary.isEmpty() && !withinShallowBoundary) {
+			return tagSelectorKey;
+		}
+		String prefix = tagSelectorKey + (withinShallowBoundary ? "\nshallow:" : "\nboundary:");
+		return boundary.stream().map(ObjectId::name).sorted().collect(Collectors.joining(",", prefix, ""));
+	}
+
+	/**
+	 * Inventories the repository's history, selecting tags in the same way as this supplier.
+	 *
+	 * @return The history's inventories.
+	 */
+	public GitHistoryInventories history() {
+		return new GitHistoryInventories(repository, tagSelector);
+	}
+
+	/**
+	 * Complete clones with {@linkplain Reachability reachability bitmaps}, or which are to be scanned in parallel, are
+	 * scanned in the same way as shallow clones, which is exact for complete clones and uses any bitmaps rather than
+	 * walking all of history.
+	 */
+	private IndexedInventory scan() {
+		if(withinShallowBoundary) {
+			return scanWithinShallowBoundary().getIndexedInventory();
+		}
+
+		boolean bitmaps;
+		try {
+			bitmaps = Reachability.hasBitmaps(repository);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if(bitmaps || parallelism > 1) {
+			return scanShallow().getIndexedInventory();
+		}
+		return scanWithGitInventorySupplier();
+	}
+
+	/**
+	 * Stores the claimed versions of an inventory scanned by reckon's own supplier in a {@link CompactVersionSet}, as the
+	 * inventories scanned by this package's suppliers are, so their parsed versions aren't retained.
+	 */
+	private static IndexedInventory compact(VcsInventory inventory) {
+		CompactVersionSet claimed = CompactVersionSet.copyOf(inventory.getClaimedVersions());
+		return claimed.indexed(new VcsInventory(inventory.getCommitId(), inventory.getCurrentVersion().orElse(null),
+				inventory.getBaseVersion(), inventory.getBaseNormal(), inventory.getCommitsSinceBase(),
+				inventory.getParallelNormals(), claimed));
+	}
+
+	/**
+	 * Scans the repository as a possibly shallow clone, notifying any {@linkplain ReckoningListeners listeners} if the
+	 * inventory is approximate.
+	 */
+	private ShallowInventory scanWithinShallowBoundary() {
+		ShallowInventory scanned = scanShallow();
+		if(scanned.isApproximate()) {
+			ReckoningListeners.inventoryApproximated(scanned.getInventory().getCommitId(), scanned.getApproximations());
+		}
+		return scanned;
+	}
+
+	/**
+	 * Scans the repository as a possibly shallow clone, which reports the scan to any
+	 * {@linkplain ReckoningListeners listeners} itself.
+	 */
+	private ShallowInventory scanShallow() {
+		try {
+			return ShallowInventory.scan(repository, tagSelector, parallelism);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Scans the repository with reckon's own supplier, reporting the tags scanned to any
+	 * {@linkplain ReckoningListeners listeners}. The tags are enumerated up-front, which both times the enumeration and
+	 * loads them for the scan itself. The number of commits walked by the scan isn't known.
+	 */
+	private IndexedInventory scanWithGitInventorySupplier() {
+		long start = System.nanoTime();
+		try {
+			repository.getRefDatabase().getRefs(Constants.R_TAGS);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		long enumerated = System.nanoTime();
+		ReckoningListeners.phaseCompleted(Phase.REF_ENUMERATION, enumerated - start);
+
+		CountingSelector counting = new CountingSelector(tagSelector);
+		IndexedInventory inventory;
+		try {
+			inventory = compact(new GitInventorySupplier(repository, counting).getInventory());
+		} finally {
+			ReckoningListeners.phaseCompleted(Phase.HISTORY_WALK, System.nanoTime() - enumerated);
+		}
+		ReckoningListeners.inventoryScanned(counting.scanned, counting.rejected, -1,
+				inventory.getInventory().getClaimedVersions().size());
+		return inventory;
+	}
+
+	private static final class CountingSelector implements Function<String, Optional<String>> {
+
+		private final Function<String, Optional<String>> delegate;
+		int scanned = 0;
+		int rejected = 0;
+
+		CountingSelector(Function<String, Optional<String>> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Optional<String> apply(String tag) {
+			++scanned;
+			Optional<String> version = delegate.apply(tag);
+			if(!version.isPresent()) {
+				++rejected;
+			}
+			return version;
+		}
+
 	}
 
 }
@@ -4,6 +4,10 @@ import java.time.Instant;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
+import org.ajoberstar.grgit.Grgit;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.git.RefStageReservations;
 import org.uulib.reckon.strategy.BuildMetadataPartStrategy;
 import org.uulib.reckon.strategy.ConstantPartStrategy;
 import org.uulib.reckon.strategy.DatePreReleasePartStrategy;
@@ -51,6 +55,18 @@ public interface PartStrategies {
 		return stageUsing((Supplier<String>) ConstantSupplier.nonNull(stage));
 	}
 	
+	static RefStageReservations reservationsIn(Repository repository) {
+		return new RefStageReservations(repository);
+	}
+	
+	static RefStageReservations reservationsIn(Git git) {
+		return reservationsIn(git.getRepository());
+	}
+	
+	static RefStageReservations reservationsIn(Grgit grgit) {
+		return reservationsIn(grgit.getRepository().getJgit());
+	}
+	
 	BuildMetadataPartStrategy commitId = BuildMetadataPartStrategy.COMMIT_ID;
 
 }
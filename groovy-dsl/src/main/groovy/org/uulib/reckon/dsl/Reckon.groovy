@@ -2,11 +2,13 @@ package org.uulib.reckon.dsl
 
 import java.util.concurrent.Callable
 import java.util.function.Consumer
+import java.util.stream.Stream
 
 import org.ajoberstar.reckon.core.NormalStrategy
 import org.ajoberstar.reckon.core.PreReleaseStrategy
 import org.ajoberstar.reckon.core.VcsInventory
 import org.ajoberstar.reckon.core.VcsInventorySupplier
+import org.uulib.reckon.CommitVersion
 import org.uulib.reckon.Reckoner
 import org.uulib.reckon.strategy.CompoundPreReleaseStrategy
 import org.uulib.reckon.strategy.PreReleasePartStrategy
@@ -20,16 +22,54 @@ final class Reckon {
 	
 	private Reckon() {}
 	
-	private static ReckonedVersion doReckon(Configurator<ReckonSpec> config) {
-		return new ReckonedVersion(new ReckonCallable(config))
+	private static ReckonedVersion doReckon(Configurator<ReckonSpec> config, SharedInventories inventories) {
+		return new ReckonedVersion(new ReckonCallable(config, inventories))
 	}
 	
 	static ReckonedVersion reckon(Consumer<ReckonSpec> config) {
-		return doReckon(Configurator.using(config))
+		return doReckon(Configurator.using(config), null)
 	}
 	
 	static ReckonedVersion reckon(Closure config) {
-		return doReckon(Configurator.using(config))
+		return doReckon(Configurator.using(config), null)
+	}
+	
+	/**
+	 * Reckons a version, sharing the VCS inventory with all other versions reckoned using the same
+	 * {@link SharedInventories}.
+	 */
+	static ReckonedVersion reckon(SharedInventories inventories, Consumer<ReckonSpec> config) {
+		return doReckon(Configurator.using(config), inventories)
+	}
+	
+	static ReckonedVersion reckon(SharedInventories inventories, Closure config) {
+		return doReckon(Configurator.using(config), inventories)
+	}
+	
+	/**
+	 * Compiles a configuration into an immutable graph of strategies, which can be reused to reckon any number of
+	 * versions, and whose {@code toString()} describes it.
+	 */
+	static CompiledReckoning compile(Closure config) {
+		return new ReckonCallable(Configurator.using(config), null).compile()
+	}
+	
+	/**
+	 * Reckons a version with a compiled configuration, sharing the VCS inventory with all other versions reckoned
+	 * using the same {@link SharedInventories}, if given. The configuration's fixed values were resolved when it was
+	 * compiled, so {@linkplain ReckonedVersion#invalidate() invalidating} the version only resolves its deferred values
+	 * again.
+	 */
+	static ReckonedVersion reckon(SharedInventories inventories, CompiledReckoning reckoning) {
+		return new ReckonedVersion({ reckoning.reckon(inventories) })
+	}
+	
+	/**
+	 * Reckons the version of every commit reachable from {@code until} but not from {@code since}, as each would be
+	 * reckoned if it were checked out. The VCS inventory must be a git repository. The returned stream must be closed.
+	 */
+	static Stream<CommitVersion> reckonHistory(Closure config, String since, String until) {
+		return new ReckonCallable(Configurator.using(config), null).history(since, until)
 	}
 
 }
@@ -1,14 +1,11 @@
 package org.uulib.reckon.dsl
 
 import java.util.concurrent.Callable
+import java.util.stream.Stream
 
-import org.ajoberstar.reckon.core.NormalStrategy
-import org.ajoberstar.reckon.core.PreReleaseStrategy
-import org.ajoberstar.reckon.core.VcsInventory
 import org.ajoberstar.reckon.core.VcsInventorySupplier
+import org.uulib.reckon.CommitVersion
 import org.uulib.reckon.Reckoner
-import org.uulib.reckon.strategy.CompoundPreReleaseStrategy
-import org.uulib.reckon.strategy.PreReleasePartStrategy
 import org.uulib.util.Configurator
 
 import com.github.zafarkhaja.semver.Version
@@ -16,65 +13,42 @@ import com.github.zafarkhaja.semver.Version
 import groovy.transform.PackageScope
 import groovy.transform.TupleConstructor
 
+/**
+ * Reckons a version by compiling its configuration each time it is called. A {@link ReckonedVersion} only calls it
+ * again once {@linkplain ReckonedVersion#invalidate() invalidated}, so the compiled graph lives exactly as long as the
+ * version reckoned with it, and invalidating the version resolves its fixed values again as well as its deferred ones.
+ * Use {@link Reckon#compile(Closure)} to reuse a compiled graph for several versions.
+ */
 @TupleConstructor
 @PackageScope final class ReckonCallable implements Callable<Version> {
 
 	final Configurator<ReckonSpec> config;
+	final SharedInventories inventories;
 
 	@Override
 	public Version call() throws Exception {
-		config.withConfigured({new ReckonSpec()}) { ReckonSpec spec ->
-			return Reckoner.reckon(
-					resolveVcsInventory(spec.vcs),
-					resolveNormalStrategy(spec.normalVersion),
-					resolvePreReleaseStrategy(spec.preReleaseVersion)
-			)
-		}
+		return compile().reckon(inventories)
 	}
 
-	private static VcsInventorySupplier resolveVcsInventory(def vcsInventory) {
-		vcsInventory = Util.extract(vcsInventory)
-		switch(vcsInventory) {
-			case VcsInventorySupplier: return vcsInventory
-			case VcsInventory: return {vcsInventory} as VcsInventorySupplier
-
-			case null: throw new IllegalStateException('VCS inventory not set.')
-			default: throw illegalType('VCS inventory', vcsInventory)
-		}
+	CompiledReckoning compile() {
+		return config.withConfigured({new ReckonSpec()}) { ReckonSpec spec -> new CompiledReckoning(spec) }
 	}
 
-	private static NormalStrategy resolveNormalStrategy(def normalStrategy) {
-		normalStrategy = Util.extract(normalStrategy)
-		switch(normalStrategy) {
-			case NormalStrategy: return normalStrategy
-			case Integer:
-			case String:
-			case Version:
-				return VersionStrategies.version(normalStrategy)
-
-			case null: throw new IllegalStateException('Normal strategy not set.')
-			default: throw illegalType('normal strategy', normalStrategy)
+	/**
+	 * Reckons the version of every commit reachable from {@code until} but not from {@code since}, in a single walk
+	 * over the history. The returned stream must be closed.
+	 */
+	Stream<CommitVersion> history(String since, String until) {
+		CompiledReckoning reckoning = compile()
+		VcsInventorySupplier vcs = reckoning.vcs.get()
+		if(!(vcs instanceof ConfigurableGitInventorySupplier)) {
+			throw new IllegalStateException("Can only reckon the history of git repositories, not '$vcs'")
 		}
-	}
-
-	private static PreReleaseStrategy resolvePreReleaseStrategy(def preReleaseStrategy) {
-		preReleaseStrategy = Util.extract(preReleaseStrategy)
-		switch(preReleaseStrategy) {
-			case PreReleaseStrategy: return preReleaseStrategy
-
-			case String: preReleaseStrategy = PartStrategies.preRelease(preReleaseStrategy) // v Fall through v
-			case PreReleasePartStrategy: return CompoundPreReleaseStrategy.builder()
-			.setPreReleasePart(preReleaseStrategy)
-			.build()
-
-			case null: return VersionStrategies.none
-
-			default: throw illegalType('pre-release strategy', preReleaseStrategy)
-		}
-	}
-	
-	private static IllegalStateException illegalType(String desc, def val) {
-		return new IllegalStateException("Don't know how to interpret $desc '$val' of type '${val.class}'")
+		return Reckoner.reckonEach(
+				((ConfigurableGitInventorySupplier) vcs).history().indexedInventories(since, until),
+				reckoning.normalStrategy,
+				reckoning.preReleaseStrategy
+		)
 	}
 
 }
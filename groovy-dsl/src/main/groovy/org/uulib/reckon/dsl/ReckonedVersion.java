@@ -2,15 +2,32 @@ package org.uulib.reckon.dsl;
 
 import java.util.concurrent.Callable;
 
-import org.uulib.util.ExceptionallyLazy;
+import org.uulib.util.Memo;
+import org.uulib.util.Memo.FailurePolicy;
 import com.github.zafarkhaja.semver.Version;
 
 public class ReckonedVersion {
 	
-	private final ExceptionallyLazy<Version, ?> version;
+	private final Memo<Version, ?> version;
 	
 	public ReckonedVersion(Callable<Version> reckoner) {
-		this.version = ExceptionallyLazy.ofCallable(reckoner);
+		this(reckoner, FailurePolicy.CACHE);
+	}
+	
+	/**
+	 * @param reckoner Reckons the version.
+	 * @param failurePolicy What to do when the version cannot be reckoned.
+	 */
+	public ReckonedVersion(Callable<Version> reckoner, FailurePolicy failurePolicy) {
+		this.version = Memo.ofCallable(reckoner, failurePolicy);
+	}
+	
+	/**
+	 * Discards the reckoned version, so that it is reckoned again when next needed, such as after the repository's
+	 * refs have changed.
+	 */
+	public void invalidate() {
+		version.invalidate();
 	}
 	
 	public String asString() throws Exception {
@@ -0,0 +1,64 @@
+package org.uulib.reckon.dsl;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.ajoberstar.reckon.core.VcsInventorySupplier;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.IndexedInventorySupplier;
+import org.uulib.reckon.git.ComponentInventories;
+import org.uulib.util.ExceptionallyLazy;
+
+/**
+ * A registry of VCS inventories that can be shared between many reckonings, such as those of all the projects in a
+ * multi-project build. Each distinct inventory is computed and {@linkplain IndexedInventory indexed} at most once per
+ * registry.
+ * <p>
+ * Only suppliers whose inventory can be identified (see {@link ConfigurableGitInventorySupplier#getIdentity()}) are
+ * shared; all others are used as-is. {@linkplain ComponentInventorySupplier Component inventories} of the same
+ * repository share a single scan of all its components.
+ *
+ * @author hWorblehat
+ */
+public final class SharedInventories {
+
+	private final ConcurrentMap<String, ExceptionallyLazy<IndexedInventory, RuntimeException>> inventories =
+			new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ComponentInventories> partitions = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns a supplier whose inventory is shared with all other identical suppliers passed to this registry.
+	 *
+	 * @param supplier The supplier to share.
+	 * @return The shared supplier, or the given one if it cannot be shared.
+	 */
+	public VcsInventorySupplier share(VcsInventorySupplier supplier) {
+		if(supplier instanceof ComponentInventorySupplier) {
+			ComponentInventorySupplier component = (ComponentInventorySupplier) supplier;
+			return partitions.computeIfAbsent(component.getPartitionIdentity(), k -> component.partition())
+					.component(component.getComponent());
+		}
+
+		Optional<String> identity = (supplier instanceof ConfigurableGitInventorySupplier)
+				? ((ConfigurableGitInventorySupplier) supplier).getIdentity()
+				: Optional.empty();
+
+		if(!identity.isPresent()) {
+			return supplier;
+		}
+
+		ExceptionallyLazy<IndexedInventory, RuntimeException> inventory = inventories.computeIfAbsent(identity.get(),
+				k -> ExceptionallyLazy.<IndexedInventory, RuntimeException>of(
+						() -> IndexedInventorySupplier.indexedInventoryOf(supplier)));
+		return (IndexedInventorySupplier) inventory::get;
+	}
+
+	/**
+	 * @return The number of distinct inventories shared through this registry.
+	 */
+	public int size() {
+		return inventories.size() + partitions.size();
+	}
+
+}
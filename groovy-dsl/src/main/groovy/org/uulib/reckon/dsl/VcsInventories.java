@@ -1,8 +1,12 @@
 package org.uulib.reckon.dsl;
 
+import java.io.File;
+import java.nio.file.Path;
+
 import org.ajoberstar.grgit.Grgit;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.InventorySnapshot;
 
 public interface VcsInventories {
 	
@@ -17,5 +21,25 @@ public interface VcsInventories {
 	static ConfigurableGitInventorySupplier git(Grgit grgit) {
 		return git(grgit.getRepository().getJgit());
 	}
+	
+	static ComponentInventorySupplier gitComponent(Repository repository, String component) {
+		return new ComponentInventorySupplier(repository, component);
+	}
+	
+	static ComponentInventorySupplier gitComponent(Git git, String component) {
+		return gitComponent(git.getRepository(), component);
+	}
+	
+	static ComponentInventorySupplier gitComponent(Grgit grgit, String component) {
+		return gitComponent(grgit.getRepository().getJgit(), component);
+	}
+	
+	static InventorySnapshot snapshot(File file) {
+		return new InventorySnapshot(file.toPath());
+	}
+	
+	static InventorySnapshot snapshot(Path file) {
+		return new InventorySnapshot(file);
+	}
 
 }
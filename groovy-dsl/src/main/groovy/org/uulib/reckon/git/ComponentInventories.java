@@ -0,0 +1,276 @@
+package org.uulib.reckon.git;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.uulib.reckon.CompactVersionSet;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.IndexedInventorySupplier;
+import org.uulib.reckon.ReckoningListener.Phase;
+import org.uulib.reckon.ReckoningListeners;
+import org.uulib.util.ExceptionallyLazy;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * The {@linkplain VcsInventory inventories} of the components of a repository that tags each component's versions
+ * separately, as {@code <component><separator><version>} (for example {@code api/v1.2.0}). An optional {@code v} at
+ * the start of the version is ignored.
+ * <p>
+ * The inventories of all the components are computed together, the first time any of them is needed: the tags are
+ * enumerated once and routed to their components, and a single walk of the history, or a lookup in the repository's
+ * {@linkplain Reachability reachability bitmaps}, determines which of them are reachable. Only each component's
+ * commits since its base normal, and the merge bases of any unreachable tagged commits, are walked separately, and
+ * these are shared between components where possible.
+ *
+ * @author hWorblehat
+ */
+public final class ComponentInventories {
+
+	/**
+	 * The default separator between a tag's component and version.
+	 */
+	public static final String DEFAULT_SEPARATOR = "/";
+
+	private final Repository repository;
+	private final String separator;
+	private final ExceptionallyLazy<Map<String, IndexedInventory>, RuntimeException> inventories =
+			ExceptionallyLazy.of(this::scan);
+
+	/**
+	 * @param repository The repository.
+	 */
+	public ComponentInventories(Repository repository) {
+		this(repository, DEFAULT_SEPARATOR);
+	}
+
+	/**
+	 * @param repository The repository.
+	 * @param separator Separates the component from the version in tag names. The component is everything up to the
+	 *                  last occurrence of the separator.
+	 */
+	public ComponentInventories(Repository repository, String separator) {
+		this.repository = Objects.requireNonNull(repository);
+		if(separator.isEmpty()) {
+			throw new IllegalArgumentException("Separator must not be empty.");
+		}
+		this.separator = separator;
+	}
+
+	/**
+	 * Obtains the inventory of a component. A component with no tagged versions has an inventory as if the
+	 * repository had no tags.
+	 *
+	 * @param component The name of the component.
+	 * @return The component's inventory.
+	 */
+	public VcsInventory getInventory(String component) {
+		return getIndexedInventory(component).getInventory();
+	}
+
+	/**
+	 * Obtains the {@linkplain #getInventory(String) inventory} of a component, indexed by its claimed versions.
+	 *
+	 * @param component The name of the component.
+	 * @return The component's indexed inventory.
+	 */
+	public IndexedInventory getIndexedInventory(String component) {
+		IndexedInventory inventory = inventories.get().get(component);
+		return inventory!=null ? inventory : inventories.get().get(null);
+	}
+
+	/**
+	 * @param component The name of the component.
+	 * @return A supplier of the {@linkplain #getInventory(String) component's inventory}.
+	 */
+	public IndexedInventorySupplier component(String component) {
+		Objects.requireNonNull(component);
+		return () -> getIndexedInventory(component);
+	}
+
+	/**
+	 * @return The names of all the components with tagged versions.
+	 */
+	public Set<String> getComponents() {
+		Set<String> components = new HashSet<>(inventories.get().keySet());
+		components.remove(null);
+		return components;
+	}
+
+	private Map<String, IndexedInventory> scan() {
+		try(Scan scan = new Scan()) {
+			return scan.run();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private final class Scan implements AutoCloseable {
+
+		private final RevWalk walk = new RevWalk(repository);
+		private final RevWalk auxiliaryWalk = new RevWalk(repository);
+
+		private final Map<ObjectId, Optional<RevCommit>> mergeBases = new HashMap<>();
+
+		private RevCommit head;
+		private Reachability reachability;
+		private int tagsScanned = 0;
+		private int tagsRejected = 0;
+		private long commitsWalked = 0;
+
+		Map<String, IndexedInventory> run() throws IOException {
+			walk.setRetainBody(false);
+			auxiliaryWalk.setRetainBody(false);
+
+			long start = System.nanoTime();
+			Map<String, Ref> tags = repository.getRefDatabase().getRefs(Constants.R_TAGS);
+			long enumerated = System.nanoTime();
+			ReckoningListeners.phaseCompleted(Phase.REF_ENUMERATION, enumerated - start);
+
+			Map<String, IndexedInventory> inventories;
+			try {
+				inventories = inventories(tags.values());
+			} finally {
+				ReckoningListeners.phaseCompleted(Phase.HISTORY_WALK, System.nanoTime() - enumerated);
+			}
+			int claimed = inventories.values().stream().mapToInt(i -> i.getInventory().getClaimedVersions().size()).sum();
+			ReckoningListeners.inventoryScanned(tagsScanned, tagsRejected, commitsWalked, claimed);
+			return inventories;
+		}
+
+		private Map<String, IndexedInventory> inventories(Iterable<Ref> tagRefs) throws IOException {
+			Map<String, List<TaggedVersion>> tagsByComponent = new HashMap<>();
+			for(Ref ref : tagRefs) {
+				++tagsScanned;
+				String tag = Repository.shortenRefName(ref.getName());
+				int split = tag.lastIndexOf(separator);
+				if(split <= 0) {
+					++tagsRejected;
+					continue;
+				}
+				Optional<Version> version = TagSelector.DEFAULT.select(tag.substring(split + separator.length()));
+				if(!version.isPresent()) {
+					++tagsRejected;
+					continue;
+				}
+				Optional<RevCommit> commit = TaggedVersion.taggedCommit(repository, walk, ref);
+				if(commit.isPresent()) {
+					tagsByComponent.computeIfAbsent(tag.substring(0, split), k -> new ArrayList<>())
+							.add(new TaggedVersion(version.get(), commit.get()));
+				}
+			}
+
+			Map<String, IndexedInventory> inventories = new HashMap<>();
+			ObjectId headId = repository.resolve(Constants.HEAD);
+			if(headId==null) {
+				inventories.put(null, IndexedInventory.of(new VcsInventory(null, null, null, null, 0, null, null)));
+				tagsByComponent.forEach((component, tags) -> {
+					CompactVersionSet claimed = claimedVersions(tags);
+					inventories.put(component,
+							claimed.indexed(new VcsInventory(null, null, null, null, 0, null, claimed)));
+				});
+				return inventories;
+			}
+
+			head = walk.parseCommit(headId);
+			reachability = Reachability.from(repository, walk, head, ShallowInventory.boundary(repository).isEmpty());
+
+			inventories.put(null, IndexedInventory.of(new VcsInventory(head.name(), null, null, null,
+					reachability.commitsSince(null), null, null)));
+			for(Map.Entry<String, List<TaggedVersion>> component : tagsByComponent.entrySet()) {
+				inventories.put(component.getKey(), inventoryOf(component.getValue()));
+			}
+			commitsWalked = reachability.getCommitsWalked();
+			return inventories;
+		}
+
+		private IndexedInventory inventoryOf(List<TaggedVersion> tags) throws IOException {
+			Version current = null, base = null, baseNormal = null;
+			RevCommit baseNormalCommit = null;
+			Set<RevCommit> taggedCommits = new HashSet<>();
+
+			for(TaggedVersion tagged : tags) {
+				taggedCommits.add(tagged.commit);
+				if(tagged.commit.equals(head) && (current==null || tagged.version.greaterThan(current))) {
+					current = tagged.version;
+				}
+				if(reachability.isReachable(tagged.commit)) {
+					if(base==null || tagged.version.greaterThan(base)) {
+						base = tagged.version;
+					}
+					if(Versions.isNormal(tagged.version) && (baseNormal==null || tagged.version.greaterThan(baseNormal))) {
+						baseNormal = tagged.version;
+						baseNormalCommit = tagged.commit;
+					}
+				}
+			}
+
+			Set<Version> parallelNormals = new HashSet<>();
+			for(TaggedVersion tagged : tags) {
+				if(!reachability.isReachable(tagged.commit) && isParallel(tagged.commit, taggedCommits)) {
+					parallelNormals.add(Versions.getNormal(tagged.version));
+				}
+			}
+
+			CompactVersionSet claimed = claimedVersions(tags);
+			return claimed.indexed(new VcsInventory(head.name(), current, base, baseNormal,
+					reachability.commitsSince(baseNormalCommit), parallelNormals, claimed));
+		}
+
+		/**
+		 * A tagged commit is parallel if it shares history with {@code HEAD}, neither is an ancestor of the other, and
+		 * none of the component's tagged commits have been made on {@code HEAD}'s side since their merge base.
+		 */
+		private boolean isParallel(RevCommit tagged, Set<RevCommit> taggedCommits) throws IOException {
+			Optional<RevCommit> mergeBase = mergeBases.get(tagged);
+			if(mergeBase==null) {
+				auxiliaryWalk.reset();
+				auxiliaryWalk.setRevFilter(RevFilter.MERGE_BASE);
+				auxiliaryWalk.markStart(auxiliaryWalk.parseCommit(head));
+				auxiliaryWalk.markStart(auxiliaryWalk.parseCommit(tagged));
+				mergeBase = Optional.ofNullable(auxiliaryWalk.next());
+				auxiliaryWalk.reset();
+				auxiliaryWalk.setRevFilter(RevFilter.ALL);
+				mergeBases.put(tagged, mergeBase);
+			}
+
+			if(!mergeBase.isPresent() || mergeBase.get().equals(head) || mergeBase.get().equals(tagged)) {
+				return false;
+			}
+			return !reachability.anyReachableSince(walk.parseCommit(mergeBase.get()), taggedCommits);
+		}
+
+		private CompactVersionSet claimedVersions(List<TaggedVersion> tags) {
+			CompactVersionSet.Builder claimed = CompactVersionSet.builder();
+			for(TaggedVersion tagged : tags) {
+				claimed.add(tagged.version);
+			}
+			return claimed.build();
+		}
+
+		@Override
+		public void close() {
+			walk.close();
+			auxiliaryWalk.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,341 @@
+package org.uulib.reckon.git;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.uulib.reckon.CompactVersionSet;
+import org.uulib.reckon.IndexedInventory;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Computes the {@linkplain VcsInventory inventories} that each commit in a range of history would have if it were
+ * checked out, using a single walk over the history rather than a separate scan per commit.
+ * <p>
+ * Commits are visited parents-first, and each commit's base versions and commits since its base normal are derived
+ * from those of its parents. Only merge commits whose parents have different base normals require any further walking.
+ * <p>
+ * Every inventory claims all the versions tagged in the repository, as would be the case if each commit were checked
+ * out in turn. Parallel normals are only reported if they are greater than the commit's base normal, as lower ones
+ * cannot affect the normal version reckoned.
+ *
+ * @author hWorblehat
+ */
+public final class GitHistoryInventories {
+
+	private final Repository repository;
+	private final Function<String, Optional<String>> tagSelector;
+
+	/**
+	 * @param repository The repository whose history to inventory.
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 */
+	public GitHistoryInventories(Repository repository, Function<String, Optional<String>> tagSelector) {
+		this.repository = Objects.requireNonNull(repository);
+		this.tagSelector = Objects.requireNonNull(tagSelector);
+	}
+
+	/**
+	 * Computes the inventory of every commit reachable from {@code until} but not from {@code since}, with parents
+	 * before their children. The inventories are computed lazily as the stream is consumed, and the stream should be
+	 * closed once done with to release the repository resources it holds.
+	 *
+	 * @param since The revision whose history to exclude, or {@code null} to include all history.
+	 * @param until The revision whose history to include.
+	 * @return The inventories.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	public Stream<VcsInventory> inventories(String since, String until) throws IOException {
+		return indexedInventories(since, until).map(IndexedInventory::getInventory);
+	}
+
+	/**
+	 * Computes the inventories as {@link #inventories(String, String)} does, indexed by a single index shared between
+	 * them, as they all claim the same versions.
+	 *
+	 * @param since The revision whose history to exclude, or {@code null} to include all history.
+	 * @param until The revision whose history to include.
+	 * @return The indexed inventories.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	public Stream<IndexedInventory> indexedInventories(String since, String until) throws IOException {
+		HistoryWalk walk = new HistoryWalk();
+		try {
+			walk.init(since, until);
+		} catch (IOException | RuntimeException e) {
+			walk.close();
+			throw e;
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk,
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false)
+				.onClose(walk::close);
+	}
+
+	private ObjectId resolve(String revision) throws IOException {
+		ObjectId id = repository.resolve(revision);
+		if(id==null) {
+			throw new IllegalArgumentException("Cannot resolve revision '" + revision + "'.");
+		}
+		return id;
+	}
+
+	private static final class HistoryCommit extends RevCommit {
+
+		int tagIndex = -1;
+		Version maxTagged, maxTaggedNormal;
+
+		boolean excluded = false;
+		int pendingChildren = 0;
+
+		BitSet taggedAncestors;
+		int taggedAncestorCount;
+
+		Version base, baseNormal;
+		HistoryCommit baseNormalCommit;
+		int commitsSinceBase;
+
+		HistoryCommit(AnyObjectId id) {
+			super(id);
+		}
+
+		HistoryCommit parent(int i) {
+			return (HistoryCommit) getParent(i);
+		}
+
+	}
+
+	private final class HistoryWalk implements Iterator<IndexedInventory>, AutoCloseable {
+
+		private final RevWalk walk = new RevWalk(repository) {
+			@Override
+			protected RevCommit createCommit(AnyObjectId id) {
+				return new HistoryCommit(id);
+			}
+		};
+		private final RevWalk auxiliaryWalk = new RevWalk(repository);
+
+		private final List<TaggedVersion> byDescendingVersion = new ArrayList<>();
+		private CompactVersionSet claimedVersions = null;
+		private final List<HistoryCommit> commits = new ArrayList<>();
+		private int position = 0;
+
+		private IndexedInventory next = null;
+		private IndexedInventory index = null;
+
+		void init(String since, String until) throws IOException {
+			walk.setRetainBody(false);
+			auxiliaryWalk.setRetainBody(false);
+
+			RevCommit untilCommit = walk.parseCommit(resolve(until));
+
+			int tagIndex = 0;
+			CompactVersionSet.Builder claimed = CompactVersionSet.builder();
+			for(TaggedVersion tagged : TaggedVersion.read(repository, walk, tagSelector)) {
+				HistoryCommit commit = (HistoryCommit) tagged.commit;
+				if(commit.tagIndex < 0) {
+					commit.tagIndex = tagIndex++;
+				}
+				if(commit.maxTagged==null || tagged.version.greaterThan(commit.maxTagged)) {
+					commit.maxTagged = tagged.version;
+				}
+				if(Versions.isNormal(tagged.version)
+						&& (commit.maxTaggedNormal==null || tagged.version.greaterThan(commit.maxTaggedNormal))) {
+					commit.maxTaggedNormal = tagged.version;
+				}
+				byDescendingVersion.add(tagged);
+				claimed.add(tagged.version);
+			}
+			claimedVersions = claimed.build();
+			byDescendingVersion.sort(Comparator.comparing((TaggedVersion t) -> t.version).reversed());
+
+			if(since!=null) {
+				walk.markStart(walk.parseCommit(resolve(since)));
+				for(RevCommit excluded : walk) {
+					((HistoryCommit) excluded).excluded = true;
+				}
+				walk.reset();
+			}
+
+			walk.sort(RevSort.TOPO);
+			walk.sort(RevSort.REVERSE, true);
+			walk.markStart(untilCommit);
+			for(RevCommit c : walk) {
+				commits.add((HistoryCommit) c);
+				for(int i=0; i<c.getParentCount(); ++i) {
+					((HistoryCommit) c.getParent(i)).pendingChildren++;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(next==null && position < commits.size()) {
+				HistoryCommit commit = commits.get(position++);
+				try {
+					visit(commit);
+					if(!commit.excluded) {
+						next = inventoryOf(commit);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} finally {
+					release(commit);
+				}
+			}
+			return next!=null;
+		}
+
+		@Override
+		public IndexedInventory next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			IndexedInventory inventory = next;
+			next = null;
+			return inventory;
+		}
+
+		private void visit(HistoryCommit commit) throws IOException {
+			int parentCount = commit.getParentCount();
+
+			if(parentCount==1 && commit.tagIndex < 0) {
+				commit.taggedAncestors = commit.parent(0).taggedAncestors;
+				commit.taggedAncestorCount = commit.parent(0).taggedAncestorCount;
+			} else {
+				BitSet taggedAncestors = new BitSet();
+				for(int i=0; i<parentCount; ++i) {
+					taggedAncestors.or(commit.parent(i).taggedAncestors);
+				}
+				if(commit.tagIndex >= 0) {
+					taggedAncestors.set(commit.tagIndex);
+				}
+				commit.taggedAncestors = taggedAncestors;
+				commit.taggedAncestorCount = taggedAncestors.cardinality();
+			}
+
+			commit.base = commit.maxTagged;
+			commit.baseNormal = commit.maxTaggedNormal;
+			commit.baseNormalCommit = commit.maxTaggedNormal==null ? null : commit;
+			for(int i=0; i<parentCount; ++i) {
+				HistoryCommit parent = commit.parent(i);
+				if(parent.base!=null && (commit.base==null || parent.base.greaterThan(commit.base))) {
+					commit.base = parent.base;
+				}
+				if(parent.baseNormal!=null
+						&& (commit.baseNormal==null || parent.baseNormal.greaterThan(commit.baseNormal))) {
+					commit.baseNormal = parent.baseNormal;
+					commit.baseNormalCommit = parent.baseNormalCommit;
+				}
+			}
+
+			if(commit.baseNormalCommit==commit) {
+				commit.commitsSinceBase = 0;
+			} else if(parentCount==0) {
+				commit.commitsSinceBase = 1;
+			} else if(parentCount==1 && commit.parent(0).baseNormalCommit==commit.baseNormalCommit) {
+				commit.commitsSinceBase = commit.parent(0).commitsSinceBase + 1;
+			} else {
+				commit.commitsSinceBase = RevWalkUtils.count(auxiliaryWalk, auxiliaryWalk.parseCommit(commit),
+						commit.baseNormalCommit==null ? null : auxiliaryWalk.parseCommit(commit.baseNormalCommit));
+			}
+		}
+
+		private void release(HistoryCommit commit) {
+			for(int i=0; i<commit.getParentCount(); ++i) {
+				HistoryCommit parent = commit.parent(i);
+				if(--parent.pendingChildren==0) {
+					parent.taggedAncestors = null;
+				}
+			}
+		}
+
+		private IndexedInventory inventoryOf(HistoryCommit commit) throws IOException {
+			Version baseNormal = commit.baseNormal==null ? Versions.VERSION_0 : commit.baseNormal;
+
+			Set<Version> parallelNormals = new HashSet<>();
+			Map<HistoryCommit, Boolean> parallelCommits = new HashMap<>();
+			for(TaggedVersion candidate : byDescendingVersion) {
+				Version normal = Versions.getNormal(candidate.version);
+				if(!normal.greaterThan(baseNormal)) {
+					break;
+				}
+
+				HistoryCommit candidateCommit = (HistoryCommit) candidate.commit;
+				if(commit.taggedAncestors.get(candidateCommit.tagIndex)) {
+					continue;
+				}
+
+				Boolean parallel = parallelCommits.get(candidateCommit);
+				if(parallel==null) {
+					parallel = isParallel(commit, candidateCommit);
+					parallelCommits.put(candidateCommit, parallel);
+				}
+				if(parallel) {
+					parallelNormals.add(normal);
+				}
+			}
+
+			VcsInventory inventory = new VcsInventory(commit.name(), commit.maxTagged,
+					commit.base==null ? Versions.VERSION_0 : commit.base, baseNormal, commit.commitsSinceBase,
+					parallelNormals, claimedVersions);
+			index = index==null ? IndexedInventory.of(inventory, claimedVersions::preReleases)
+					: index.forInventory(inventory);
+			return index;
+		}
+
+		/**
+		 * A tagged commit is parallel if it shares history with the given commit, neither is an ancestor of the other,
+		 * and no tagged commits have been made on the given commit's side since their merge base.
+		 */
+		private boolean isParallel(HistoryCommit commit, HistoryCommit tagged) throws IOException {
+			auxiliaryWalk.reset();
+			auxiliaryWalk.setRevFilter(RevFilter.MERGE_BASE);
+			auxiliaryWalk.markStart(auxiliaryWalk.parseCommit(commit));
+			auxiliaryWalk.markStart(auxiliaryWalk.parseCommit(tagged));
+			RevCommit mergeBase = auxiliaryWalk.next();
+			auxiliaryWalk.reset();
+			auxiliaryWalk.setRevFilter(RevFilter.ALL);
+
+			if(mergeBase==null || mergeBase.equals(commit) || mergeBase.equals(tagged)) {
+				return false;
+			}
+			HistoryCommit base = (HistoryCommit) walk.lookupCommit(mergeBase);
+			return base.taggedAncestorCount==commit.taggedAncestorCount;
+		}
+
+		@Override
+		public void close() {
+			walk.close();
+			auxiliaryWalk.close();
+		}
+
+	}
+
+}
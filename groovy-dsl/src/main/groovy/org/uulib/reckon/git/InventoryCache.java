@@ -0,0 +1,340 @@
+package org.uulib.reckon.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.CompactVersionSet;
+import org.uulib.reckon.IndexedInventory;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A persistent, on-disk cache of {@linkplain VcsInventory VCS inventories} computed for a git repository.
+ * <p>
+ * Entries are keyed by the commit ID of {@code HEAD}, a fingerprint of every tag ref (whether loose or packed) and
+ * an identifier of the tag selector used to compute the inventory. Any change to these produces a different key, so
+ * entries never need to be explicitly invalidated.
+ * <p>
+ * The cache is safe to share between processes: each entry is written to a temporary file which is then atomically
+ * moved into place, so concurrent readers only ever observe complete entries. Entries which cannot be read for any
+ * reason are treated as absent, and failures to write are ignored, so the cache can never cause reckoning to fail.
+ *
+ * @author hWorblehat
+ */
+public final class InventoryCache {
+
+	private static final int MAGIC = 0x52434b49; // "RCKI"
+	private static final int FORMAT_VERSION = 1;
+	private static final String SUFFIX = ".inventory";
+
+	/**
+	 * The maximum number of entries kept in a cache directory before the least recently written are removed.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 32;
+
+	private final Path directory;
+	private final int maxEntries;
+
+	/**
+	 * Creates a cache stored in the {@code reckon} directory of the given repository's common git directory. All
+	 * worktrees of a repository therefore share the same cache.
+	 *
+	 * @param repository The repository to cache inventories of.
+	 * @return The cache.
+	 */
+	public static InventoryCache forRepository(Repository repository) {
+		return new InventoryCache(commonDirectory(repository).toPath().resolve("reckon").resolve("inventories"));
+	}
+
+	/**
+	 * Creates a cache stored in the given directory, which will be created on demand.
+	 *
+	 * @param directory The directory in which to store cache entries.
+	 */
+	public InventoryCache(Path directory) {
+		this(directory, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a cache stored in the given directory, which will be created on demand.
+	 *
+	 * @param directory The directory in which to store cache entries.
+	 * @param maxEntries The number of entries to keep before the least recently written are removed.
+	 */
+	public InventoryCache(Path directory, int maxEntries) {
+		if(maxEntries < 1) {
+			throw new IllegalArgumentException("The maximum number of entries must be positive.");
+		}
+		this.directory = Objects.requireNonNull(directory);
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return The directory in which cache entries are stored.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Determines the git directory shared by all worktrees of the given repository. For the main worktree, or a
+	 * repository without linked worktrees, this is simply the repository's git directory.
+	 *
+	 * @param repository The repository.
+	 * @return The common git directory.
+	 */
+	public static File commonDirectory(Repository repository) {
+		File gitDir = repository.getDirectory();
+		File commonDirFile = new File(gitDir, "commondir");
+		if(commonDirFile.isFile()) {
+			try {
+				String commonDir = new String(Files.readAllBytes(commonDirFile.toPath()), StandardCharsets.UTF_8).trim();
+				if(!commonDir.isEmpty()) {
+					File resolved = new File(commonDir);
+					return resolved.isAbsolute() ? resolved : new File(gitDir, commonDir);
+				}
+			} catch (IOException e) {
+				// Fall back to the worktree's own git directory
+			}
+		}
+		return gitDir;
+	}
+
+	/**
+	 * Computes the cache key describing the current state of the given repository.
+	 *
+	 * @param repository The repository.
+	 * @param selectorKey An identifier of the tag selector that will be used to compute the inventory.
+	 * @return The key.
+	 * @throws IOException If the refs of the repository cannot be read.
+	 */
+	public static String key(Repository repository, String selectorKey) throws IOException {
+		MessageDigest digest = sha1();
+		digest.update(selectorKey.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+
+		byte[] buffer = new byte[Constants.OBJECT_ID_LENGTH];
+		Ref head = repository.exactRef(Constants.HEAD);
+		if(head!=null && head.getObjectId()!=null) {
+			head.getObjectId().copyRawTo(buffer, 0);
+			digest.update(buffer);
+		}
+		digest.update((byte) '\n');
+
+		Map<String, Ref> tags = new TreeMap<>(repository.getRefDatabase().getRefs(Constants.R_TAGS));
+		for(Map.Entry<String, Ref> tag : tags.entrySet()) {
+			ObjectId id = tag.getValue().getObjectId();
+			if(id!=null) {
+				digest.update(tag.getKey().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				id.copyRawTo(buffer, 0);
+				digest.update(buffer);
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(40);
+		for(byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	private static MessageDigest sha1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the inventory cached under the given key, or computes and caches it if there isn't one.
+	 *
+	 * @param key The key, as returned by {@link #key(Repository, String)}.
+	 * @param inventorySupplier Computes the inventory on a cache miss.
+	 * @return The inventory.
+	 */
+	public IndexedInventory computeIfAbsent(String key, Supplier<IndexedInventory> inventorySupplier) {
+		Optional<IndexedInventory> cached = get(key);
+		if(cached.isPresent()) {
+			return cached.get();
+		}
+		IndexedInventory inventory = inventorySupplier.get();
+		put(key, inventory.getInventory());
+		return inventory;
+	}
+
+	/**
+	 * @param key The key, as returned by {@link #key(Repository, String)}.
+	 * @return The inventory cached under the given key, if there is a readable one, indexed by its claimed versions.
+	 */
+	public Optional<IndexedInventory> get(String key) {
+		Path file = directory.resolve(key + SUFFIX);
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if(in.readInt()!=MAGIC || in.readInt()!=FORMAT_VERSION || !key.equals(in.readUTF())) {
+				return Optional.empty();
+			}
+			return Optional.of(read(in));
+		} catch (IOException | RuntimeException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Stores the given inventory under the given key, replacing any existing entry.
+	 *
+	 * @param key The key, as returned by {@link #key(Repository, String)}.
+	 * @param inventory The inventory to store.
+	 */
+	public void put(String key, VcsInventory inventory) {
+		Path tmp = null;
+		try {
+			Files.createDirectories(directory);
+			tmp = Files.createTempFile(directory, key, ".tmp");
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(key);
+				write(out, inventory);
+			}
+
+			Path target = directory.resolve(key + SUFFIX);
+			try {
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			prune();
+		} catch (IOException e) {
+			// The cache is best-effort only
+		} finally {
+			if(tmp!=null) {
+				try {
+					Files.deleteIfExists(tmp);
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+	private void prune() throws IOException {
+		List<Path> entries = new ArrayList<>();
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			stream.forEach(entries::add);
+		}
+		if(entries.size() <= maxEntries) {
+			return;
+		}
+
+		entries.sort(Comparator.comparingLong(InventoryCache::lastModified).reversed());
+		for(Path stale : entries.subList(maxEntries, entries.size())) {
+			try {
+				Files.deleteIfExists(stale);
+			} catch (NoSuchFileException e) {
+				// Already removed by another process
+			}
+		}
+	}
+
+	private static long lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (IOException e) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	private static void write(DataOutputStream out, VcsInventory inventory) throws IOException {
+		writeNullable(out, inventory.getCommitId());
+		writeNullable(out, inventory.getCurrentVersion().map(Version::toString).orElse(null));
+		out.writeUTF(inventory.getBaseVersion().toString());
+		out.writeUTF(inventory.getBaseNormal().toString());
+		out.writeInt(inventory.getCommitsSinceBase());
+		writeVersions(out, inventory.getParallelNormals());
+		writeVersions(out, inventory.getClaimedVersions());
+	}
+
+	private static IndexedInventory read(DataInputStream in) throws IOException {
+		String commitId = readNullable(in);
+		String currentVersion = readNullable(in);
+		Version baseVersion = Version.valueOf(in.readUTF());
+		Version baseNormal = Version.valueOf(in.readUTF());
+		int commitsSinceBase = in.readInt();
+		Set<Version> parallelNormals = readVersions(in);
+		CompactVersionSet claimedVersions = readClaimedVersions(in);
+
+		return claimedVersions.indexed(new VcsInventory(commitId,
+				currentVersion==null ? null : Version.valueOf(currentVersion), baseVersion, baseNormal,
+				commitsSinceBase, parallelNormals, claimedVersions));
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value!=null);
+		if(value!=null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeVersions(DataOutputStream out, Set<Version> versions) throws IOException {
+		out.writeInt(versions.size());
+		for(Version v : versions) {
+			out.writeUTF(v.toString());
+		}
+	}
+
+	private static Set<Version> readVersions(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Set<Version> versions = new HashSet<>(size * 4 / 3 + 1);
+		for(int i=0; i<size; ++i) {
+			versions.add(Version.valueOf(in.readUTF()));
+		}
+		return versions;
+	}
+
+	/**
+	 * Reads claimed versions without parsing them, as they were valid when written.
+	 */
+	private static CompactVersionSet readClaimedVersions(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		CompactVersionSet.Builder versions = CompactVersionSet.builder();
+		for(int i=0; i<size; ++i) {
+			versions.add(in.readUTF());
+		}
+		return versions.build();
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.uulib.reckon.git;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Evaluates a function of each of a list of items, each of which needs a walk of the repository, in a fork-join pool.
+ * JGit's walks and object readers aren't safe to use from multiple threads, so each worker thread has its own walk over
+ * the shared object database, which it keeps for every item it evaluates, so that commits are only parsed once per
+ * thread. The results are in the same order as the items, whichever thread evaluated them.
+ *
+ * @author hWorblehat
+ */
+final class ParallelWalks {
+
+	/**
+	 * The fewest items worth evaluating as a separate task.
+	 */
+	private static final int MIN_ITEMS_PER_TASK = 16;
+
+	private ParallelWalks() {}
+
+	/**
+	 * A function of an item which needs a walk of the repository.
+	 *
+	 * @param <T> The type of the items.
+	 * @param <R> The type of the results.
+	 */
+	@FunctionalInterface
+	interface Evaluation<T, R> {
+
+		/**
+		 * @param walk A walk the function may use and reset as it likes, but mustn't close. Objects parsed by it mustn't
+		 *             be returned, as they belong to the evaluating thread, but their IDs may be.
+		 * @param item The item.
+		 * @return The result for the item.
+		 * @throws IOException If the repository cannot be read.
+		 */
+		R apply(RevWalk walk, T item) throws IOException;
+
+	}
+
+	/**
+	 * Evaluates a function of each item. If only one thread is to be used, or there are too few items to be worth
+	 * splitting, they are evaluated in the calling thread with the given walk instead of in a pool.
+	 *
+	 * @param repository The repository to walk.
+	 * @param walk The walk to use if the items are evaluated in the calling thread.
+	 * @param items The items.
+	 * @param parallelism The maximum number of threads to use.
+	 * @param evaluation The function to evaluate.
+	 * @return The result for each item, in the same order as the items.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	static <T, R> List<R> map(Repository repository, RevWalk walk, List<? extends T> items, int parallelism,
+			Evaluation<? super T, ? extends R> evaluation) throws IOException {
+		Object[] results = new Object[items.size()];
+		if(parallelism <= 1 || results.length < 2*MIN_ITEMS_PER_TASK) {
+			for(int i=0; i<results.length; ++i) {
+				results[i] = evaluation.apply(walk, items.get(i));
+			}
+			return list(results);
+		}
+
+		Map<Thread, RevWalk> walks = new ConcurrentHashMap<>();
+		ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, results.length / MIN_ITEMS_PER_TASK));
+		try {
+			pool.invoke(new EvaluateRange<>(repository, walks, items, evaluation, results, 0, results.length));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			walks.values().forEach(RevWalk::close);
+		}
+		return list(results);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> List<R> list(Object[] results) {
+		return Collections.unmodifiableList(Arrays.asList((R[]) results));
+	}
+
+	/**
+	 * Evaluates the items in a range, splitting it in half until each task evaluates few enough items.
+	 */
+	private static final class EvaluateRange<T, R> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Repository repository;
+		private final Map<Thread, RevWalk> walks;
+		private final List<? extends T> items;
+		private final Evaluation<? super T, ? extends R> evaluation;
+		private final Object[] results;
+		private final int from, to;
+
+		EvaluateRange(Repository repository, Map<Thread, RevWalk> walks, List<? extends T> items,
+				Evaluation<? super T, ? extends R> evaluation, Object[] results, int from, int to) {
+			this.repository = repository;
+			this.walks = walks;
+			this.items = items;
+			this.evaluation = evaluation;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= MIN_ITEMS_PER_TASK) {
+				RevWalk walk = walks.computeIfAbsent(Thread.currentThread(), t -> {
+					RevWalk created = new RevWalk(repository);
+					created.setRetainBody(false);
+					return created;
+				});
+				try {
+					for(int i=from; i<to; ++i) {
+						results[i] = evaluation.apply(walk, items.get(i));
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new EvaluateRange<>(repository, walks, items, evaluation, results, from, mid),
+						new EvaluateRange<>(repository, walks, items, evaluation, results, mid, to));
+			}
+		}
+
+	}
+
+}
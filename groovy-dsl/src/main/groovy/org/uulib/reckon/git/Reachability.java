@@ -0,0 +1,317 @@
+package org.uulib.reckon.git;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.StopWalkException;
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapIndex.Bitmap;
+import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+/**
+ * Answers which commits are reachable from {@code HEAD}, and which commits it has since each of its ancestors.
+ * <p>
+ * If the repository's packs have reachability bitmaps (as written by {@code git repack -b}, or by {@code git gc} with
+ * {@code repack.writeBitmaps} set, which is the default for bare repositories), the commits reachable from
+ * {@code HEAD} are found by combining the bitmaps of the most recent bitmapped commits, walking only the commits made
+ * since. Reachability is then a bitmap lookup, and the commits since an ancestor are counted by walking only those
+ * commits, stopping wherever the ancestor's bitmap is reached. Otherwise, the whole history of {@code HEAD} is walked
+ * once up-front, so the cost of repositories without bitmaps still grows with the depth of their history.
+ * <p>
+ * Bitmaps are never used for shallow clones, whose packs may describe history that hasn't been fetched.
+ *
+ * @author hWorblehat
+ */
+public abstract class Reachability {
+
+	long commitsWalked = 0;
+
+	Reachability() {}
+
+	/**
+	 * Determines whether the inventory of a repository can be accelerated by bitmaps.
+	 *
+	 * @param repository The repository.
+	 * @return {@code true} if the repository has reachability bitmaps and isn't a shallow clone.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	public static boolean hasBitmaps(Repository repository) throws IOException {
+		if(!ShallowInventory.boundary(repository).isEmpty()) {
+			return false;
+		}
+		try(ObjectReader reader = repository.newObjectReader()) {
+			return reader.getBitmapIndex()!=null;
+		}
+	}
+
+	/**
+	 * Determines the commits reachable from {@code head}, using bitmaps if the repository has them and they are
+	 * allowed.
+	 *
+	 * @param repository The repository.
+	 * @param walk The walk {@code head}, and any commits passed to the returned object, were parsed with.
+	 * @param head The commit to determine reachability from.
+	 * @param allowBitmaps Whether bitmaps may be used. They must not be for shallow clones.
+	 * @return The reachability of commits from {@code head}.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	static Reachability from(Repository repository, RevWalk walk, RevCommit head, boolean allowBitmaps)
+			throws IOException {
+		if(allowBitmaps) {
+			BitmapIndex index = walk.getObjectReader().getBitmapIndex();
+			if(index!=null) {
+				return new Bitmapped(walk, index, head);
+			}
+		}
+		return new Walked(walk, head);
+	}
+
+	/**
+	 * @param commit A commit parsed by this object's walk.
+	 * @return {@code true} if the commit is reachable from {@code HEAD}.
+	 */
+	abstract boolean isReachable(RevCommit commit);
+
+	/**
+	 * Counts the commits reachable from {@code HEAD} but not from {@code base}.
+	 *
+	 * @param base A commit reachable from {@code HEAD}, or {@code null} to count all of its history.
+	 * @return The number of commits.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	abstract int commitsSince(RevCommit base) throws IOException;
+
+	/**
+	 * Determines whether any of the given commits are reachable from {@code HEAD} but not from {@code base}.
+	 *
+	 * @param base A commit reachable from {@code HEAD}.
+	 * @param commits The commits.
+	 * @return {@code true} if any of the commits have been made on {@code HEAD}'s side since {@code base}.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	abstract boolean anyReachableSince(RevCommit base, Collection<? extends RevCommit> commits) throws IOException;
+
+	/**
+	 * @return The number of commits walked, rather than looked up in bitmaps, so far.
+	 */
+	long getCommitsWalked() {
+		return commitsWalked;
+	}
+
+	/**
+	 * Walks all of {@code HEAD}'s history, flagging each commit. The flag is retained when the walk is reset, but other
+	 * users of the walk must not reset it without retaining the flag.
+	 */
+	private static final class Walked extends Reachability {
+
+		private final RevWalk countWalk;
+		private final RevCommit head;
+		private final RevFlag reachable;
+		private final Map<RevCommit, Integer> commitsSince = new HashMap<>();
+		private final Map<ObjectId, Set<ObjectId>> commitsSinceBase = new HashMap<>();
+
+		Walked(RevWalk walk, RevCommit head) throws IOException {
+			this.countWalk = new RevWalk(walk.getObjectReader()); // Shares, so needn't close, the walk's reader
+			this.head = head;
+			this.reachable = walk.newFlag("reachable");
+			countWalk.setRetainBody(false);
+
+			walk.markStart(head);
+			for(RevCommit commit : walk) {
+				commit.add(reachable);
+				++commitsWalked;
+			}
+			walk.resetRetain(reachable);
+		}
+
+		@Override
+		boolean isReachable(RevCommit commit) {
+			return commit.has(reachable);
+		}
+
+		@Override
+		int commitsSince(RevCommit base) throws IOException {
+			Integer count = commitsSince.get(base);
+			if(count==null) {
+				count = RevWalkUtils.count(countWalk, countWalk.parseCommit(head),
+						base==null ? null : countWalk.parseCommit(base));
+				commitsSince.put(base, count);
+			}
+			return count;
+		}
+
+		@Override
+		boolean anyReachableSince(RevCommit base, Collection<? extends RevCommit> commits) throws IOException {
+			Set<ObjectId> since = commitsSinceBase.get(base);
+			if(since==null) {
+				since = new HashSet<>(RevWalkUtils.find(countWalk, countWalk.parseCommit(head),
+						countWalk.parseCommit(base)));
+				commitsSinceBase.put(base.copy(), since);
+			}
+			return !Collections.disjoint(since, commits);
+		}
+
+	}
+
+	/**
+	 * Combines the bitmaps of the most recent bitmapped ancestors.
+	 */
+	private static final class Bitmapped extends Reachability {
+
+		private final RevWalk walk;
+		private final BitmapIndex index;
+		private final RevCommit head;
+		private final BitmapBuilder fromHead;
+		private final Map<RevCommit, Integer> commitsSince = new HashMap<>();
+		private final Map<ObjectId, BitmapBuilder> bitmaps = new HashMap<>();
+
+		Bitmapped(RevWalk walk, BitmapIndex index, RevCommit head) throws IOException {
+			this.walk = walk;
+			this.index = index;
+			this.head = head;
+			this.fromHead = bitmapOf(head);
+		}
+
+		/**
+		 * Finds the commits reachable from a commit, walking back only until bitmapped commits are found. Like JGit's
+		 * own bitmap walker, this stops the walk at a bitmapped commit by marking its parents as already seen.
+		 */
+		private BitmapBuilder bitmapOf(RevCommit start) throws IOException {
+			BitmapBuilder builder = index.newBitmapBuilder();
+			Bitmap stored = index.getBitmap(start);
+			if(stored!=null) {
+				return builder.or(stored);
+			}
+
+			walk.reset();
+			walk.setRevFilter(new RevFilter() {
+				@Override
+				public boolean include(RevWalk walker, RevCommit commit) throws StopWalkException,
+						MissingObjectException, IncorrectObjectTypeException, IOException {
+					Bitmap bitmap;
+					if(builder.contains(commit)) {
+						// Already added with a descendant's bitmap
+					} else if((bitmap = index.getBitmap(commit))!=null) {
+						builder.or(bitmap);
+					} else {
+						builder.addObject(commit, Constants.OBJ_COMMIT);
+						++commitsWalked;
+						return false;
+					}
+					for(RevCommit parent : commit.getParents()) {
+						parent.add(RevFlag.SEEN);
+					}
+					return false;
+				}
+
+				@Override
+				public boolean requiresCommitBody() {
+					return false;
+				}
+
+				@Override
+				public RevFilter clone() {
+					return this;
+				}
+			});
+			walk.markStart(start);
+			while(walk.next()!=null) {
+				// The filter includes nothing
+			}
+			walk.reset();
+			walk.setRevFilter(RevFilter.ALL);
+			return builder;
+		}
+
+		@Override
+		boolean isReachable(RevCommit commit) {
+			return fromHead.contains(commit);
+		}
+
+		/**
+		 * Bitmaps don't distinguish commits from the trees and blobs they reference, so rather than iterating the
+		 * difference of two bitmaps, the commits since {@code base} are walked, and the walk stopped at any commit in
+		 * {@code base}'s bitmap by marking its parents as already seen.
+		 */
+		@Override
+		int commitsSince(RevCommit base) throws IOException {
+			Integer count = commitsSince.get(base);
+			if(count==null) {
+				BitmapBuilder fromBase = base==null ? null : reachableFrom(base);
+				int[] counted = {0};
+				walk.reset();
+				walk.setRevFilter(new RevFilter() {
+					@Override
+					public boolean include(RevWalk walker, RevCommit commit) {
+						if(fromBase!=null && fromBase.contains(commit)) {
+							for(RevCommit parent : commit.getParents()) {
+								parent.add(RevFlag.SEEN);
+							}
+						} else {
+							++counted[0];
+							++commitsWalked;
+						}
+						return false;
+					}
+
+					@Override
+					public boolean requiresCommitBody() {
+						return false;
+					}
+
+					@Override
+					public RevFilter clone() {
+						return this;
+					}
+				});
+				walk.markStart(head);
+				while(walk.next()!=null) {
+					// The filter includes nothing
+				}
+				walk.reset();
+				walk.setRevFilter(RevFilter.ALL);
+				count = counted[0];
+				commitsSince.put(base, count);
+			}
+			return count;
+		}
+
+		@Override
+		boolean anyReachableSince(RevCommit base, Collection<? extends RevCommit> commits) throws IOException {
+			BitmapBuilder fromBase = reachableFrom(base);
+			for(RevCommit commit : commits) {
+				if(fromHead.contains(commit) && !fromBase.contains(commit)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private BitmapBuilder reachableFrom(RevCommit base) throws IOException {
+			BitmapBuilder bitmap = bitmaps.get(base);
+			if(bitmap==null) {
+				bitmap = bitmapOf(walk.parseCommit(base));
+				bitmaps.put(base.copy(), bitmap);
+			}
+			return bitmap;
+		}
+
+	}
+
+}
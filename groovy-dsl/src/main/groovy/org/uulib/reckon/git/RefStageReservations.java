@@ -0,0 +1,229 @@
+package org.uulib.reckon.git;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.uulib.reckon.strategy.StageNumberReservations;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * {@linkplain StageNumberReservations Reserves stage numbers} as refs in a git repository, which may be a bare
+ * repository shared by all the builds that reserve numbers, rather than the repository being built.
+ * <p>
+ * The number {@code n} of stage {@code s} of normal version {@code v} is reserved by creating the ref
+ * {@code refs/reckon/reservations/v-s/n} (or {@code refs/reckon/reservations/v/n} if there is no stage), pointing at a
+ * blob recording when the lease expires and who owns it. The ref is only created if it doesn't exist, or replaced if
+ * its lease has expired, with the same atomic compare-and-swap as any other ref update, so only one build can reserve
+ * each number. Reservations of numbers that have since been tagged are deleted by later reservations.
+ *
+ * @author hWorblehat
+ */
+public final class RefStageReservations implements StageNumberReservations {
+
+	/**
+	 * The prefix of the names of the refs which hold reservations.
+	 */
+	public static final String REF_PREFIX = "refs/reckon/reservations/";
+
+	/**
+	 * How long reservations last by default: long enough for a build to reckon its version and tag it.
+	 */
+	public static final Duration DEFAULT_LEASE = Duration.ofHours(1);
+
+	/**
+	 * The number of times to try to update a ref that another reservation is updating at the same time.
+	 */
+	private static final int MAX_ATTEMPTS = 5;
+
+	private final Repository repository;
+	private final Duration lease;
+	private final Clock clock;
+
+	/**
+	 * @param repository The repository to hold the reservations.
+	 */
+	public RefStageReservations(Repository repository) {
+		this(repository, DEFAULT_LEASE);
+	}
+
+	/**
+	 * @param repository The repository to hold the reservations.
+	 * @param lease How long reservations last.
+	 */
+	public RefStageReservations(Repository repository, Duration lease) {
+		this(repository, lease, Clock.systemUTC());
+	}
+
+	RefStageReservations(Repository repository, Duration lease, Clock clock) {
+		this.repository = Objects.requireNonNull(repository);
+		if(lease.isNegative() || lease.isZero()) {
+			throw new IllegalArgumentException("Lease must be positive: " + lease);
+		}
+		this.lease = lease;
+		this.clock = clock;
+	}
+
+	@Override
+	public BigInteger reserve(Version normalVersion, String stage, BigInteger minimum, String owner) {
+		String directory = REF_PREFIX + normalVersion + (stage.isEmpty() ? "" : "-" + stage) + '/';
+		if(!Repository.isValidRefName(directory + minimum)) {
+			throw new IllegalArgumentException("Stage cannot be reserved as a ref: " + stage);
+		}
+
+		try {
+			long now = clock.millis();
+			BigInteger held = null;
+			for(Map.Entry<String, Ref> reservation : repository.getRefDatabase().getRefs(directory).entrySet()) {
+				BigInteger number = parse(reservation.getKey());
+				if(number==null) {
+					continue;
+				}
+				if(number.compareTo(minimum) < 0) {
+					release(reservation.getValue());
+				} else if(owner!=null && (held==null || number.compareTo(held) < 0)) {
+					Lease existing = Lease.read(repository, reservation.getValue().getObjectId());
+					if(owner.equals(existing.owner) && existing.expiry > now) {
+						held = number;
+					}
+				}
+			}
+			if(held!=null) {
+				return held;
+			}
+
+			ObjectId newLease = new Lease(now + lease.toMillis(), owner).insert(repository);
+			for(BigInteger number = minimum; ; number = number.add(BigInteger.ONE)) {
+				if(tryReserve(directory + number, newLease, now)) {
+					return number;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Creates the ref for a number if it doesn't exist, or replaces it if its lease has expired.
+	 *
+	 * @return {@code true} if the number was reserved.
+	 */
+	private boolean tryReserve(String refName, ObjectId newLease, long now) throws IOException {
+		for(int attempt=0; attempt<MAX_ATTEMPTS; ++attempt) {
+			RefUpdate.Result result;
+			try {
+				Ref existing = repository.exactRef(refName);
+				if(existing!=null && Lease.read(repository, existing.getObjectId()).expiry > now) {
+					return false;
+				}
+
+				RefUpdate update = repository.updateRef(refName);
+				update.setExpectedOldObjectId(existing==null ? ObjectId.zeroId() : existing.getObjectId());
+				update.setNewObjectId(newLease);
+				update.setForceUpdate(true);
+				update.disableRefLog();
+				result = update.update();
+			} catch (FileNotFoundException e) {
+				// Another reservation created the ref while it was being read
+				continue;
+			}
+			switch(result) {
+			case NEW:
+			case FORCED:
+				return true;
+			case LOCK_FAILURE:
+				// Another reservation changed or is changing the ref, so check it again
+				break;
+			default:
+				throw new IOException("Could not reserve " + refName + ": " + result);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Deletes a reservation whose number has been tagged, unless it has changed since it was read. Failure is ignored,
+	 * as the reservation will be deleted by a later reservation instead.
+	 */
+	private void release(Ref reservation) throws IOException {
+		RefUpdate delete = repository.updateRef(reservation.getName());
+		delete.setExpectedOldObjectId(reservation.getObjectId());
+		delete.setForceUpdate(true);
+		delete.disableRefLog();
+		delete.delete();
+	}
+
+	private static BigInteger parse(String number) {
+		if(number.isEmpty()) {
+			return null;
+		}
+		for(int i=0; i<number.length(); ++i) {
+			char c = number.charAt(i);
+			if(c<'0' || c>'9') {
+				return null;
+			}
+		}
+		return new BigInteger(number);
+	}
+
+	/**
+	 * When a reservation expires, and who owns it, as stored in the blob its ref points at: the expiry time in
+	 * milliseconds since the epoch, optionally followed by a space and the owner.
+	 */
+	private static final class Lease {
+
+		final long expiry;
+		final String owner;
+
+		Lease(long expiry, String owner) {
+			this.expiry = expiry;
+			this.owner = owner;
+		}
+
+		/**
+		 * Reads a lease. Blobs which can't be parsed are treated as leases that never expire, so that refs which
+		 * weren't created as reservations are never replaced.
+		 */
+		static Lease read(Repository repository, ObjectId id) throws IOException {
+			String content;
+			try {
+				content = new String(repository.open(id, Constants.OBJ_BLOB).getCachedBytes(), StandardCharsets.UTF_8)
+						.trim();
+			} catch (IncorrectObjectTypeException e) {
+				return new Lease(Long.MAX_VALUE, null);
+			}
+			int split = content.indexOf(' ');
+			try {
+				return new Lease(Long.parseLong(split < 0 ? content : content.substring(0, split)),
+						split < 0 ? null : content.substring(split + 1));
+			} catch (NumberFormatException e) {
+				return new Lease(Long.MAX_VALUE, null);
+			}
+		}
+
+		ObjectId insert(Repository repository) throws IOException {
+			String content = expiry + (owner==null ? "" : " " + owner) + '\n';
+			try(ObjectInserter inserter = repository.newObjectInserter()) {
+				ObjectId id = inserter.insert(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+				inserter.flush();
+				return id;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,409 @@
+package org.uulib.reckon.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.uulib.reckon.CompactVersionSet;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.ReckoningListener.Phase;
+import org.uulib.reckon.ReckoningListeners;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * The {@linkplain VcsInventory inventory} of a repository that may be a shallow clone, computed from the tags and
+ * history that are present, so that a shallow clone never has to be deepened just to reckon its version.
+ * <p>
+ * The commits at the shallow boundary are treated as having no parents, and the inventory is otherwise computed as it
+ * would be for a complete clone, except that:
+ * <ul>
+ * <li>Tags whose commits are beyond the boundary (and so missing) still claim their versions, but can't be known to be
+ *     ancestors of {@code HEAD}, so are never its base versions or parallel normals.</li>
+ * <li>The commits since the base normal are only counted up to the boundary.</li>
+ * </ul>
+ * The inventory is {@linkplain #isApproximate() approximate} if either of these could have changed it. Otherwise it is
+ * exactly the inventory a complete clone would have. The inventory of a complete clone is always exact, and is
+ * computed with {@linkplain Reachability reachability bitmaps} if the repository has them.
+ * <p>
+ * Resolving the tags, and finding the merge bases of {@code HEAD} and the tagged commits that aren't its ancestors,
+ * take a separate lookup or walk for each tag, and so may be done in parallel. The inventory is the same however many
+ * threads are used.
+ *
+ * @author hWorblehat
+ */
+public final class ShallowInventory {
+
+	private final IndexedInventory inventory;
+	private final Set<ObjectId> boundary;
+	private final List<String> approximations;
+
+	private ShallowInventory(IndexedInventory inventory, Set<ObjectId> boundary, List<String> approximations) {
+		this.inventory = inventory;
+		this.boundary = boundary;
+		this.approximations = approximations;
+	}
+
+	/**
+	 * Scans a repository, which may be a shallow clone.
+	 *
+	 * @param repository The repository.
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @return The repository's inventory.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	public static ShallowInventory scan(Repository repository, Function<String, Optional<String>> tagSelector)
+			throws IOException {
+		return scan(repository, tagSelector, 1);
+	}
+
+	/**
+	 * Scans a repository, which may be a shallow clone, using several threads.
+	 *
+	 * @param repository The repository.
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @param parallelism The maximum number of threads to use.
+	 * @return The repository's inventory.
+	 * @throws IOException If the repository cannot be read.
+	 */
+	public static ShallowInventory scan(Repository repository, Function<String, Optional<String>> tagSelector,
+			int parallelism) throws IOException {
+		Objects.requireNonNull(tagSelector);
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		try(Scan scan = new Scan(repository, boundary(repository), parallelism)) {
+			return scan.run(tagSelector);
+		}
+	}
+
+	/**
+	 * Reads the shallow boundary of a repository: the commits whose parents haven't been fetched.
+	 *
+	 * @param repository The repository.
+	 * @return The IDs of the commits at the boundary, which is empty if the repository isn't a shallow clone.
+	 * @throws IOException If the boundary cannot be read.
+	 */
+	public static Set<ObjectId> boundary(Repository repository) throws IOException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(new File(repository.getDirectory(), "shallow").toPath(), StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return Collections.emptySet();
+		}
+
+		Set<ObjectId> boundary = new HashSet<>();
+		for(String line : lines) {
+			if(ObjectId.isId(line.trim())) {
+				boundary.add(ObjectId.fromString(line.trim()));
+			}
+		}
+		return Collections.unmodifiableSet(boundary);
+	}
+
+	public VcsInventory getInventory() {
+		return inventory.getInventory();
+	}
+
+	/**
+	 * @return The inventory, indexed by its claimed versions.
+	 */
+	public IndexedInventory getIndexedInventory() {
+		return inventory;
+	}
+
+	/**
+	 * @return {@code true} if the repository is a shallow clone.
+	 */
+	public boolean isShallow() {
+		return !boundary.isEmpty();
+	}
+
+	/**
+	 * @return The IDs of the commits at the repository's shallow boundary.
+	 */
+	public Set<ObjectId> getBoundary() {
+		return boundary;
+	}
+
+	/**
+	 * @return {@code true} if the inventory of a complete clone could be different.
+	 */
+	public boolean isApproximate() {
+		return !approximations.isEmpty();
+	}
+
+	/**
+	 * @return Descriptions of the ways in which the inventory of a complete clone could be different, which is empty
+	 *         if the inventory is exact.
+	 */
+	public List<String> getApproximations() {
+		return approximations;
+	}
+
+	@Override
+	public String toString() {
+		return (isApproximate() ? "approximate " : "exact ") + inventory.getInventory()
+				+ (isApproximate() ? " " + approximations : "");
+	}
+
+	private static final class Scan implements AutoCloseable {
+
+		/**
+		 * Stands in for the commits of tags that are beyond the shallow boundary.
+		 */
+		private static final ObjectId BEYOND_BOUNDARY = ObjectId.zeroId();
+
+		private final Repository repository;
+		private final Set<ObjectId> boundary;
+		private final int parallelism;
+		private final RevWalk walk;
+		private final RevWalk mergeBaseWalk;
+		private final Map<ObjectId, Optional<ObjectId>> mergeBases = new HashMap<>();
+		private final List<String> approximations = new ArrayList<>();
+		private Reachability reachability;
+		private int tagsScanned = 0;
+		private int tagsRejected = 0;
+		private long commitsWalked = 0;
+
+		Scan(Repository repository, Set<ObjectId> boundary, int parallelism) {
+			this.repository = repository;
+			this.boundary = boundary;
+			this.parallelism = parallelism;
+			this.walk = new RevWalk(repository);
+			this.mergeBaseWalk = new RevWalk(repository);
+			walk.setRetainBody(false);
+			mergeBaseWalk.setRetainBody(false);
+		}
+
+		ShallowInventory run(Function<String, Optional<String>> tagSelector) throws IOException {
+			long start = System.nanoTime();
+			Map<String, Ref> tags = repository.getRefDatabase().getRefs(Constants.R_TAGS);
+			long enumerated = System.nanoTime();
+			ReckoningListeners.phaseCompleted(Phase.REF_ENUMERATION, enumerated - start);
+
+			ShallowInventory inventory;
+			try {
+				inventory = inventory(tags.values(), TagSelector.forScan(tagSelector));
+			} finally {
+				ReckoningListeners.phaseCompleted(Phase.HISTORY_WALK, System.nanoTime() - enumerated);
+			}
+			ReckoningListeners.inventoryScanned(tagsScanned, tagsRejected, commitsWalked,
+					inventory.getInventory().getClaimedVersions().size());
+			return inventory;
+		}
+
+		private ShallowInventory inventory(Iterable<Ref> tagRefs, Function<String, Optional<Version>> tagSelector)
+				throws IOException {
+			List<Ref> refs = new ArrayList<>();
+			List<Version> versions = new ArrayList<>();
+			for(Ref ref : tagRefs) {
+				++tagsScanned;
+				Optional<Version> version = tagSelector.apply(Repository.shortenRefName(ref.getName()));
+				if(version.isPresent()) {
+					refs.add(ref);
+					versions.add(version.get());
+				} else {
+					++tagsRejected;
+				}
+			}
+			List<ObjectId> commits = ParallelWalks.map(repository, walk, refs, parallelism, this::taggedCommit);
+
+			List<TaggedVersion> tags = new ArrayList<>();
+			List<Version> beyondBoundary = new ArrayList<>();
+			CompactVersionSet.Builder claimedBuilder = CompactVersionSet.builder();
+			for(int i=0; i<refs.size(); ++i) {
+				ObjectId commit = commits.get(i);
+				if(commit==BEYOND_BOUNDARY) {
+					beyondBoundary.add(versions.get(i));
+					claimedBuilder.add(versions.get(i));
+				} else if(commit!=null) {
+					tags.add(new TaggedVersion(versions.get(i), walk.lookupCommit(commit)));
+					claimedBuilder.add(versions.get(i));
+				}
+			}
+			CompactVersionSet claimed = claimedBuilder.build();
+
+			ObjectId headId = repository.resolve(Constants.HEAD);
+			if(headId==null) {
+				return result(claimed.indexed(new VcsInventory(null, null, null, null, 0, null, claimed)));
+			}
+
+			RevCommit head = walk.parseCommit(headId);
+			reachability = Reachability.from(repository, walk, head, boundary.isEmpty());
+
+			Version current = null, base = null, baseNormal = null;
+			RevCommit baseNormalCommit = null;
+			Set<RevCommit> taggedCommits = new HashSet<>();
+			for(TaggedVersion tagged : tags) {
+				taggedCommits.add(tagged.commit);
+				if(tagged.commit.equals(head) && (current==null || tagged.version.greaterThan(current))) {
+					current = tagged.version;
+				}
+				if(reachability.isReachable(tagged.commit)) {
+					if(base==null || tagged.version.greaterThan(base)) {
+						base = tagged.version;
+					}
+					if(Versions.isNormal(tagged.version) && (baseNormal==null || tagged.version.greaterThan(baseNormal))) {
+						baseNormal = tagged.version;
+						baseNormalCommit = tagged.commit;
+					}
+				}
+			}
+
+			Version floor = base==null ? Versions.VERSION_0 : base;
+			beyondBoundary.removeIf(v -> !v.greaterThan(floor));
+			if(!beyondBoundary.isEmpty()) {
+				Collections.sort(beyondBoundary);
+				approximations.add("versions up to " + beyondBoundary.get(beyondBoundary.size() - 1)
+						+ " are tagged beyond the shallow boundary, so may be base versions or parallel normals");
+			}
+
+			findMergeBases(head, tags);
+			Set<Version> parallelNormals = new HashSet<>();
+			Version normalFloor = baseNormal==null ? Versions.VERSION_0 : baseNormal;
+			for(TaggedVersion tagged : tags) {
+				if(!reachability.isReachable(tagged.commit)) {
+					Optional<Boolean> parallel = isParallel(head, tagged, taggedCommits, normalFloor);
+					if(parallel.orElse(false)) {
+						parallelNormals.add(Versions.getNormal(tagged.version));
+					}
+				}
+			}
+
+			int commitsSince = boundary.isEmpty() ? reachability.commitsSince(baseNormalCommit)
+					: commitsWithinBoundary(head, baseNormalCommit, baseNormal);
+			commitsWalked += reachability.getCommitsWalked();
+			return result(claimed.indexed(new VcsInventory(head.name(), current, base, baseNormal, commitsSince,
+					parallelNormals, claimed)));
+		}
+
+		/**
+		 * Finds the ID of the commit a tag points at, with whichever walk is evaluating it.
+		 *
+		 * @return The ID, {@link #BEYOND_BOUNDARY} if the commit is missing, or {@code null} if the tag doesn't point at a
+		 *         commit.
+		 */
+		private ObjectId taggedCommit(RevWalk threadWalk, Ref ref) throws IOException {
+			try {
+				return TaggedVersion.taggedCommit(repository, threadWalk, ref).map(RevCommit::copy).orElse(null);
+			} catch (MissingObjectException e) {
+				return BEYOND_BOUNDARY;
+			}
+		}
+
+		/**
+		 * Finds the merge bases of {@code HEAD} and each distinct tagged commit that isn't one of its ancestors.
+		 */
+		private void findMergeBases(RevCommit head, List<TaggedVersion> tags) throws IOException {
+			Set<ObjectId> unreachable = new LinkedHashSet<>();
+			for(TaggedVersion tagged : tags) {
+				if(!reachability.isReachable(tagged.commit)) {
+					unreachable.add(tagged.commit.copy());
+				}
+			}
+
+			List<ObjectId> tagged = new ArrayList<>(unreachable);
+			ObjectId headId = head.copy();
+			List<Optional<ObjectId>> found = ParallelWalks.map(repository, mergeBaseWalk, tagged, parallelism,
+					(threadWalk, commit) -> {
+						threadWalk.reset();
+						threadWalk.setRevFilter(RevFilter.MERGE_BASE);
+						threadWalk.markStart(threadWalk.parseCommit(headId));
+						threadWalk.markStart(threadWalk.parseCommit(commit));
+						RevCommit mergeBase = threadWalk.next();
+						threadWalk.reset();
+						threadWalk.setRevFilter(RevFilter.ALL);
+						return Optional.ofNullable(mergeBase).map(RevCommit::copy);
+					});
+			for(int i=0; i<tagged.size(); ++i) {
+				mergeBases.put(tagged.get(i), found.get(i));
+			}
+		}
+
+		private ShallowInventory result(IndexedInventory inventory) {
+			return new ShallowInventory(inventory, boundary, Collections.unmodifiableList(approximations));
+		}
+
+		/**
+		 * Counts the commits since the base normal, noting whether the count stopped at the shallow boundary rather
+		 * than the base normal or the start of history.
+		 */
+		private int commitsWithinBoundary(RevCommit head, RevCommit baseNormalCommit, Version baseNormal)
+				throws IOException {
+			int count = 0;
+			boolean reachedBoundary = false;
+			try(RevWalk countWalk = new RevWalk(repository)) {
+				countWalk.setRetainBody(false);
+				countWalk.markStart(countWalk.parseCommit(head));
+				if(baseNormalCommit!=null) {
+					countWalk.markUninteresting(countWalk.parseCommit(baseNormalCommit));
+				}
+				for(RevCommit commit : countWalk) {
+					++count;
+					++commitsWalked;
+					reachedBoundary |= boundary.contains(commit);
+				}
+			}
+			if(reachedBoundary) {
+				approximations.add("the commits since " + (baseNormal==null ? "the start of history" : baseNormal)
+						+ " were only counted up to the shallow boundary");
+			}
+			return count;
+		}
+
+		/**
+		 * A tagged commit is parallel if it shares history with {@code HEAD}, neither is an ancestor of the other, and
+		 * none of the tagged commits have been made on {@code HEAD}'s side since their merge base. If their merge base
+		 * may be beyond the shallow boundary, this can't be determined.
+		 */
+		private Optional<Boolean> isParallel(RevCommit head, TaggedVersion tagged, Set<RevCommit> taggedCommits,
+				Version normalFloor) throws IOException {
+			Optional<ObjectId> mergeBase = mergeBases.get(tagged.commit);
+			if(!mergeBase.isPresent()) {
+				Version normal = Versions.getNormal(tagged.version);
+				if(!boundary.isEmpty() && normal.greaterThan(normalFloor)) {
+					approximations.add("whether " + normal + " is a parallel normal can't be determined within"
+							+ " the shallow boundary");
+					return Optional.empty();
+				}
+				return Optional.of(false);
+			}
+			if(mergeBase.get().equals(head) || mergeBase.get().equals(tagged.commit)) {
+				return Optional.of(false);
+			}
+			return Optional.of(!reachability.anyReachableSince(walk.parseCommit(mergeBase.get()), taggedCommits));
+		}
+
+		@Override
+		public void close() {
+			walk.close();
+			mergeBaseWalk.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,258 @@
+package org.uulib.reckon.git;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Selects the tags to use as versions, mapping each tag name to a version string. Selectors are compiled from
+ * regular expressions, with as much work as possible done once up-front rather than for every tag:
+ * <ul>
+ * <li>The group the version is extracted from is decided when the selector is compiled.</li>
+ * <li>Tags that don't start with a pattern's literal prefix are rejected without running the regular expression.</li>
+ * <li>Version strings that aren't valid semantic versions are rejected, and each selector remembers the strings it has
+ *     most recently rejected, so that later scans with it reject them without parsing them again.</li>
+ * <li>Scans of a repository use the version parsed by the selector rather than parsing it again.</li>
+ * </ul>
+ *
+ * @author hWorblehat
+ */
+public final class TagSelector implements Function<String, Optional<String>> {
+
+	private static final String VERSION_GROUP = "version";
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+	private static final int MAX_REJECTED = 10_000;
+
+	/**
+	 * Selects every tag, removing any {@code v} at the start.
+	 */
+	public static final TagSelector DEFAULT = new TagSelector("default",
+			Collections.singletonList(new Matching("v", null, 0)));
+
+	private final String key;
+	private final List<Matching> patterns;
+	private final Parser parser;
+
+	private TagSelector(String key, List<Matching> patterns) {
+		this(key, patterns, new Parser());
+	}
+
+	private TagSelector(String key, List<Matching> patterns, Parser parser) {
+		this.key = key;
+		this.patterns = patterns;
+		this.parser = parser;
+	}
+
+	/**
+	 * Compiles a selector from a regular expression that tags must match in full. The version is extracted from the
+	 * pattern's only group, if it has exactly one; otherwise from the group named {@code version}, if it has one;
+	 * otherwise it is the whole tag.
+	 *
+	 * @param regex The regular expression.
+	 * @return The selector.
+	 */
+	public static TagSelector matching(Pattern regex) {
+		return matchingAny(Collections.singletonList(regex));
+	}
+
+	/**
+	 * Compiles a selector from several regular expressions, as for {@link #matching(Pattern)}. Each tag's version is
+	 * extracted with the first of the expressions that extracts a valid version from it.
+	 *
+	 * @param regexes The regular expressions.
+	 * @return The selector.
+	 */
+	public static TagSelector matchingAny(List<Pattern> regexes) {
+		if(regexes.isEmpty()) {
+			throw new IllegalArgumentException("At least one pattern is required.");
+		}
+		List<Matching> patterns = new ArrayList<>(regexes.size());
+		for(Pattern regex : regexes) {
+			patterns.add(new Matching(literalPrefix(regex), regex, versionGroup(regex)));
+		}
+		String key = regexes.stream()
+				.map(r -> "regex:" + r.flags() + ':' + r.pattern())
+				.collect(Collectors.joining("\n"));
+		return new TagSelector(key, Collections.unmodifiableList(patterns));
+	}
+
+	/**
+	 * @see #matchingAny(List)
+	 */
+	public static TagSelector matchingAny(Pattern... regexes) {
+		return matchingAny(Arrays.asList(regexes));
+	}
+
+	/**
+	 * @return Identifies the behaviour of this selector: selectors with the same key select the same versions.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @param parser The parser to parse versions with.
+	 * @return A selector that selects the same tags as this one, but parses their versions with the given parser.
+	 */
+	TagSelector withParser(Parser parser) {
+		return new TagSelector(key, patterns, parser);
+	}
+
+	@Override
+	public Optional<String> apply(String tag) {
+		return select(tag).map(Version::toString);
+	}
+
+	/**
+	 * @param tag The tag name.
+	 * @return The version the tag is selected as, or empty if it isn't a version.
+	 */
+	Optional<Version> select(String tag) {
+		for(Matching pattern : patterns) {
+			Optional<Version> version = pattern.extract(tag).flatMap(parser::parse);
+			if(version.isPresent()) {
+				return version;
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Creates a function that selects the versions of tags for a single scan of a repository. Each version is only
+	 * parsed once: if the selector is a {@link TagSelector}, the version it parses while selecting the tag is used, and
+	 * the strings it has already rejected aren't parsed at all. Other selectors' rejected strings are only remembered
+	 * for the rest of the scan.
+	 *
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @return Maps tag names to versions, or empty for tags that aren't versions.
+	 */
+	static Function<String, Optional<Version>> forScan(Function<String, Optional<String>> tagSelector) {
+		if(tagSelector instanceof TagSelector) {
+			return ((TagSelector) tagSelector)::select;
+		}
+		Parser parser = new Parser();
+		return tag -> tagSelector.apply(tag).flatMap(parser::parse);
+	}
+
+	/**
+	 * Finds the group a pattern's version should be extracted from, or 0 for the whole match.
+	 */
+	private static int versionGroup(Pattern regex) {
+		int groups = regex.matcher("").groupCount();
+		if(groups==1) {
+			return 1;
+		}
+		if(groups > 1 && regex.pattern().contains("(?<" + VERSION_GROUP + ">")) {
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the literal text that every match of a pattern must start with. This is conservative: patterns with flags
+	 * or alternatives that could change how their start matches have no literal prefix.
+	 */
+	static String literalPrefix(Pattern regex) {
+		String pattern = regex.pattern();
+		if(regex.flags()!=0 || pattern.indexOf('|') >= 0) {
+			return "";
+		}
+
+		int start = pattern.startsWith("^") ? 1 : 0;
+		int end = start;
+		while(end < pattern.length() && METACHARACTERS.indexOf(pattern.charAt(end)) < 0) {
+			++end;
+		}
+		if(end < pattern.length() && "?*{".indexOf(pattern.charAt(end)) >= 0 && end > start) {
+			--end; // The last literal is optional
+		}
+		return pattern.substring(start, end);
+	}
+
+	/**
+	 * Parses semantic versions, remembering the strings that aren't valid versions so that they are rejected without
+	 * being parsed again. Only the most recently rejected strings are remembered, so that repositories which keep
+	 * gaining tags that aren't versions don't grow the parser without bound. Parsers may be used by several threads at
+	 * once.
+	 */
+	static final class Parser {
+
+		private final Function<String, Version> parse;
+		private final Map<String, Boolean> rejected;
+
+		Parser() {
+			this(MAX_REJECTED, Version::valueOf);
+		}
+
+		/**
+		 * @param capacity The number of rejected strings to remember.
+		 * @param parse Parses version strings, throwing a {@link RuntimeException} for those that aren't versions.
+		 */
+		Parser(int capacity, Function<String, Version> parse) {
+			this.parse = parse;
+			this.rejected = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+					return size() > capacity;
+				}
+			});
+		}
+
+		/**
+		 * @param version The version string.
+		 * @return The version, or empty if the string isn't a valid version.
+		 */
+		Optional<Version> parse(String version) {
+			if(rejected.get(version)!=null) {
+				return Optional.empty();
+			}
+			try {
+				return Optional.of(parse.apply(version));
+			} catch (RuntimeException e) {
+				rejected.put(version, Boolean.TRUE);
+				return Optional.empty();
+			}
+		}
+
+	}
+
+	private static final class Matching {
+
+		private final String prefix;
+		private final Pattern regex;
+		private final int group;
+
+		Matching(String prefix, Pattern regex, int group) {
+			this.prefix = Objects.requireNonNull(prefix);
+			this.regex = regex;
+			this.group = group;
+		}
+
+		Optional<String> extract(String tag) {
+			if(regex==null) {
+				return Optional.of(tag.startsWith(prefix) ? tag.substring(prefix.length()) : tag);
+			}
+			if(!tag.startsWith(prefix)) {
+				return Optional.empty();
+			}
+			Matcher m = regex.matcher(tag);
+			if(!m.matches()) {
+				return Optional.empty();
+			}
+			return Optional.ofNullable(group < 0 ? m.group(VERSION_GROUP) : m.group(group));
+		}
+
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.uulib.reckon.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A version read from a git tag, along with the commit it tags.
+ *
+ * @author hWorblehat
+ */
+final class TaggedVersion {
+
+	final Version version;
+	final RevCommit commit;
+
+	TaggedVersion(Version version, RevCommit commit) {
+		this.version = version;
+		this.commit = commit;
+	}
+
+	/**
+	 * Reads the versions of all the tags in a repository.
+	 *
+	 * @param repository The repository to read the tags of.
+	 * @param walk The walk to parse the tagged commits with.
+	 * @param tagSelector Maps tag names to version strings, or empty for tags that aren't versions.
+	 * @return The tagged versions. Tags which aren't selected, don't parse as versions or don't point at commits are
+	 *         omitted.
+	 * @throws IOException If the tags cannot be read.
+	 */
+	static List<TaggedVersion> read(Repository repository, RevWalk walk, Function<String, Optional<String>> tagSelector)
+			throws IOException {
+		Function<String, Optional<Version>> selector = TagSelector.forScan(tagSelector);
+		List<TaggedVersion> versions = new ArrayList<>();
+		for(Ref ref : repository.getRefDatabase().getRefs(Constants.R_TAGS).values()) {
+			Optional<Version> version = selector.apply(Repository.shortenRefName(ref.getName()));
+			if(!version.isPresent()) {
+				continue;
+			}
+
+			Optional<RevCommit> commit = taggedCommit(repository, walk, ref);
+			if(commit.isPresent()) {
+				versions.add(new TaggedVersion(version.get(), commit.get()));
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Finds the commit a tag points at, peeling annotated tags.
+	 *
+	 * @param repository The repository containing the tag.
+	 * @param walk The walk to parse the commit with.
+	 * @param ref The tag.
+	 * @return The tagged commit, or empty if the tag doesn't point at a commit.
+	 * @throws IOException If the tag or commit cannot be read.
+	 */
+	static Optional<RevCommit> taggedCommit(Repository repository, RevWalk walk, Ref ref) throws IOException {
+		Ref peeled = repository.peel(ref);
+		ObjectId id = peeled.getPeeledObjectId()==null ? peeled.getObjectId() : peeled.getPeeledObjectId();
+		try {
+			return Optional.of(walk.parseCommit(id));
+		} catch (IncorrectObjectTypeException e) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return version + "@" + commit.name();
+	}
+
+}
@@ -19,6 +19,10 @@ public interface Configurator<C> {
 	
 	<T,E extends Exception> T withConfigured(Supplier<C> configCreator, ExceptionalFunction<C,T,E> action) throws E;
 	
+	/**
+	 * Configures objects by calling a closure with the object as its delegate. Each configuration calls its own copy
+	 * of the closure, so the closure is never modified, and many objects may be configured with it concurrently.
+	 */
 	static class ClosureConfigurator<C> implements Configurator<C> {
 		private final Closure<?> closure;
 		
@@ -30,16 +34,12 @@ public interface Configurator<C> {
 		public <T,E extends Exception> T withConfigured(Supplier<C> configCreator, ExceptionalFunction<C,T,E> action)
 				throws E {
 			C config = configCreator.get();
-			Object oldDelegate = closure.getDelegate();
-			try {
-				closure.setDelegate(config);
-				closure.setResolveStrategy(Closure.DELEGATE_FIRST);
-				closure.call();
-				
-				return action.apply(config);
-			} finally {
-				closure.setDelegate(oldDelegate);
-			}
+			Closure<?> configuring = (Closure<?>) closure.clone();
+			configuring.setDelegate(config);
+			configuring.setResolveStrategy(Closure.DELEGATE_FIRST);
+			configuring.call();
+			
+			return action.apply(config);
 		}
 		
 	}
@@ -0,0 +1,191 @@
+package org.uulib.util;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.uulib.util.function.ExceptionalSupplier;
+
+/**
+ * A memoized supplier whose value can be invalidated. Once a value has been computed, reading it takes no locks. Only
+ * one thread computes the value at a time; threads that wait on a computation receive its outcome rather than
+ * starting another.
+ * <p>
+ * What happens when the computation fails is determined by a {@linkplain FailurePolicy failure policy}. Remembered
+ * failures are replayed by rethrowing the same exception, so their stack traces show where they originally occurred.
+ *
+ * @author hWorblehat
+ */
+public final class Memo<T, E extends Exception> implements ExceptionalSupplier<T, E> {
+
+	private final ExceptionalSupplier<? extends T, ? extends E> supplier;
+	private final FailurePolicy failurePolicy;
+	private final AtomicReference<State<T>> state = new AtomicReference<>(State.unset());
+	private final Object lock = new Object();
+
+	/**
+	 * @param supplier Computes the value.
+	 * @param failurePolicy What to do when the computation fails.
+	 */
+	public Memo(ExceptionalSupplier<? extends T, ? extends E> supplier, FailurePolicy failurePolicy) {
+		this.supplier = Objects.requireNonNull(supplier);
+		this.failurePolicy = Objects.requireNonNull(failurePolicy);
+	}
+
+	public static <T> Memo<T, Exception> ofCallable(Callable<? extends T> callable, FailurePolicy failurePolicy) {
+		Objects.requireNonNull(callable);
+		return new Memo<T, Exception>(callable::call, failurePolicy);
+	}
+
+	@Override
+	public T get() throws E {
+		State<T> observed = state.get();
+		if(observed.computed) {
+			return observed.value;
+		}
+		if(observed.isRemembered()) {
+			throw replay(observed.failure);
+		}
+
+		synchronized(lock) {
+			State<T> current = state.get();
+			if(current!=observed) {
+				// Another thread computed the value, or failed to, while this one was waiting
+				if(current.computed) {
+					return current.value;
+				}
+				if(current.failure!=null) {
+					throw replay(current.failure);
+				}
+			}
+			return compute(current);
+		}
+	}
+
+	private T compute(State<T> previous) throws E {
+		T value;
+		try {
+			value = supplier.get();
+		} catch (Exception e) {
+			state.compareAndSet(previous, failurePolicy.failed(previous, e));
+			throw replay(e);
+		}
+		state.compareAndSet(previous, State.computed(value));
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E replay(Exception failure) {
+		return (E) failure;
+	}
+
+	/**
+	 * Discards any computed value or remembered failure, so that the value is computed again when it is next needed.
+	 * A computation in progress when this is called completes, but its outcome is not remembered.
+	 */
+	public void invalidate() {
+		state.set(State.unset());
+	}
+
+	/**
+	 * @return Whether the value has been computed and not invalidated since.
+	 */
+	public boolean isComputed() {
+		return state.get().computed;
+	}
+
+	/**
+	 * What a {@linkplain Memo memo} does when computing its value fails.
+	 */
+	public static final class FailurePolicy {
+
+		/**
+		 * Failures are remembered until the memo is {@linkplain Memo#invalidate() invalidated}.
+		 */
+		public static final FailurePolicy CACHE = new FailurePolicy(Long.MAX_VALUE, Long.MAX_VALUE);
+
+		/**
+		 * Failures are not remembered: they are thrown to the thread whose computation failed and those waiting on it,
+		 * and the next access tries again.
+		 */
+		public static final FailurePolicy FAIL_FAST = new FailurePolicy(0, 0);
+
+		private final long initialNanos;
+		private final long maxNanos;
+
+		private FailurePolicy(long initialNanos, long maxNanos) {
+			this.initialNanos = initialNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		/**
+		 * Failures are remembered for a period that doubles with each consecutive failure, after which the next access
+		 * tries again.
+		 *
+		 * @param initial How long to remember the first failure.
+		 * @param max The longest that any failure is remembered.
+		 * @return The policy.
+		 */
+		public static FailurePolicy retryWithBackoff(Duration initial, Duration max) {
+			if(initial.isNegative() || max.compareTo(initial) < 0) {
+				throw new IllegalArgumentException("Invalid backoff: " + initial + " to " + max);
+			}
+			return new FailurePolicy(initial.toNanos(), max.toNanos());
+		}
+
+		<T> State<T> failed(State<T> previous, Exception failure) {
+			int failures = previous.failure==null ? 1 : previous.failures + 1;
+			if(initialNanos==Long.MAX_VALUE) {
+				return State.failed(failure, failures, Long.MAX_VALUE);
+			}
+			int doublings = Math.min(failures - 1, Long.numberOfLeadingZeros(initialNanos) - 1);
+			long backoff = Math.min(initialNanos << doublings, maxNanos);
+			return State.failed(failure, failures, System.nanoTime() + backoff);
+		}
+
+	}
+
+	/**
+	 * An immutable snapshot of a memo's state. New instances are always created for new states, so that a computation
+	 * can detect whether the state has changed while it ran.
+	 */
+	private static final class State<T> {
+
+		final boolean computed;
+		final T value;
+		final Exception failure;
+		final int failures;
+		/**
+		 * The {@link System#nanoTime()} from which a failure is no longer remembered, or {@link Long#MAX_VALUE} if it
+		 * is remembered forever.
+		 */
+		final long retryAt;
+
+		private State(boolean computed, T value, Exception failure, int failures, long retryAt) {
+			this.computed = computed;
+			this.value = value;
+			this.failure = failure;
+			this.failures = failures;
+			this.retryAt = retryAt;
+		}
+
+		boolean isRemembered() {
+			return failure!=null && (retryAt==Long.MAX_VALUE || System.nanoTime() - retryAt < 0);
+		}
+
+		static <T> State<T> unset() {
+			return new State<>(false, null, null, 0, 0);
+		}
+
+		static <T> State<T> computed(T value) {
+			return new State<>(true, value, null, 0, 0);
+		}
+
+		static <T> State<T> failed(Exception failure, int failures, long retryAt) {
+			return new State<>(false, null, failure, failures, retryAt);
+		}
+
+	}
+
+}
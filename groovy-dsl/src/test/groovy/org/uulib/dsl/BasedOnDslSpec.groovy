@@ -1,5 +1,7 @@
 package org.uulib.dsl
 
+import java.util.concurrent.Callable
+
 import org.uulib.dsl.basedon.BasedOn
 
 import spock.lang.*
@@ -34,6 +36,50 @@ class BasedOnDslSpec extends Specification {
 		speech=='trump'
 	}
 	
+	def "the spec is only configured once however many times its value is needed"() {
+		given:
+		int configured = 0
+		String basis = 'elephant'
+		Callable<String> speech = BasedOn.basedOn({ basis } as Callable<String>) {
+			configured++
+			normally 'hi'
+			when 'elephant' then 'trump'
+		}
+		
+		when:
+		List<String> speeches = ['elephant', 'person', 'elephant'].collect { basis = it; speech.call() }
+		
+		then:
+		speeches == ['trump', 'hi', 'trump']
+		configured == 1
+	}
+	
+	def "specs that depend on mutable state can be configured every time"() {
+		given:
+		String greeting = 'hi'
+		Callable<String> speech = BasedOn.basedOn({ 'person' } as Callable<String>) {
+			reevaluateEachTime()
+			normally greeting
+		}
+		
+		when:
+		String first = speech.call()
+		greeting = 'hello'
+		
+		then:
+		first == 'hi'
+		speech.call() == 'hello'
+	}
+	
+	def "an unmapped input with no normal value is an error"() {
+		when:
+		BasedOn.basedOn('person') {
+			when 'elephant' then 'trump'
+		}
+		
+		then:
+		thrown(IllegalStateException)
+	}
 	
 
 }
@@ -0,0 +1,102 @@
+package org.uulib.reckon
+
+import org.ajoberstar.reckon.core.VcsInventory
+import org.uulib.reckon.strategy.NumberedStagePreReleasePartStrategy
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+class CompactVersionSetSpec extends Specification {
+
+	@Shared List<String> versions = ['2.0.0', '1.0.0', '1.2.0-rc.1', '1.2.0-rc.10', '1.2.0-rc.2', '1.2.0-rc.2+build.1',
+		'1.2.0+build.2', '1.2.0', '10.0.0-alpha', '1.10.0-beta.1', '1.2.0-rc.1']
+
+	def "Compact sets have the same members as the versions they were built from"() {
+		given:
+		Set<Version> expected = versions.collect { Version.valueOf(it) } as Set
+
+		when:
+		CompactVersionSet parsed = CompactVersionSet.copyOf(expected)
+		CompactVersionSet unparsed = versions.inject(CompactVersionSet.builder()) { b, v -> b.add(v) }.build()
+
+		then:
+		parsed == expected
+		unparsed == expected
+		unparsed*.toString() as Set == expected*.toString() as Set
+		unparsed*.toString() == ['1.0.0', '1.2.0+build.2', '1.2.0-rc.1', '1.2.0-rc.10', '1.2.0-rc.2', '1.10.0-beta.1',
+			'2.0.0', '10.0.0-alpha']
+	}
+
+	def "Membership is decided without iterating the set"() {
+		given:
+		CompactVersionSet set = CompactVersionSet.copyOf(versions.collect { Version.valueOf(it) })
+
+		expect:
+		set.contains(Version.valueOf('1.2.0-rc.2+build.1'))
+		set.contains(Version.valueOf('1.2.0+build.2'))
+		set.contains(Version.valueOf('1.2.0-rc.2+build.3'))
+		!set.contains(Version.valueOf('1.2.0-rc.3'))
+		!set.contains(Version.valueOf('1.1.0'))
+		!set.contains('1.0.0')
+		CompactVersionSet.builder().build().empty
+	}
+
+	def "Sets are compared and hashed in the same way as other sets of their members"() {
+		given:
+		Set<Version> expected = versions.collect { Version.valueOf(it) } as Set
+		CompactVersionSet set = CompactVersionSet.copyOf(expected)
+		CompactVersionSet rebuilt = versions.reverse().collect { it.replaceAll(/\+.*/, '') }
+				.inject(CompactVersionSet.builder()) { b, v -> b.add(v) }.build()
+		CompactVersionSet fewer = CompactVersionSet.copyOf(expected.findAll { it.toString()!='1.2.0-rc.10' })
+
+		expect:
+		set.hashCode() == expected.hashCode()
+		rebuilt.hashCode() == expected.hashCode()
+		set.equals(expected)
+		expected.equals(set)
+		set.equals(rebuilt)
+		!set.equals(fewer)
+		!fewer.equals(set)
+		!set.equals(CompactVersionSet.copyOf(fewer + [Version.valueOf('1.2.0-rc.11')]))
+		CompactVersionSet.builder().build().hashCode() == 0
+	}
+
+	@Unroll
+	def "Versions which don't start with a normal version are rejected (#version)"(String version) {
+		when:
+		CompactVersionSet.builder().add(version)
+
+		then:
+		thrown(IllegalArgumentException)
+
+		where:
+		version << ['1.2', '1.2.', '01.2.3', '1.2.x', '1.2.3.4', '-1.2.3', '1.99999999999.0']
+	}
+
+	def "The pre-release parts of each normal version are found"() {
+		given:
+		CompactVersionSet set = CompactVersionSet.copyOf(versions.collect { Version.valueOf(it) })
+
+		expect:
+		set.preReleases(Version.valueOf('1.2.0')) as List == ['', 'rc.1', 'rc.10', 'rc.2']
+		set.preReleases(Version.valueOf('10.0.0')) as List == ['alpha']
+		set.preReleases(Version.valueOf('1.1.0')) == null
+	}
+
+	def "Strategies reckon the same versions from indexed compact sets"() {
+		given:
+		Set<Version> claimed = ((1..20).collect { "1.2.0-rc.${it}" } + ['1.2.0-beta.1', '1.3.0-rc.1'])
+				.collect { Version.valueOf(it) } as Set
+		CompactVersionSet compact = CompactVersionSet.copyOf(claimed)
+		IndexedInventory inventory = compact.indexed(new VcsInventory('abc', null, null, null, 0, null, compact))
+		NumberedStagePreReleasePartStrategy strategy = NumberedStagePreReleasePartStrategy.forStage('rc')
+
+		expect:
+		strategy.reckonPreRelease(inventory, Version.valueOf('1.2.0')).get() == 'rc.21'
+		strategy.reckonPreRelease(inventory, Version.valueOf('1.3.0')).get() == 'rc.2'
+		strategy.reckonPreRelease(inventory.inventory, Version.valueOf('1.2.0')).get() == 'rc.21'
+		inventory.isClaimed(Version.valueOf('1.2.0-beta.1'))
+	}
+
+}
@@ -0,0 +1,150 @@
+package org.uulib.reckon
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.ajoberstar.reckon.core.VcsInventory
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+class IndexedInventorySpec extends Specification {
+
+	@Shared List<String> claimed = ['1.2.0-alpha.1', '1.2.0-rc', '1.2.0-rc.1', '1.2.0-rc.10', '1.2.0-rc.2',
+		'1.2.0-rcx', '1.2.0-rd.1', '1.2.0-s', '1.2.0+build.1', '1.3.0-rc.1+build.2', '2.0.0']
+
+	AtomicInteger iterations = new AtomicInteger()
+
+	/**
+	 * An inventory whose claimed versions count how many times they are iterated, taking a while each time.
+	 */
+	private VcsInventory inventory(String commitId = 'abc123') {
+		Set<Version> counted = new CountedVersions(claimed.collect { Version.valueOf(it) }, iterations)
+		return new VcsInventory(commitId, null, Version.valueOf('1.1.0'), Version.valueOf('1.1.0'), 1, [] as Set,
+				counted)
+	}
+
+	private static final class CountedVersions extends AbstractSet<Version> {
+
+		private final List<Version> versions
+		private final AtomicInteger iterations
+
+		CountedVersions(List<Version> versions, AtomicInteger iterations) {
+			this.versions = versions
+			this.iterations = iterations
+		}
+
+		@Override
+		Iterator<Version> iterator() {
+			iterations.incrementAndGet()
+			Thread.sleep(50)
+			return versions.iterator()
+		}
+
+		@Override
+		int size() {
+			return versions.size()
+		}
+
+	}
+
+	@Unroll
+	def "The pre-releases of #normal starting with '#prefix' are #expected"(String normal, String prefix,
+			List<String> expected) {
+		expect:
+		IndexedInventory.of(inventory()).getClaimedPreReleases(Version.valueOf(normal), prefix) as List == expected
+
+		where:
+		normal       | prefix || expected
+		'1.2.0'      | ''     || ['', 'alpha.1', 'rc', 'rc.1', 'rc.10', 'rc.2', 'rcx', 'rd.1', 's']
+		'1.2.0'      | 'rc'   || ['rc', 'rc.1', 'rc.10', 'rc.2', 'rcx']
+		'1.2.0'      | 'rc.'  || ['rc.1', 'rc.10', 'rc.2']
+		'1.2.0'      | 'rc.1' || ['rc.1', 'rc.10']
+		'1.2.0'      | 'r'    || ['rc', 'rc.1', 'rc.10', 'rc.2', 'rcx', 'rd.1']
+		'1.2.0'      | 'a'    || ['alpha.1']
+		'1.2.0'      | 'z'    || []
+		'1.3.0'      | 'rc.'  || ['rc.1']
+		'1.4.0'      | ''     || []
+		'1.2.0-rc.1' | ''     || []
+	}
+
+	@Unroll
+	def "Whether #version is claimed ignores build metadata"(String version, boolean expected) {
+		expect:
+		IndexedInventory.of(inventory()).isClaimed(Version.valueOf(version)) == expected
+
+		where:
+		version              || expected
+		'1.2.0'              || true
+		'1.2.0+build.2'      || true
+		'1.3.0-rc.1'         || true
+		'1.3.0-rc.1+other'   || true
+		'2.0.0+build.3'      || true
+		'1.2.0-rc.3'         || false
+		'1.3.0'              || false
+		'1.3.0-rc.1.1+build' || false
+	}
+
+	def "An index is reused for other inventories with the same claimed versions"() {
+		given:
+		Version normal = Version.valueOf('1.2.0')
+		IndexedInventory indexed = IndexedInventory.of(inventory())
+		VcsInventory other = inventory('def456')
+
+		when:
+		IndexedInventory reused = indexed.forInventory(other)
+
+		then:
+		reused.inventory.is(other)
+		reused.getClaimedPreReleases(normal).is(indexed.getClaimedPreReleases(normal))
+		iterations.get() == 1
+	}
+
+	def "Indexes by lookup are reused without scanning the claimed versions"() {
+		given:
+		List<Version> looked = []
+		IndexedInventory indexed = IndexedInventory.of(inventory(), { Version normal ->
+			looked << normal
+			return new TreeSet<String>(['rc.1'])
+		})
+
+		when:
+		IndexedInventory reused = indexed.forInventory(inventory('def456'))
+
+		then:
+		reused.getClaimedPreReleases(Version.valueOf('1.2.0'), 'rc.') as List == ['rc.1']
+		looked == [Version.valueOf('1.2.0')]
+		iterations.get() == 0
+	}
+
+	def "The index is built once, however many threads first use it at once"() {
+		given:
+		IndexedInventory indexed = IndexedInventory.of(inventory())
+		int threads = 8
+		CountDownLatch start = new CountDownLatch(1)
+		ExecutorService executor = Executors.newFixedThreadPool(threads)
+
+		when:
+		List<Future<NavigableSet<String>>> found = (1..threads).collect {
+			executor.submit({
+				start.await()
+				return indexed.getClaimedPreReleases(Version.valueOf('1.2.0'), 'rc.')
+			} as Callable)
+		}
+		start.countDown()
+		List<NavigableSet<String>> results = found*.get()
+
+		then:
+		iterations.get() == 1
+		results.every { it as List == ['rc.1', 'rc.10', 'rc.2'] }
+
+		cleanup:
+		executor.shutdown()
+	}
+
+}
@@ -0,0 +1,126 @@
+package org.uulib.reckon
+
+import java.nio.file.Path
+
+import org.ajoberstar.reckon.core.VcsInventory
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.strategy.NumberedStagePreReleasePartStrategy
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fields
+
+class InventorySnapshotSpec extends Specification {
+
+	@Rule TemporaryFolder dir = new TemporaryFolder()
+
+	private VcsInventory roundTrip(VcsInventory inventory) {
+		Path file = dir.root.toPath().resolve('inventory.snapshot')
+		InventorySnapshot.write(inventory, file)
+		new InventorySnapshot(file).inventory
+	}
+
+	@Unroll
+	def "Inventories are read back as they were written (#name)"(String name, VcsInventory inventory) {
+		expect:
+		fields(roundTrip(inventory)) == fields(inventory)
+
+		where:
+		name       | inventory
+		'empty'    | new VcsInventoryBuilder().build()
+		'tagged'   | new VcsInventoryBuilder()
+				.setCommitId('abc123')
+				.setCurrentVersion('1.2.0')
+				.setBaseVersion('1.2.0')
+				.setBaseNormal('1.2.0')
+				.addClaimedVersions('1.0.0', '1.1.0', '1.2.0')
+				.build()
+		'claimed'  | new VcsInventoryBuilder()
+				.setCommitId('def456')
+				.setBaseVersion('1.2.0-rc.2')
+				.setBaseNormal('1.1.0')
+				.setCommitsSinceBase(7)
+				.addParallelNormals('1.3.0', '2.0.0')
+				.addClaimedVersions('1.1.0', '1.2.0-rc.1', '1.2.0-rc.2', '1.2.0-rc.10+build.3', '1.3.0-beta.1',
+					'2.0.0-alpha.1', '10.0.0')
+				.build()
+	}
+
+	def "Claimed versions are looked up without being decoded"() {
+		given:
+		VcsInventory inventory = roundTrip(new VcsInventoryBuilder()
+				.addClaimedVersions('1.0.0', '1.2.0-rc.1', '1.2.0-rc.2', '2.0.0')
+				.build())
+
+		expect:
+		inventory.claimedVersions.contains(Version.valueOf('1.2.0-rc.2'))
+		!inventory.claimedVersions.contains(Version.valueOf('1.2.0-rc.3'))
+		!inventory.claimedVersions.contains(Version.valueOf('1.1.0'))
+		!inventory.claimedVersions.contains('1.0.0')
+		inventory.claimedVersions.size() == 4
+	}
+
+	@Unroll
+	def "Claimed versions are looked up ignoring build metadata, as other sets of versions are (#version)"(
+			String version, boolean claimed) {
+		given:
+		List<Version> versions = ['1.0.0+build.5', '1.2.0-rc', '1.2.0-rc.1+b.1', '1.2.0-rc.1-x', '1.2.0-rc.1.x',
+			'2.0.0'].collect { Version.valueOf(it) }
+		VcsInventory inventory = roundTrip(new VcsInventoryBuilder().addClaimedVersions(versions).build())
+
+		expect:
+		inventory.claimedVersions.contains(Version.valueOf(version)) == claimed
+		new HashSet<Version>(versions).contains(Version.valueOf(version)) == claimed
+		CompactVersionSet.copyOf(versions).contains(Version.valueOf(version)) == claimed
+
+		where:
+		version          || claimed
+		'1.0.0'          || true
+		'1.0.0+build.5'  || true
+		'1.0.0+build.6'  || true
+		'1.0.0-rc.1'     || false
+		'1.2.0'          || false
+		'1.2.0-rc'       || true
+		'1.2.0-rc.1'     || true
+		'1.2.0-rc.1+b.2' || true
+		'1.2.0-rc.1-x'   || true
+		'1.2.0-rc.1.x'   || true
+		'1.2.0-rc.1.y'   || false
+		'1.2.0-rc.2'     || false
+		'2.0.0+x'        || true
+		'2.0.1'          || false
+	}
+
+	def "Strategies reckon the same versions from a snapshot as from the inventory it was written from"() {
+		given:
+		VcsInventory inventory = new VcsInventoryBuilder()
+				.setCommitId('abc123')
+				.setBaseVersion('1.2.0-rc.2')
+				.setBaseNormal('1.1.0')
+				.addClaimedVersions((1..200).collect { "1.2.0-rc.${it}" } as String[])
+				.addClaimedVersions('1.2.0-beta.1', '1.3.0-rc.1')
+				.build()
+		NumberedStagePreReleasePartStrategy strategy = NumberedStagePreReleasePartStrategy.forStage('rc')
+
+		expect:
+		strategy.reckonPreRelease(roundTrip(inventory), Version.valueOf('1.2.0')).get() == 'rc.201'
+		strategy.reckonPreRelease(inventory, Version.valueOf('1.2.0')).get() == 'rc.201'
+		strategy.reckonPreRelease(roundTrip(inventory), Version.valueOf('1.3.0')).get() == 'rc.2'
+	}
+
+	def "Files which aren't snapshots are rejected"() {
+		given:
+		File file = dir.newFile('inventory.snapshot')
+		file.text = 'not a snapshot'
+
+		when:
+		new InventorySnapshot(file.toPath()).inventory
+
+		then:
+		thrown(IllegalStateException)
+	}
+
+}
@@ -0,0 +1,136 @@
+package org.uulib.reckon
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.ajoberstar.reckon.core.NormalStrategy
+import org.ajoberstar.reckon.core.PreReleaseStrategy
+import org.ajoberstar.reckon.core.VcsInventory
+import org.ajoberstar.reckon.core.VcsInventorySupplier
+import org.uulib.reckon.MultiRepositoryReckoner.Job
+import org.uulib.reckon.MultiRepositoryReckoner.Result
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+class MultiRepositoryReckonerSpec extends Specification {
+
+	@Shared VcsInventory inventory = new VcsInventoryBuilder().addClaimedVersions('1.0.0').build()
+	@Shared PreReleaseStrategy finalVersion = { VcsInventory i, Version normal -> normal } as PreReleaseStrategy
+
+	AtomicInteger running = new AtomicInteger()
+	AtomicInteger maxRunning = new AtomicInteger()
+
+	/**
+	 * A job whose inventory takes the given time to scan, and whose normal version is as given.
+	 */
+	private Job job(String name, long scanMillis, String normal) {
+		VcsInventorySupplier supplier = {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math.&max)
+			try {
+				Thread.sleep(scanMillis)
+			} finally {
+				running.decrementAndGet()
+			}
+			inventory
+		} as VcsInventorySupplier
+		return new Job(name, supplier, { Version.valueOf(normal) } as NormalStrategy, finalVersion)
+	}
+
+	def "Results are in the same order as the jobs, whichever finishes first"() {
+		when:
+		List<Result> results = new MultiRepositoryReckoner(4).reckonAll([
+			job('slow', 300, '1.1.0'),
+			job('medium', 150, '1.2.0'),
+			job('fast', 0, '1.3.0')
+		])
+
+		then:
+		results*.name == ['slow', 'medium', 'fast']
+		results*.version*.get()*.toString() == ['1.1.0', '1.2.0', '1.3.0']
+	}
+
+	def "A failing job doesn't prevent the others being reckoned"() {
+		when:
+		List<Result> results = new MultiRepositoryReckoner(2).reckonAll([
+			job('before', 50, '1.1.0'),
+			new Job('broken', { throw new IllegalStateException('No repository') } as VcsInventorySupplier,
+					{ Version.valueOf('2.0.0') } as NormalStrategy, finalVersion),
+			job('claimed', 0, '1.0.0'),
+			job('after', 50, '1.2.0')
+		])
+
+		then:
+		results*.name == ['before', 'broken', 'claimed', 'after']
+		results*.version*.orElse(null) == [Version.valueOf('1.1.0'), null, null, Version.valueOf('1.2.0')]
+		results[1].failure.get().message == 'No repository'
+		results[2].failure.get().message.contains('already been released')
+		!results[0].failure.present
+		!results[3].failure.present
+	}
+
+	def "Checked exceptions thrown without being declared only fail their own job"() {
+		when:
+		List<Result> results = new MultiRepositoryReckoner(2).reckonAll([
+			new Job('unreadable', new UnreadableInventorySupplier(), { Version.valueOf('2.0.0') } as NormalStrategy,
+					finalVersion),
+			job('readable', 0, '1.1.0')
+		])
+
+		then:
+		results[0].failure.get() instanceof IOException
+		results[0].failure.get().message == 'Unreadable'
+		results[1].version.get() == Version.valueOf('1.1.0')
+	}
+
+	def "Errors are rethrown"() {
+		when:
+		new MultiRepositoryReckoner(2).reckonAll([
+			new Job('broken', { throw new InternalError('Broken') } as VcsInventorySupplier,
+					{ Version.valueOf('2.0.0') } as NormalStrategy, finalVersion),
+			job('working', 0, '1.1.0')
+		])
+
+		then:
+		InternalError e = thrown()
+		e.message == 'Broken'
+	}
+
+	/**
+	 * Throws a checked exception, as Groovy code may, without declaring it.
+	 */
+	private static final class UnreadableInventorySupplier implements VcsInventorySupplier {
+
+		@Override
+		VcsInventory getInventory() {
+			throw new IOException('Unreadable')
+		}
+
+	}
+
+	def "No more jobs than the parallelism are reckoned at once"() {
+		when:
+		List<Result> results = new MultiRepositoryReckoner(2).reckonAll((1..6).collect { job("job$it", 100, '1.1.0') })
+
+		then:
+		results.every { it.version.present }
+		maxRunning.get() == 2
+	}
+
+	def "The duration of each job is reported"() {
+		when:
+		List<Result> results = new MultiRepositoryReckoner(2).reckonAll([job('slow', 200, '1.1.0'),
+			job('fast', 0, '1.2.0')])
+
+		then:
+		results[0].duration.toMillis() >= 200
+		results[1].duration.toMillis() < results[0].duration.toMillis()
+		results[0].toString() =~ /^slow 1\.1\.0 in \d+ms$/
+	}
+
+	def "Reckoning no jobs gives no results"() {
+		expect:
+		new MultiRepositoryReckoner().reckonAll([]).empty
+	}
+
+}
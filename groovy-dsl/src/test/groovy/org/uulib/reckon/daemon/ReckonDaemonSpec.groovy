@@ -0,0 +1,143 @@
+package org.uulib.reckon.daemon
+
+import java.util.function.Consumer
+
+import org.ajoberstar.grgit.Grgit
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.git.TestRepositories
+
+import spock.lang.*
+
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class ReckonDaemonSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	@Rule TemporaryFolder otherDir = new TemporaryFolder()
+	Grgit grgit
+	ReckonDaemon daemon
+	ReckonDaemonClient client
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'v1.2.3')
+		commit(grgit, 'More code')
+		daemon = new ReckonDaemon(0)
+		client = new ReckonDaemonClient(daemon.port)
+	}
+
+	def cleanup() {
+		client.close()
+		daemon.close()
+		grgit.close()
+	}
+
+	private ReckonRequest request(Map<String, String> fields = [:]) {
+		fields.inject(ReckonRequest.forRepository(projectDir.root.path)) { r, k, v -> r.with(k, v) }
+	}
+
+	def "Versions are reckoned according to the request"() {
+		expect:
+		client.reckon(request(scope: 'minor', stage: 'beta')).toString() == '1.3.0-beta.1'
+		client.reckon(request(scope: 'major')).toString() == '2.0.0'
+		client.reckon(request(scope: 'patch', stage: 'rc', metadata: 'commit')).toString() ==
+				"1.2.4-rc.1+${grgit.head().id}"
+		client.lastRequestMicros >= 0
+	}
+
+	def "Inventories are reused until the repository's refs change"() {
+		when:
+		client.reckon(request(stage: 'beta'))
+		client.reckon(request(stage: 'rc'))
+
+		then:
+		daemon.scanCount == 1
+
+		when:
+		grgit.tag.add(name: 'v1.3.0-beta.1')
+
+		then:
+		client.reckon(request(stage: 'beta')).toString() == '1.3.0-beta.2'
+		daemon.scanCount == 2
+		daemon.requestCount == 3
+	}
+
+	def "Requests can be made from many connections at once"() {
+		given:
+		List<ReckonDaemonClient> clients = (1..4).collect { new ReckonDaemonClient(daemon.port) }
+
+		when:
+		List<String> versions = Collections.synchronizedList([])
+		clients.collect { c -> Thread.start { versions << c.reckon(request(stage: 'beta')).toString() } }*.join()
+
+		then:
+		versions == ['1.3.0-beta.1'] * 4
+
+		cleanup:
+		clients*.close()
+	}
+
+	def "Failures are reported without closing the connection"() {
+		when:
+		client.reckon(ReckonRequest.forRepository(otherDir.root.path))
+
+		then:
+		thrown(IllegalStateException)
+
+		expect:
+		client.reckon(request()).toString() == '1.3.0'
+	}
+
+	/**
+	 * Restarts the daemon so that requests for the given stage fail with the given error, which has no stack trace so
+	 * that logging it stays short.
+	 */
+	private void failStage(String stage, Error error) {
+		error.stackTrace = []
+		client.close()
+		daemon.close()
+		daemon = new ReckonDaemon(0, { ReckonRequest r ->
+			if(r.get(ReckonRequest.STAGE).orElse(null)==stage) {
+				throw error
+			}
+		} as Consumer)
+		client = new ReckonDaemonClient(daemon.port)
+	}
+
+	def "Stack overflows are reported without closing the connection"() {
+		given:
+		failStage('overflow', new StackOverflowError())
+
+		when:
+		client.reckon(request(stage: 'overflow'))
+
+		then:
+		IllegalStateException e = thrown()
+		e.message == 'java.lang.StackOverflowError'
+
+		expect:
+		client.reckon(request()).toString() == '1.3.0'
+	}
+
+	def "Other errors close the connection without stopping the daemon"() {
+		given:
+		failStage('broken', new InternalError('Injected failure'))
+
+		when:
+		client.reckon(request(stage: 'broken'))
+
+		then:
+		IOException e = thrown()
+		e.message == 'The daemon closed the connection.'
+
+		when:
+		client.close()
+		client = new ReckonDaemonClient(daemon.port)
+
+		then:
+		client.reckon(request()).toString() == '1.3.0'
+	}
+
+}
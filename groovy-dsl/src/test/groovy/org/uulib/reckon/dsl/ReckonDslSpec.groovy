@@ -95,6 +95,53 @@ class ReckonDslSpec extends Specification {
 		} as String
 	}
 	
+	def "Timestamps claimed to the millisecond are followed by a sequence number, if enabled"() {
+		given:
+		Instant time = Instant.parse('2017-11-04T09:05:07.042Z')
+		VcsInventory inventory = new VcsInventoryBuilder()
+				.addClaimedVersions('4.3.2-20171104', '4.3.2-20171104.90507', '4.3.2-20171104.90507.42',
+						'4.3.2-20171104.90507.42.1', '4.3.2-20171104.90507.42.9', '4.3.2-20171104.90507.41.10')
+				.build()
+		
+		when:
+		ReckonedVersion sequenced = Reckon.reckon {
+			vcs = inventory
+			normalVersion = '4.3.2'
+			preReleaseVersion = timestamp(time).withSequenceOnCollision()
+		}
+		
+		then:
+		sequenced as String == '4.3.2-20171104.90507.42.10'
+		inventory.claimedVersions.every { it.lessThan(sequenced.asVersion()) }
+		
+		when:
+		Reckon.reckon {
+			vcs = inventory
+			normalVersion = '4.3.2'
+			preReleaseVersion = timestamp(time)
+		} as String
+		
+		then:
+		thrown(IllegalStateException)
+	}
+	
+	def "Concurrent builds with the same timestamp reckon the same sequence number"() {
+		given:
+		Instant time = Instant.parse('2017-11-04T09:05:07.042Z')
+		VcsInventory inventory = new VcsInventoryBuilder()
+				.addClaimedVersions('4.3.2-20171104', '4.3.2-20171104.90507', '4.3.2-20171104.90507.42')
+				.build()
+		Closure build = {
+			vcs = inventory
+			normalVersion = '4.3.2'
+			preReleaseVersion = timestamp(time).withSequenceOnCollision()
+		}
+		
+		expect:
+		Reckon.reckon(build) as String == '4.3.2-20171104.90507.42.1'
+		Reckon.reckon(build) as String == '4.3.2-20171104.90507.42.1'
+	}
+	
 	def "Test of a complex reckoning"(String scope, String stage, String expected) {
 		Callable<String> stageSupplier = {stage}
 		when:
@@ -130,4 +177,80 @@ class ReckonDslSpec extends Specification {
 		'patch' | 'beta'  | '1.0.1-beta.3' 
 	}
 	
+	def "A compiled configuration only evaluates its closures once, and resolves its dynamic values every time"() {
+		given:
+		int configured = 0
+		String stage = 'alpha'
+		CompiledReckoning reckoning = Reckon.compile {
+			configured++
+			vcs = vcsInventory
+			normalVersion = '1.0.1'
+			preReleaseVersion = basedOn({stage}) {
+				normally stageUsing({stage})
+				when 'final' then none
+			}
+		}
+		
+		when:
+		List<String> versions = ['alpha', 'final', 'beta'].collect {
+			stage = it
+			Reckon.reckon(null, reckoning) as String
+		}
+		
+		then:
+		versions == ['1.0.1-alpha.2', '1.0.1', '1.0.1-beta.3']
+		configured == 1
+	}
+	
+	def "Invalidating a reckoned version compiles its configuration again"() {
+		given:
+		int configured = 0
+		String normal = '1.0.1'
+		String stage = 'alpha'
+		ReckonedVersion version = Reckon.reckon {
+			configured++
+			vcs = vcsInventory
+			normalVersion = normal
+			preReleaseVersion {
+				preRelease = stageUsing({stage})
+			}
+		}
+		
+		expect:
+		version as String == '1.0.1-alpha.2'
+		
+		when:
+		normal = '1.1.0'
+		stage = 'beta'
+		
+		then:
+		version as String == '1.0.1-alpha.2'
+		configured == 1
+		
+		when:
+		version.invalidate()
+		
+		then:
+		version as String == '1.1.0-beta.1'
+		configured == 2
+	}
+	
+	def "A compiled configuration describes its strategies"() {
+		when:
+		CompiledReckoning reckoning = Reckon.compile {
+			vcs = vcsInventory
+			normalVersion = '1.2.3'
+			preReleaseVersion {
+				preRelease = 'test'
+				buildMetadata = none
+			}
+		}
+		
+		then:
+		reckoning.toString().readLines()[1..2] == [
+			'normalVersion = version 1.2.3',
+			"preReleaseVersion = compound {preRelease = 'test', buildMetadata = none}"
+		]
+	}
+	
 }
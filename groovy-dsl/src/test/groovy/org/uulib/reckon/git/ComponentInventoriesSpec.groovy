@@ -0,0 +1,84 @@
+package org.uulib.reckon.git
+
+import java.util.regex.Pattern
+
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.reckon.core.VcsInventory
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.SharedInventories
+import org.uulib.reckon.dsl.VcsInventories
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fieldsExceptParallelNormals
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class ComponentInventoriesSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	Grgit grgit
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'api/v1.0.0')
+		grgit.tag.add(name: 'tools/web/v0.1.0')
+		commit(grgit, 'More api')
+		grgit.tag.add(name: 'api/v1.1.0-rc.1')
+		grgit.checkout(branch: 'hotfix', createBranch: true)
+		commit(grgit, 'Hotfix')
+		grgit.tag.add(name: 'api/v1.0.1')
+		grgit.checkout(branch: 'master')
+		commit(grgit, 'More tools')
+		grgit.tag.add(name: 'tools/web/not-a-version')
+		grgit.tag.add(name: 'v9.9.9')
+	}
+
+	def cleanup() {
+		grgit.close()
+	}
+
+	@Unroll
+	def "The inventory of component '#component' is the same as when scanned on its own"(String component) {
+		given:
+		ComponentInventories inventories = new ComponentInventories(grgit.repository.jgit.repository)
+
+		expect:
+		fieldsExceptParallelNormals(inventories.getInventory(component)) ==
+				fieldsExceptParallelNormals(VcsInventories.git(grgit)
+						.withTagsMatching(~/${Pattern.quote(component)}\/v?(.+)/).getInventory())
+
+		where:
+		component << ['api', 'tools/web', 'missing']
+	}
+
+	def "All tagged components are found"() {
+		expect:
+		new ComponentInventories(grgit.repository.jgit.repository).components == ['api', 'tools/web'] as Set
+	}
+
+	def "Versions tagged on parallel branches are parallel normals of their component only"() {
+		given:
+		ComponentInventories inventories = new ComponentInventories(grgit.repository.jgit.repository)
+
+		expect:
+		inventories.getInventory('api').parallelNormals*.toString() == ['1.0.1']
+		inventories.getInventory('tools/web').parallelNormals.empty
+	}
+
+	def "Components of the same repository share a scan"() {
+		given:
+		SharedInventories shared = new SharedInventories()
+
+		when:
+		VcsInventory api = shared.share(VcsInventories.gitComponent(grgit, 'api')).inventory
+		VcsInventory tools = shared.share(VcsInventories.gitComponent(grgit, 'tools/web')).inventory
+
+		then:
+		shared.size() == 1
+		api.baseNormal.toString() == '1.0.0'
+		tools.baseNormal.toString() == '0.1.0'
+	}
+
+}
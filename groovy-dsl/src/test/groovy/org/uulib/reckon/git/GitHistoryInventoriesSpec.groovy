@@ -0,0 +1,124 @@
+package org.uulib.reckon.git
+
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.reckon.core.VcsInventory
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.CommitVersion
+import org.uulib.reckon.dsl.Reckon
+import org.uulib.reckon.dsl.VcsInventories
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fieldsExceptParallelNormals
+
+class GitHistoryInventoriesSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	Grgit grgit
+
+	Map<String, String> commits = [:]
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit('root')
+		grgit.tag.add(name: 'v1.0.0')
+		commit('work')
+		grgit.checkout(branch: 'release', createBranch: true)
+		commit('release')
+		grgit.tag.add(name: 'v1.1.0')
+		grgit.checkout(branch: 'master')
+		commit('parallel')
+		commit('more')
+		grgit.merge(head: 'release', mode: 'create-commit')
+		commits['merge'] = grgit.head().id
+		commit('after')
+		grgit.tag.add(name: 'v1.2.0-beta.1')
+	}
+
+	def cleanup() {
+		grgit.close()
+	}
+
+	private void commit(String message) {
+		TestRepositories.commit(grgit, message)
+		commits[message] = grgit.head().id
+	}
+
+	private List<VcsInventory> history(String since, String until) {
+		Stream<VcsInventory> history = VcsInventories.git(grgit).history().inventories(since, until)
+		try {
+			return history.collect(Collectors.toList())
+		} finally {
+			history.close()
+		}
+	}
+
+	def "Each commit's inventory is the same as when it is checked out"() {
+		when:
+		List<VcsInventory> history = history(null, 'master')
+
+		then:
+		history.size() == commits.size()
+		history.every { VcsInventory inventory ->
+			grgit.checkout(branch: inventory.commitId)
+			fieldsExceptParallelNormals(inventory) ==
+					fieldsExceptParallelNormals(VcsInventories.git(grgit).getInventory())
+		}
+	}
+
+	def "Parents are inventoried before their children"() {
+		when:
+		List<String> ids = history(null, 'master')*.commitId
+
+		then:
+		ids.first() == commits['root']
+		ids.indexOf(commits['work']) < ids.indexOf(commits['release'])
+		ids.indexOf(commits['more']) < ids.indexOf(commits['merge'])
+		ids.indexOf(commits['release']) < ids.indexOf(commits['merge'])
+		ids.last() == commits['after']
+	}
+
+	def "Versions tagged on parallel branches are parallel normals"() {
+		when:
+		Map<String, VcsInventory> history = history(null, 'master').collectEntries { [it.commitId, it] }
+
+		then:
+		history[commits['parallel']].parallelNormals*.toString() == ['1.1.0']
+		history[commits['more']].parallelNormals*.toString() == ['1.1.0']
+		history[commits['work']].parallelNormals.empty
+		history[commits['merge']].parallelNormals.empty
+	}
+
+	def "History reachable from the since revision is excluded"() {
+		expect:
+		history('release', 'master')*.commitId == ['parallel', 'more', 'merge', 'after'].collect { commits[it] }
+	}
+
+	def "Versions are reckoned for each commit"() {
+		when:
+		Stream<CommitVersion> history = Reckon.reckonHistory({
+			vcs = git(grgit)
+			normalVersion = scopedUsing('minor')
+			preReleaseVersion = 'beta'
+		}, 'release', 'master')
+		Map<String, String> versions
+		try {
+			versions = history.collect(Collectors.toMap({ it.commitId }, { it.version.get().toString() }))
+		} finally {
+			history.close()
+		}
+
+		then:
+		versions == [
+			(commits['parallel']): '1.1.0-beta',
+			(commits['more']): '1.1.0-beta',
+			(commits['merge']): '1.2.0-beta',
+			(commits['after']): '1.2.0-beta',
+		]
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.reckon.core.VcsInventory
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier
+import org.uulib.reckon.dsl.VcsInventories
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fields
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class InventoryCacheSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	Grgit grgit
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'v1.0.0')
+		commit(grgit, 'Some more work')
+		grgit.tag.add(name: 'v1.1.0-rc.1')
+	}
+
+	def cleanup() {
+		grgit.close()
+	}
+
+	private ConfigurableGitInventorySupplier supplier() {
+		VcsInventories.git(grgit).withPersistentCache()
+	}
+
+	def "A cached inventory is identical to a freshly computed one"() {
+		when:
+		VcsInventory first = supplier().getInventory()
+		VcsInventory second = supplier().getInventory()
+
+		then:
+		fields(second) == fields(first)
+		fields(second) == fields(VcsInventories.git(grgit).getInventory())
+	}
+
+	def "The cache is stored in the git directory"() {
+		when:
+		supplier().getInventory()
+
+		then:
+		new File(projectDir.root, '.git/reckon/inventories').listFiles().any { it.name.endsWith('.inventory') }
+	}
+
+	def "New tags and commits produce a new inventory"() {
+		given:
+		supplier().getInventory()
+
+		when:
+		grgit.tag.add(name: 'v1.1.0-rc.2')
+		VcsInventory retagged = supplier().getInventory()
+
+		then:
+		retagged.currentVersion.get().toString() == '1.1.0-rc.2'
+
+		when:
+		commit(grgit, 'Yet more work')
+		VcsInventory recommitted = supplier().getInventory()
+
+		then:
+		!recommitted.currentVersion.present
+		recommitted.commitId == grgit.head().id
+	}
+
+	def "Differently-selected tags are cached separately"() {
+		given:
+		grgit.tag.add(name: 'other-3.0.0')
+		supplier().getInventory()
+
+		expect:
+		supplier().withTagsMatching(~/other-(.+)/).getInventory().baseNormal.toString() == '3.0.0'
+	}
+
+	def "Unreadable cache entries are ignored"() {
+		given:
+		VcsInventory expected = supplier().getInventory()
+		new File(projectDir.root, '.git/reckon/inventories').listFiles().each { it.text = 'garbage' }
+
+		expect:
+		fields(supplier().getInventory()) == fields(expected)
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.reckon.core.VcsInventory
+import org.ajoberstar.reckon.core.git.GitInventorySupplier
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.revwalk.RevWalk
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fields
+
+class ParallelWalksSpec extends Specification {
+
+	@Rule TemporaryFolder dir = new TemporaryFolder()
+
+	private Repository generate(boolean packed) {
+		new RepositoryGenerator(11)
+				.setCommits(400)
+				.setBranches(60)
+				.setMergedBranchRatio(0.3)
+				.setTags(300)
+				.setPackedObjects(packed)
+				.setBitmaps(packed)
+				.generate(new File(dir.root, 'repo.git'))
+	}
+
+	def "Results are in the same order as the items, whichever threads evaluate them"() {
+		given:
+		Repository repository = generate(false)
+		RevWalk walk = new RevWalk(repository)
+		List<ObjectId> tagged = repository.refDatabase.getRefs(Constants.R_TAGS).values()
+				.collect { repository.peel(it).peeledObjectId ?: it.objectId }
+		Set<String> threads = Collections.synchronizedSet(new HashSet<>())
+
+		when:
+		List<String> serial = ParallelWalks.map(repository, walk, tagged, 1) { w, id -> w.parseAny(id).name() }
+		List<String> parallel = ParallelWalks.map(repository, walk, tagged, 4) { w, id ->
+			threads << Thread.currentThread().name
+			w.parseAny(id).name()
+		}
+
+		then:
+		serial == tagged*.name()
+		parallel == serial
+		!threads.contains(Thread.currentThread().name)
+
+		cleanup:
+		walk.close()
+		repository.close()
+	}
+
+	def "Failures to read the repository are rethrown"() {
+		given:
+		Repository repository = generate(false)
+		RevWalk walk = new RevWalk(repository)
+
+		when:
+		ParallelWalks.map(repository, walk, (1..100).toList(), 4) { w, i ->
+			if(i==50) {
+				throw new IOException('Unreadable')
+			}
+			i
+		}
+
+		then:
+		IOException e = thrown()
+		e.message == 'Unreadable'
+
+		cleanup:
+		walk.close()
+		repository.close()
+	}
+
+	@Unroll
+	def "Inventories scanned in parallel are the same as those scanned serially (packed: #packed)"(boolean packed) {
+		given:
+		Repository repository = generate(packed)
+		VcsInventory serial = new GitInventorySupplier(repository, TagSelector.DEFAULT).inventory
+
+		expect:
+		fields(ShallowInventory.scan(repository, TagSelector.DEFAULT, 4).inventory) == fields(serial)
+		fields(new ConfigurableGitInventorySupplier(repository).withParallelism(4).inventory) == fields(serial)
+
+		cleanup:
+		repository.close()
+
+		where:
+		packed << [false, true]
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.reckon.core.git.GitInventorySupplier
+import org.eclipse.jgit.lib.CommitBuilder
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectInserter
+import org.eclipse.jgit.lib.PersonIdent
+import org.eclipse.jgit.lib.RefUpdate
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.revwalk.RevCommit
+import org.eclipse.jgit.revwalk.RevWalk
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.ConfigurableGitInventorySupplier
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fields
+
+class ReachabilitySpec extends Specification {
+
+	@Rule TemporaryFolder dir = new TemporaryFolder()
+
+	private Repository generate(boolean bitmaps, int commitsSincePacking) {
+		Repository repository = new RepositoryGenerator(7)
+				.setCommits(500)
+				.setBranches(10)
+				.setTags(50)
+				.setPackedObjects(true)
+				.setBitmaps(bitmaps)
+				.generate(new File(dir.root, 'repo.git'))
+		commitOnHead(repository, commitsSincePacking)
+		return repository
+	}
+
+	private static void commitOnHead(Repository repository, int count) {
+		PersonIdent ident = new PersonIdent('Mr Blobby', 'blobby@noelshouseparty.tv')
+		ObjectInserter inserter = repository.newObjectInserter()
+		RevWalk walk = new RevWalk(repository)
+		try {
+			ObjectId head = repository.resolve(Constants.HEAD)
+			for(int i=0; i<count; ++i) {
+				CommitBuilder commit = new CommitBuilder()
+				commit.treeId = walk.parseCommit(head).tree
+				commit.setParentId(head)
+				commit.author = ident
+				commit.committer = ident
+				commit.message = "Unpacked commit ${i}"
+				head = inserter.insert(commit)
+			}
+			inserter.flush()
+			RefUpdate update = repository.updateRef(Constants.R_HEADS + Constants.MASTER)
+			update.newObjectId = head
+			update.forceUpdate()
+		} finally {
+			walk.close()
+			inserter.close()
+		}
+	}
+
+	@Unroll
+	def "Bitmaps give the same reachability and commit counts as walking, with #unpacked commits since packing"(
+			int unpacked) {
+		given:
+		Repository repository = generate(true, unpacked)
+		RevWalk bitmapWalk = new RevWalk(repository)
+		RevWalk plainWalk = new RevWalk(repository)
+
+		when:
+		RevCommit head = bitmapWalk.parseCommit(repository.resolve(Constants.HEAD))
+		Reachability bitmapped = Reachability.from(repository, bitmapWalk, head, true)
+		long walkedFromHead = bitmapped.commitsWalked
+		Reachability walked = Reachability.from(repository, plainWalk,
+				plainWalk.parseCommit(repository.resolve(Constants.HEAD)), false)
+		List<TaggedVersion> tags = TaggedVersion.read(repository, bitmapWalk, TagSelector.DEFAULT)
+		List<RevCommit> plainTags = tags.collect { plainWalk.parseCommit(it.commit) }
+
+		then:
+		Reachability.hasBitmaps(repository)
+		tags.collect { bitmapped.isReachable(it.commit) } == plainTags.collect { walked.isReachable(it) }
+		tags.findAll { bitmapped.isReachable(it.commit) }.size() > 0
+		[tags*.commit, plainTags].transpose().findAll { bitmapped.isReachable(it[0]) }
+				.every { bitmapped.commitsSince(it[0]) == walked.commitsSince(it[1]) }
+		bitmapped.commitsSince(null) == walked.commitsSince(null)
+		walkedFromHead == unpacked
+		walked.commitsWalked > 400
+
+		cleanup:
+		bitmapWalk.close()
+		plainWalk.close()
+		repository.close()
+
+		where:
+		unpacked << [0, 3]
+	}
+
+	def "Bitmaps count the commits since a base by walking only those commits"() {
+		given:
+		Repository repository = generate(true, 3)
+		RevWalk walk = new RevWalk(repository)
+		RevCommit head = walk.parseCommit(repository.resolve(Constants.HEAD))
+		Reachability bitmapped = Reachability.from(repository, walk, head, true)
+		List<RevCommit> reachable = TaggedVersion.read(repository, walk, TagSelector.DEFAULT)*.commit
+				.findAll { bitmapped.isReachable(it) }
+		reachable.each { bitmapped.anyReachableSince(it, []) } // Finds the bases' own bitmaps
+
+		when:
+		long before = bitmapped.commitsWalked
+		List<Integer> counts = reachable.collect { bitmapped.commitsSince(it) }
+
+		then:
+		bitmapped.commitsWalked - before == counts.sum()
+
+		cleanup:
+		walk.close()
+		repository.close()
+	}
+
+	def "Bitmaps aren't used if the repository doesn't have them"() {
+		given:
+		Repository repository = generate(false, 0)
+
+		expect:
+		!Reachability.hasBitmaps(repository)
+
+		cleanup:
+		repository.close()
+	}
+
+	@Unroll
+	def "Inventories computed with bitmaps are the same as those computed without them (#unpacked unpacked commits)"(
+			int unpacked) {
+		given:
+		Repository repository = generate(true, unpacked)
+
+		expect:
+		fields(new ConfigurableGitInventorySupplier(repository).inventory) ==
+				fields(new GitInventorySupplier(repository, TagSelector.DEFAULT).inventory)
+
+		cleanup:
+		repository.close()
+
+		where:
+		unpacked << [0, 3]
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.reckon.core.NormalStrategy
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.Reckoner
+import org.uulib.reckon.ReckoningListeners
+import org.uulib.reckon.ReckoningMetrics
+import org.uulib.reckon.ReckoningListener.Phase
+import org.uulib.reckon.dsl.VcsInventories
+import org.uulib.reckon.strategy.CompoundPreReleaseStrategy
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class ReckoningMetricsSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	Grgit grgit
+
+	ReckoningMetrics metrics = new ReckoningMetrics()
+	ReckoningListeners.Registration registration
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'v1.0.0')
+		grgit.tag.add(name: 'not-a-version')
+		commit(grgit, 'More code')
+		grgit.tag.add(name: 'api/v0.1.0')
+		registration = ReckoningListeners.register(metrics)
+	}
+
+	def cleanup() {
+		registration.close()
+		grgit.close()
+	}
+
+	def "Every phase of reckoning a version is reported"() {
+		when:
+		Reckoner.reckon(VcsInventories.git(grgit), { Version.valueOf('1.1.0') } as NormalStrategy,
+				CompoundPreReleaseStrategy.builder().build())
+
+		then:
+		Phase.values().findAll { metrics.getCount(it)!=1 } == []
+		metrics.scans == 1
+		metrics.tagsScanned == 3
+		metrics.tagsRejected == 2
+		metrics.claimedVersions == 1
+		metrics.summary().startsWith('versions reckoned: 1; ')
+	}
+
+	def "Scans of components report the commits walked"() {
+		when:
+		new ComponentInventories(grgit.repository.jgit.repository).components
+
+		then:
+		metrics.getCount(Phase.REF_ENUMERATION) == 1
+		metrics.getCount(Phase.HISTORY_WALK) == 1
+		metrics.tagsScanned == 3
+		metrics.tagsRejected == 2
+		metrics.commitsWalked == 2
+		metrics.claimedVersions == 1
+	}
+
+	def "Scans of possibly shallow clones report the commits walked"() {
+		when:
+		ShallowInventory.scan(grgit.repository.jgit.repository, TagSelector.DEFAULT)
+
+		then:
+		metrics.getCount(Phase.REF_ENUMERATION) == 1
+		metrics.getCount(Phase.HISTORY_WALK) == 1
+		metrics.tagsScanned == 3
+		metrics.tagsRejected == 2
+		metrics.commitsWalked == 2
+		metrics.claimedVersions == 1
+	}
+
+	def "Listeners are not notified once their registration is closed"() {
+		when:
+		registration.close()
+		ReckoningListeners.phaseCompleted(Phase.NORMAL, 1000)
+
+		then:
+		metrics.getCount(Phase.NORMAL) == 0
+	}
+
+}
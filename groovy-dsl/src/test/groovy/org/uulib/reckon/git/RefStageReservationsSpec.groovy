@@ -0,0 +1,136 @@
+package org.uulib.reckon.git
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import org.eclipse.jgit.api.Git
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.VcsInventoryBuilder
+import org.uulib.reckon.strategy.NumberedStagePreReleasePartStrategy
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+class RefStageReservationsSpec extends Specification {
+
+	@Shared Version normal = Version.valueOf('1.2.3')
+	@Shared Instant now = Instant.parse('2017-11-04T12:00:00Z')
+
+	@Rule TemporaryFolder dir = new TemporaryFolder()
+	Repository repository
+
+	def setup() {
+		Git.init().setBare(true).setDirectory(dir.root).call().close()
+		repository = open()
+	}
+
+	def cleanup() {
+		repository.close()
+	}
+
+	private Repository open() {
+		new FileRepositoryBuilder().setGitDir(dir.root).setMustExist(true).build()
+	}
+
+	private RefStageReservations reservations(Repository repository = this.repository, Duration elapsed = Duration.ZERO) {
+		new RefStageReservations(repository, Duration.ofMinutes(10), Clock.fixed(now + elapsed, ZoneId.of('UTC')))
+	}
+
+	def "Concurrent reservations of the same stage are given distinct numbers"() {
+		given:
+		int builds = 16
+		ExecutorService executor = Executors.newFixedThreadPool(builds)
+		List<Repository> repositories = (1..builds).collect { open() }
+
+		when:
+		List<BigInteger> reserved = (1..builds).collect { int build ->
+			executor.submit({
+				reservations(repositories[build - 1]).reserve(normal, 'rc', 7G, "commit${build}")
+			} as Callable<BigInteger>)
+		}*.get()
+
+		then:
+		reserved.sort() == (7G..<(7G + builds)).toList()
+		repository.refDatabase.getRefs(RefStageReservations.REF_PREFIX + '1.2.3-rc/').size() == builds
+
+		cleanup:
+		executor.shutdown()
+		repositories*.close()
+	}
+
+	def "An owner reserving again while its lease is held is given the same number"() {
+		when:
+		BigInteger first = reservations().reserve(normal, 'rc', 1G, 'abc')
+		BigInteger other = reservations().reserve(normal, 'rc', 1G, 'def')
+		BigInteger again = reservations().reserve(normal, 'rc', 1G, 'abc')
+		BigInteger unowned = reservations().reserve(normal, 'rc', 1G, null)
+
+		then:
+		first==1G
+		other==2G
+		again==1G
+		unowned==3G
+	}
+
+	def "Numbers are reserved separately for each normal version and stage"() {
+		expect:
+		reservations().reserve(normal, 'rc', 1G, 'abc') == 1G
+		reservations().reserve(normal, 'beta', 1G, 'def') == 1G
+		reservations().reserve(normal, '', 1G, 'ghi') == 1G
+		reservations().reserve(Version.valueOf('1.2.4'), 'rc', 1G, 'jkl') == 1G
+	}
+
+	def "Numbers whose leases have expired can be reserved again"() {
+		given:
+		reservations().reserve(normal, 'rc', 1G, 'abc')
+
+		expect:
+		reservations(repository, Duration.ofMinutes(9)).reserve(normal, 'rc', 1G, 'def') == 2G
+		reservations(repository, Duration.ofMinutes(11)).reserve(normal, 'rc', 1G, 'ghi') == 1G
+	}
+
+	def "Reservations of numbers that have been tagged are deleted"() {
+		given:
+		reservations().reserve(normal, 'rc', 1G, 'abc')
+		reservations().reserve(normal, 'rc', 1G, 'def')
+
+		when:
+		BigInteger reserved = reservations().reserve(normal, 'rc', 3G, 'ghi')
+
+		then:
+		reserved==3G
+		repository.refDatabase.getRefs(RefStageReservations.REF_PREFIX + '1.2.3-rc/').keySet() == ['3'] as Set
+	}
+
+	def "Stages that can't be ref names are rejected"() {
+		when:
+		reservations().reserve(normal, 'rc..1', 1G, 'abc')
+
+		then:
+		thrown(IllegalArgumentException)
+	}
+
+	def "Numbered stages reserve their numbers for the commit being reckoned"() {
+		given:
+		NumberedStagePreReleasePartStrategy strategy = NumberedStagePreReleasePartStrategy.forStage('rc')
+				.withReservations(reservations())
+		def inventory = { String commit ->
+			new VcsInventoryBuilder().setCommitId(commit).addClaimedVersions('1.2.3-rc.1', '1.2.3-rc.2').build()
+		}
+
+		expect:
+		strategy.reckonPreRelease(inventory('abc'), normal).get() == 'rc.3'
+		strategy.reckonPreRelease(inventory('def'), normal).get() == 'rc.4'
+		strategy.reckonPreRelease(inventory('abc'), normal).get() == 'rc.3'
+	}
+
+}
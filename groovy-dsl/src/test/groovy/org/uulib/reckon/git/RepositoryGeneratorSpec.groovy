@@ -0,0 +1,68 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.reckon.core.VcsInventory
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.revwalk.RevWalk
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.VcsInventories
+
+import spock.lang.*
+
+class RepositoryGeneratorSpec extends Specification {
+
+	@Rule TemporaryFolder dir = new TemporaryFolder()
+
+	@Unroll
+	def "Repositories are generated with the requested shape (packed refs: #packedRefs, packed objects: #packedObjects)"(
+			boolean packedRefs, boolean packedObjects) {
+		given:
+		File gitDir = new File(dir.root, 'repo.git')
+		new RepositoryGenerator(1)
+				.setCommits(200)
+				.setBranches(5)
+				.setCommitsPerBranch(4)
+				.setTags(20)
+				.setPackedRefs(packedRefs)
+				.setPackedObjects(packedObjects)
+				.generate(gitDir)
+				.close()
+
+		when:
+		CountingRepository repository = new CountingRepository(gitDir)
+		int commits = 0
+		RevWalk walk = new RevWalk(repository)
+		try {
+			walk.markStart(repository.refDatabase.getRefs(Constants.R_HEADS).values()
+					.collect { walk.parseCommit(it.objectId) })
+			commits = walk.iterator().size()
+		} finally {
+			walk.close()
+		}
+
+		then:
+		commits == 200
+		repository.refDatabase.getRefs(Constants.R_TAGS).size() == 20
+		repository.refDatabase.getRefs(Constants.R_HEADS).size() == 6
+		new File(gitDir, 'packed-refs').exists() == packedRefs
+		new File(gitDir, 'objects/pack').list().any { it.endsWith('.pack') } == packedObjects
+		repository.commitsRead >= 200
+
+		when:
+		repository.resetCounts()
+		VcsInventory inventory = VcsInventories.git(repository).getInventory()
+
+		then:
+		inventory.claimedVersions.size() > 0
+		repository.commitsRead > 0
+
+		cleanup:
+		repository?.close()
+
+		where:
+		packedRefs | packedObjects
+		false      | false
+		true       | true
+	}
+
+}
@@ -0,0 +1,172 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.grgit.Commit
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.reckon.core.VcsInventory
+import org.eclipse.jgit.lib.Repository
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.ReckoningListener
+import org.uulib.reckon.ReckoningListeners
+import org.uulib.reckon.dsl.VcsInventories
+
+import spock.lang.*
+
+import static org.uulib.reckon.InventoryFields.fields
+
+class ShallowInventorySpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+	@Rule TemporaryFolder cacheDir = new TemporaryFolder()
+	Grgit grgit
+	List<Commit> commits = []
+
+	def setup() {
+		grgit = TestRepositories.init(projectDir.root)
+		commit('Initial commit')
+		grgit.tag.add(name: 'v1.0.0')
+		commit('A feature')
+		grgit.tag.add(name: 'v1.1.0')
+		commit('A fix')
+		commit('Another fix')
+	}
+
+	def cleanup() {
+		grgit.close()
+	}
+
+	private void commit(String message) {
+		commits << TestRepositories.commit(grgit, message)
+	}
+
+	private Repository getRepository() {
+		grgit.repository.jgit.repository
+	}
+
+	/**
+	 * Makes the repository look like a shallow clone of the given depth. The commits beyond the boundary are still
+	 * present, as they would be after fetching with a greater depth and then shallowing it.
+	 */
+	private void shallowTo(int depth) {
+		new File(repository.directory, 'shallow').text = commits[commits.size() - depth].id + '\n'
+	}
+
+	/**
+	 * Adds a tag on a commit that hasn't been fetched, as a tag fetched without its history would be.
+	 */
+	private void tagMissingCommit(String name) {
+		new File(repository.directory, "refs/tags/${name}").text = '0123456789abcdef0123456789abcdef01234567\n'
+	}
+
+	def "The inventory of a complete clone is exact and the same as when scanned normally"() {
+		when:
+		ShallowInventory shallow = ShallowInventory.scan(repository, TagSelector.DEFAULT)
+
+		then:
+		!shallow.shallow
+		!shallow.approximate
+		fields(shallow.inventory) == fields(VcsInventories.git(grgit).inventory)
+	}
+
+	def "The inventory is exact if the base normal is within the shallow boundary"() {
+		given:
+		shallowTo(3)
+
+		when:
+		ShallowInventory shallow = ShallowInventory.scan(repository, TagSelector.DEFAULT)
+
+		then:
+		shallow.shallow
+		!shallow.approximate
+		shallow.inventory.baseNormal.toString() == '1.1.0'
+		shallow.inventory.commitsSinceBase == 2
+		shallow.inventory.claimedVersions*.toString() as Set == ['1.0.0', '1.1.0'] as Set
+	}
+
+	def "Commits are only counted up to the shallow boundary, making the inventory approximate"() {
+		given:
+		shallowTo(2)
+
+		when:
+		ShallowInventory shallow = ShallowInventory.scan(repository, TagSelector.DEFAULT)
+
+		then:
+		shallow.approximate
+		shallow.approximations.any { it.contains('only counted up to the shallow boundary') }
+		shallow.inventory.baseNormal.toString() == '0.0.0'
+		shallow.inventory.commitsSinceBase == 2
+	}
+
+	def "Versions tagged beyond the shallow boundary are claimed, and only greater ones make it approximate"() {
+		given:
+		shallowTo(3)
+		tagMissingCommit('v1.0.1')
+		tagMissingCommit('v2.0.0')
+
+		when:
+		ShallowInventory shallow = ShallowInventory.scan(repository, TagSelector.DEFAULT)
+
+		then:
+		shallow.inventory.claimedVersions*.toString() as Set == ['1.0.0', '1.0.1', '1.1.0', '2.0.0'] as Set
+		shallow.inventory.baseNormal.toString() == '1.1.0'
+		shallow.approximations.size() == 1
+		shallow.approximations[0].contains('2.0.0')
+	}
+
+	def "Approximate inventories are reported to listeners and never cached"() {
+		given:
+		shallowTo(2)
+		List<String> approximated = []
+		ReckoningListeners.Registration registration = ReckoningListeners.register(new ReckoningListener() {
+			@Override
+			void inventoryApproximated(String commitId, List<String> approximations) {
+				approximated << commitId
+			}
+		})
+		def supplier = VcsInventories.git(grgit).withinShallowBoundary().withPersistentCache(cacheDir.root)
+
+		when:
+		supplier.inventory
+		supplier.inventory
+
+		then:
+		approximated == [grgit.head().id] * 2
+		cacheDir.root.list().length == 0
+
+		cleanup:
+		registration.close()
+	}
+
+	def "Exact inventories are cached until the shallow boundary changes"() {
+		given:
+		shallowTo(3)
+		def supplier = VcsInventories.git(grgit).withinShallowBoundary().withPersistentCache(cacheDir.root)
+
+		when:
+		VcsInventory first = supplier.inventory
+		shallowTo(4)
+		VcsInventory deepened = supplier.inventory
+
+		then:
+		fields(first) == fields(deepened)
+		cacheDir.root.list().length == 2
+	}
+
+	def "Inventories of shallow clones cached by default are scanned again once the clone is deepened"() {
+		given:
+		shallowTo(2)
+		def supplier = VcsInventories.git(grgit).withPersistentCache(cacheDir.root)
+
+		when:
+		VcsInventory shallow = supplier.inventory
+		new File(repository.directory, 'shallow').delete()
+		VcsInventory deepened = supplier.inventory
+
+		then:
+		shallow.baseNormal.toString() == '0.0.0'
+		deepened.baseNormal.toString() == '1.1.0'
+		fields(deepened) == fields(VcsInventories.git(grgit).inventory)
+		cacheDir.root.list().length == 2
+	}
+
+}
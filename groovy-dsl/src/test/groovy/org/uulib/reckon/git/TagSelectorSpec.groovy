@@ -0,0 +1,129 @@
+package org.uulib.reckon.git
+
+import java.util.function.Function
+import java.util.regex.Pattern
+
+import org.ajoberstar.grgit.Grgit
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import org.uulib.reckon.dsl.VcsInventories
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+import static org.uulib.reckon.git.TestRepositories.commit
+
+class TagSelectorSpec extends Specification {
+
+	@Rule TemporaryFolder projectDir = new TemporaryFolder()
+
+	List<String> parsed = []
+
+	/**
+	 * A parser remembering the given number of rejected strings, which records every string it parses.
+	 */
+	private TagSelector.Parser recordingParser(int capacity) {
+		return new TagSelector.Parser(capacity, { String version ->
+			parsed << version
+			return Version.valueOf(version)
+		} as Function)
+	}
+
+	@Unroll
+	def "Pattern #regex selects '#expected' from tag '#tag'"(Pattern regex, String tag, String expected) {
+		expect:
+		TagSelector.matching(regex).apply(tag).orElse(null) == expected
+
+		where:
+		regex                                | tag               || expected
+		~/v(.+)/                             | 'v1.2.3'          || '1.2.3'
+		~/v(.+)/                             | 'x1.2.3'          || null
+		~/dummy-(.+)/                        | 'dummy-1.2.3'     || '1.2.3'
+		~/(rel|v)-(?<version>.+)/            | 'rel-1.0.0-rc.1'  || '1.0.0-rc.1'
+		~/\d+\.\d+\.\d+/                     | '1.2.3'           || '1.2.3'
+		~/v?(.+)/                            | '1.2.3'           || '1.2.3'
+		~/(?i)V(.+)/                         | 'v1.2.3'          || '1.2.3'
+		~/v(.+)/                             | 'vnot-a-version'  || null
+		~/v(.*)/                             | 'v'               || null
+	}
+
+	@Unroll
+	def "The literal prefix of #regex is '#prefix'"(Pattern regex, String prefix) {
+		expect:
+		TagSelector.literalPrefix(regex) == prefix
+
+		where:
+		regex                  || prefix
+		~/v(.+)/               || 'v'
+		~/^release-(.+)/       || 'release-'
+		~/releases?-(.+)/      || 'release'
+		~/a|b/                 || ''
+		~/\d+/                 || ''
+		~/(?i)v(.+)/           || ''
+	}
+
+	def "The first matching pattern selects the version"() {
+		given:
+		TagSelector selector = TagSelector.matchingAny(~/api-(.+)/, ~/(?:api-)?v(.+)/)
+
+		expect:
+		selector.apply('api-1.0.0').get() == '1.0.0'
+		selector.apply('api-v1.0.0').get() == '1.0.0'
+		selector.apply('v2.0.0').get() == '2.0.0'
+		!selector.apply('web-1.0.0').present
+	}
+
+	def "The default selector removes a leading v"() {
+		expect:
+		TagSelector.DEFAULT.apply('v1.0.0').get() == '1.0.0'
+		TagSelector.DEFAULT.apply('1.0.0').get() == '1.0.0'
+		!TagSelector.DEFAULT.apply('latest').present
+	}
+
+	def "Scans select parsed versions"() {
+		given:
+		Function<String, Optional<Version>> selector = TagSelector.forScan(
+				TagSelector.matchingAny(~/api-(.+)/, ~/(?:api-)?v(.+)/))
+		Function<String, Optional<Version>> other = TagSelector.forScan({ Optional.of(it) } as Function)
+
+		expect:
+		selector.apply('api-v1.0.0').get() == Version.valueOf('1.0.0')
+		selector.apply('v2.0.0-rc.1+build.3').get().buildMetadata == 'build.3'
+		!selector.apply('api-latest').present
+		!selector.apply('api-latest').present
+		other.apply('1.2.3').get() == Version.valueOf('1.2.3')
+		!other.apply('latest').present
+	}
+
+	def "Later scans with the same selector don't parse the versions it has rejected again"() {
+		given:
+		Grgit grgit = TestRepositories.init(projectDir.root)
+		commit(grgit, 'Initial commit')
+		grgit.tag.add(name: 'v1.0.0')
+		grgit.tag.add(name: 'vlatest')
+		TagSelector selector = TagSelector.DEFAULT.withParser(recordingParser(10))
+
+		when:
+		2.times { VcsInventories.git(grgit).withTagsMatching(selector).getInventory() }
+
+		then:
+		parsed.count('latest') == 1
+		parsed.count('1.0.0') == 2
+
+		cleanup:
+		grgit.close()
+	}
+
+	def "Only the most recently rejected strings are remembered"() {
+		given:
+		TagSelector.Parser parser = recordingParser(2)
+
+		when:
+		['a', 'b', 'a', 'c', 'a', 'b'].each { parser.parse(it) }
+
+		then:
+		parsed == ['a', 'b', 'c', 'b']
+	}
+
+}
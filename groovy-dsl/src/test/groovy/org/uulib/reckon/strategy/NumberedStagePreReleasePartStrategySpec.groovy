@@ -0,0 +1,83 @@
+package org.uulib.reckon.strategy
+
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+import org.uulib.reckon.VcsInventoryBuilder
+
+import com.github.zafarkhaja.semver.Version
+
+import spock.lang.*
+
+class NumberedStagePreReleasePartStrategySpec extends Specification {
+
+	@Shared Pattern stageRegex = ~/^(?<name>\w+)\.(?<num>\d+)/
+
+	/**
+	 * The next number as the strategy used to find it with regular expressions, but without overflowing.
+	 */
+	private String regexNextNumber(List<String> preReleases, String stage) {
+		List<BigInteger> numbers = stage.empty
+				? preReleases.findAll { it ==~ /\d+/ }.collect { new BigInteger(it) }
+				: preReleases.collect { stageRegex.matcher(it) }
+						.findAll { Matcher m -> m.matches() && m.group('name')==stage }
+						.collect { Matcher m -> new BigInteger(m.group('num')) }
+		return ((numbers.max() ?: 0G) + 1G).toString()
+	}
+
+	@Unroll
+	def "The number after #preReleases in stage '#stage' is #expected"(List<String> preReleases, String stage,
+			String expected) {
+		expect:
+		NumberedStagePreReleasePartStrategy.nextNumber(preReleases, stage.empty ? '' : stage + '.') == expected
+		regexNextNumber(preReleases, stage) == expected
+
+		where:
+		preReleases                          | stage || expected
+		[]                                   | ''    || '1'
+		['1', '2', '10']                     | ''    || '11'
+		['rc.4', '3']                        | ''    || '4'
+		['007']                              | ''    || '8'
+		['99']                               | ''    || '100'
+		[]                                   | 'rc'  || '1'
+		['rc.1', 'rc.2', 'beta.5', 'RC.7']   | 'rc'  || '3'
+		['rc.007']                           | 'rc'  || '8'
+		['rc.007', 'rc.10']                  | 'rc'  || '11'
+		['rc.0099']                          | 'rc'  || '100'
+		['rc.1a']                            | 'rc'  || '1'
+		['rc.1a', 'rc.2']                    | 'rc'  || '3'
+		['rc.', 'rc', 'rc.-1', 'rc.1.2']     | 'rc'  || '1'
+		['rc.9']                             | 'rc'  || '10'
+		['rc.999', 'rc.1000']                | 'rc'  || '1001'
+		['rc.0']                             | 'rc'  || '1'
+		['rc.000']                           | 'rc'  || '1'
+		['rc.2147483647']                    | 'rc'  || '2147483648'
+		['rc.99999999999999999999', 'rc.5']  | 'rc'  || '100000000000000000000'
+		['18446744073709551616']             | ''    || '18446744073709551617'
+	}
+
+	@Unroll
+	def "Stage '#stage' reckons #expected when #claimed are claimed"(List<String> claimed, String stage,
+			String expected) {
+		given:
+		NumberedStagePreReleasePartStrategy strategy = NumberedStagePreReleasePartStrategy.forStage(stage)
+		List<String> preReleases = claimed.collect { Version.valueOf(it) }
+				.findAll { it.normalVersion=='1.2.0' }*.preReleaseVersion
+
+		expect:
+		strategy.reckonPreRelease(new VcsInventoryBuilder().addClaimedVersions(claimed as String[]).build(),
+				Version.valueOf('1.2.0')).get() == expected
+		expected == stage + '.' + regexNextNumber(preReleases, stage)
+
+		where:
+		claimed                              | stage   || expected
+		['1.2.0-rc.1', '1.2.0-rc.2']         | 'rc'    || 'rc.3'
+		['1.2.0-rc.1', '1.3.0-rc.5']         | 'rc'    || 'rc.2'
+		['1.2.0-pre2.4']                     | 'pre2'  || 'pre2.5'
+		['1.2.0-rc-x.1', '1.2.0-rc-x.2']     | 'rc-x'  || 'rc-x.1'
+		['1.2.0-rc.1.3', '1.2.0-rc.1']       | 'rc.1'  || 'rc.1.1'
+		['1.2.0-rc.1a', '1.2.0-rc.2']        | 'rc'    || 'rc.3'
+		['1.2.0-rc.2147483647']              | 'rc'    || 'rc.2147483648'
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.uulib.util
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+import org.uulib.util.function.ExceptionalFunction
+
+import spock.lang.*
+
+class ConfiguratorSpec extends Specification {
+
+	static class Config {
+		int id
+		String name
+	}
+
+	def "Configuring with a closure leaves the closure unchanged"() {
+		given:
+		Closure closure = { name = 'configured' }
+		Object delegate = closure.delegate
+		int strategy = closure.resolveStrategy
+
+		when:
+		String name = Configurator.<Config>using(closure)
+				.withConfigured({ new Config() }, { it.name } as ExceptionalFunction)
+
+		then:
+		name == 'configured'
+		closure.delegate.is(delegate)
+		closure.resolveStrategy == strategy
+	}
+
+	def "Composed closures configure with every part"() {
+		given:
+		Closure closure = { id = 1 } >> { name = "config ${id}" }
+
+		expect:
+		Configurator.<Config>using(closure)
+				.withConfigured({ new Config() }, { it.name } as ExceptionalFunction) == 'config 1'
+	}
+
+	def "Many objects can be configured with the same closure at once"() {
+		given:
+		int threads = 16
+		ExecutorService executor = Executors.newFixedThreadPool(threads)
+		CyclicBarrier start = new CyclicBarrier(threads)
+		Closure closure = {
+			Thread.yield()
+			name = "config ${id}"
+		}
+		Configurator<Config> configurator = Configurator.using(closure)
+
+		when:
+		List<Future<List<String>>> results = (0..<threads).collect { int thread ->
+			executor.submit({
+				start.await()
+				(0..<200).collect { int i ->
+					configurator.withConfigured({ new Config(id: thread * 1000 + i) },
+							{ "${it.id} ${it.name}".toString() } as ExceptionalFunction)
+				}
+			} as Callable<List<String>>)
+		}
+		List<String> configured = results.collectMany { it.get(30, TimeUnit.SECONDS) }
+
+		then:
+		configured.size() == threads * 200
+		configured.every { String c -> c.tokenize(' ')[0] == c.tokenize(' ')[2] }
+
+		cleanup:
+		executor.shutdownNow()
+	}
+
+}
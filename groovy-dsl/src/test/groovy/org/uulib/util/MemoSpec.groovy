@@ -0,0 +1,166 @@
+package org.uulib.util
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.uulib.util.Memo.FailurePolicy
+import org.uulib.util.function.ExceptionalSupplier
+
+import spock.lang.*
+
+class MemoSpec extends Specification {
+
+	@Shared ExecutorService executor = Executors.newFixedThreadPool(16)
+
+	def cleanupSpec() {
+		executor.shutdownNow()
+	}
+
+	private static Memo<Integer, Exception> counting(AtomicInteger calls, FailurePolicy policy,
+			Closure<Integer> body = { it }) {
+		new Memo<Integer, Exception>({ body(calls.incrementAndGet()) } as ExceptionalSupplier, policy)
+	}
+
+	def "The value is computed once however many threads need it at once"() {
+		given:
+		AtomicInteger calls = new AtomicInteger()
+		Memo<Integer, Exception> memo = counting(calls, FailurePolicy.CACHE) { Thread.sleep(20); it }
+		CyclicBarrier start = new CyclicBarrier(16)
+
+		when:
+		List<Future<Integer>> results = (1..16).collect {
+			executor.submit({ start.await(); memo.get() } as java.util.concurrent.Callable<Integer>)
+		}
+
+		then:
+		results*.get(10, TimeUnit.SECONDS) == [1] * 16
+		calls.get() == 1
+		memo.computed
+	}
+
+	def "Cached failures are replayed without computing again or changing their stack trace"() {
+		given:
+		AtomicInteger calls = new AtomicInteger()
+		Memo<Integer, Exception> memo = counting(calls, FailurePolicy.CACHE) { throw new IOException("failure $it") }
+
+		when:
+		memo.get()
+
+		then:
+		IOException first = thrown()
+
+		when:
+		StackTraceElement[] trace = first.stackTrace.clone()
+		memo.get()
+
+		then:
+		IOException replayed = thrown()
+		replayed.is(first)
+		replayed.stackTrace == trace
+		calls.get() == 1
+	}
+
+	def "Fail-fast failures are not remembered"() {
+		given:
+		AtomicInteger calls = new AtomicInteger()
+		Memo<Integer, Exception> memo = counting(calls, FailurePolicy.FAIL_FAST) {
+			if(it==1) throw new IllegalStateException()
+			it
+		}
+
+		when:
+		memo.get()
+
+		then:
+		thrown(IllegalStateException)
+
+		expect:
+		memo.get() == 2
+		memo.get() == 2
+	}
+
+	def "Failures are retried once the backoff has elapsed"() {
+		given:
+		AtomicInteger calls = new AtomicInteger()
+		Memo<Integer, Exception> memo = counting(calls,
+				FailurePolicy.retryWithBackoff(Duration.ofMillis(100), Duration.ofSeconds(1))) {
+			if(it==1) throw new IllegalStateException()
+			it
+		}
+
+		when:
+		memo.get()
+
+		then:
+		thrown(IllegalStateException)
+
+		when:
+		memo.get()
+
+		then:
+		thrown(IllegalStateException)
+		calls.get() == 1
+
+		when:
+		Thread.sleep(150)
+
+		then:
+		memo.get() == 2
+	}
+
+	def "Invalidation discards the value"() {
+		given:
+		AtomicInteger calls = new AtomicInteger()
+		Memo<Integer, Exception> memo = counting(calls, FailurePolicy.CACHE)
+
+		expect:
+		memo.get() == 1
+
+		when:
+		memo.invalidate()
+
+		then:
+		!memo.computed
+		memo.get() == 2
+	}
+
+	def "No thread sees a value computed before the last invalidation it observed"() {
+		given:
+		AtomicInteger generation = new AtomicInteger()
+		AtomicInteger invalidated = new AtomicInteger()
+		Memo<Integer, Exception> memo = new Memo<Integer, Exception>(
+				{ generation.get() } as ExceptionalSupplier, FailurePolicy.CACHE)
+		CountDownLatch done = new CountDownLatch(1)
+		AtomicInteger stale = new AtomicInteger()
+
+		when:
+		List<Future<?>> readers = (1..8).collect {
+			executor.submit({
+				while(done.count > 0) {
+					int before = invalidated.get()
+					if(memo.get() < before) {
+						stale.incrementAndGet()
+					}
+				}
+			} as Runnable)
+		}
+		for(i in 1..10_000) {
+			int current = generation.incrementAndGet()
+			memo.invalidate()
+			invalidated.set(current)
+		}
+		done.countDown()
+		readers*.get(10, TimeUnit.SECONDS)
+
+		then:
+		stale.get() == 0
+		memo.get() == generation.get()
+	}
+
+}
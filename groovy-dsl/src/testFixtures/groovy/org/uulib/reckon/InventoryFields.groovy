@@ -0,0 +1,29 @@
+package org.uulib.reckon
+
+import org.ajoberstar.reckon.core.VcsInventory
+
+/**
+ * Lists the fields of inventories, as {@link VcsInventory} has no {@code equals}, so that specs can compare them.
+ */
+final class InventoryFields {
+
+	private InventoryFields() {}
+
+	/**
+	 * @param i The inventory.
+	 * @return All of the inventory's fields.
+	 */
+	static List<Object> fields(VcsInventory i) {
+		[i.commitId, i.currentVersion, i.baseVersion, i.baseNormal, i.commitsSinceBase, i.parallelNormals,
+				i.claimedVersions]
+	}
+
+	/**
+	 * @param i The inventory.
+	 * @return The inventory's fields other than its parallel normals, for inventories that only report some of them.
+	 */
+	static List<Object> fieldsExceptParallelNormals(VcsInventory i) {
+		[i.commitId, i.currentVersion, i.baseVersion, i.baseNormal, i.commitsSinceBase, i.claimedVersions]
+	}
+
+}
@@ -0,0 +1,39 @@
+package org.uulib.reckon.git
+
+import org.ajoberstar.grgit.Commit
+import org.ajoberstar.grgit.Grgit
+import org.ajoberstar.grgit.Person
+
+/**
+ * Creates git repositories for specs, whose commits are all made by the same person so that they are reproducible.
+ */
+final class TestRepositories {
+
+	static final Person MR_BLOBBY = new Person(name: 'Mr Blobby', email: 'blobby@noelshouseparty.tv')
+
+	private TestRepositories() {}
+
+	/**
+	 * Initialises an empty repository.
+	 *
+	 * @param dir The repository's working tree.
+	 * @return The repository, which must be closed.
+	 */
+	static Grgit init(File dir) {
+		Grgit.init(dir: dir)
+	}
+
+	/**
+	 * Commits a new file to a repository.
+	 *
+	 * @param grgit The repository.
+	 * @param message The commit message, which is also the content of the new file.
+	 * @return The commit.
+	 */
+	static Commit commit(Grgit grgit, String message) {
+		File.createTempFile('commit', '.txt', grgit.repository.rootDir) << message
+		grgit.add(patterns: ['.'])
+		grgit.commit(author: MR_BLOBBY, committer: MR_BLOBBY, message: message)
+	}
+
+}
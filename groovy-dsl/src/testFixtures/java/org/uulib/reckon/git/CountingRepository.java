@@ -0,0 +1,78 @@
+package org.uulib.reckon.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+
+/**
+ * A repository that counts the objects read from it, so that the amount of history an operation walks can be
+ * measured.
+ */
+public class CountingRepository extends FileRepository {
+
+	private final AtomicLong commitsRead = new AtomicLong();
+	private final AtomicLong objectsRead = new AtomicLong();
+
+	public CountingRepository(File gitDir) throws IOException {
+		super(gitDir);
+	}
+
+	/**
+	 * @return The number of commits read since this repository was opened or last {@linkplain #resetCounts() reset}.
+	 */
+	public long getCommitsRead() {
+		return commitsRead.get();
+	}
+
+	/**
+	 * @return The number of objects of any type read since this repository was opened or last
+	 *         {@linkplain #resetCounts() reset}.
+	 */
+	public long getObjectsRead() {
+		return objectsRead.get();
+	}
+
+	public void resetCounts() {
+		commitsRead.set(0);
+		objectsRead.set(0);
+	}
+
+	@Override
+	public ObjectReader newObjectReader() {
+		ObjectReader reader = super.newObjectReader();
+		return new ObjectReader.Filter() {
+			@Override
+			protected ObjectReader delegate() {
+				return reader;
+			}
+
+			@Override
+			public ObjectLoader open(AnyObjectId objectId) throws MissingObjectException, IOException {
+				return count(reader.open(objectId));
+			}
+
+			@Override
+			public ObjectLoader open(AnyObjectId objectId, int typeHint)
+					throws MissingObjectException, IncorrectObjectTypeException, IOException {
+				return count(reader.open(objectId, typeHint));
+			}
+		};
+	}
+
+	private ObjectLoader count(ObjectLoader loader) {
+		objectsRead.incrementAndGet();
+		if(loader.getType()==Constants.OBJ_COMMIT) {
+			commitsRead.incrementAndGet();
+		}
+		return loader;
+	}
+
+}
@@ -0,0 +1,277 @@
+package org.uulib.reckon.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.storage.pack.PackConfig;
+
+/**
+ * Generates synthetic git repositories of any size, for benchmarking and testing inventory scans. Generation is
+ * deterministic for a given seed, and writes objects directly rather than through a working tree, so that large
+ * repositories can be generated quickly.
+ * <p>
+ * Each repository has a main line of history on {@code master}, which {@code HEAD} points at. Branches fork from
+ * random commits of the main line, and are either merged back into it or left as parallel lines of development.
+ * Tags are spread randomly over all commits, and their versions increase in the order the commits were made: every
+ * fourth is a normal version, and the rest are release candidates of the next normal version.
+ */
+public class RepositoryGenerator {
+
+	private static final long START_TIME = 1514764800000L; // 2018-01-01
+
+	private final Random random;
+	private int commits = 1000;
+	private int branches = 10;
+	private int commitsPerBranch = 10;
+	private double mergedBranchRatio = 0.5;
+	private int tags = 100;
+	private double annotatedTagRatio = 0.5;
+	private double nonVersionTagRatio = 0.1;
+	private boolean packedRefs = false;
+	private boolean packedObjects = false;
+	private boolean bitmaps = false;
+
+	public RepositoryGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @param commits The total number of commits, including those on branches.
+	 */
+	public RepositoryGenerator setCommits(int commits) {
+		assert commits > 0;
+		this.commits = commits;
+		return this;
+	}
+
+	public RepositoryGenerator setBranches(int branches) {
+		assert branches >= 0;
+		this.branches = branches;
+		return this;
+	}
+
+	public RepositoryGenerator setCommitsPerBranch(int commitsPerBranch) {
+		assert commitsPerBranch > 0;
+		this.commitsPerBranch = commitsPerBranch;
+		return this;
+	}
+
+	public RepositoryGenerator setMergedBranchRatio(double mergedBranchRatio) {
+		this.mergedBranchRatio = mergedBranchRatio;
+		return this;
+	}
+
+	public RepositoryGenerator setTags(int tags) {
+		assert tags >= 0;
+		this.tags = tags;
+		return this;
+	}
+
+	public RepositoryGenerator setAnnotatedTagRatio(double annotatedTagRatio) {
+		this.annotatedTagRatio = annotatedTagRatio;
+		return this;
+	}
+
+	public RepositoryGenerator setNonVersionTagRatio(double nonVersionTagRatio) {
+		this.nonVersionTagRatio = nonVersionTagRatio;
+		return this;
+	}
+
+	/**
+	 * @param packedRefs Whether to pack the branches and tags into {@code packed-refs}, rather than leaving each as
+	 *                   a loose file.
+	 */
+	public RepositoryGenerator setPackedRefs(boolean packedRefs) {
+		this.packedRefs = packedRefs;
+		return this;
+	}
+
+	/**
+	 * @param packedObjects Whether to pack the objects into a pack file, rather than leaving each as a loose file.
+	 */
+	public RepositoryGenerator setPackedObjects(boolean packedObjects) {
+		this.packedObjects = packedObjects;
+		return this;
+	}
+
+	/**
+	 * @param bitmaps Whether to write reachability bitmaps when packing the objects.
+	 */
+	public RepositoryGenerator setBitmaps(boolean bitmaps) {
+		this.bitmaps = bitmaps;
+		return this;
+	}
+
+	/**
+	 * Generates a bare repository.
+	 *
+	 * @param directory The git directory to create the repository in.
+	 * @return The repository, which the caller must close.
+	 * @throws IOException If the repository cannot be written.
+	 */
+	public Repository generate(File directory) throws IOException {
+		FileRepository repository = new FileRepository(directory);
+		try {
+			repository.create(true);
+			try(ObjectInserter inserter = repository.newObjectInserter()) {
+				new Generation(repository, inserter).run();
+				inserter.flush();
+			}
+			if(packedObjects) {
+				GC gc = new GC(repository);
+				PackConfig packConfig = new PackConfig(repository);
+				packConfig.setBuildBitmaps(bitmaps);
+				gc.setPackConfig(packConfig);
+				gc.repack();
+				gc.prunePacked();
+			}
+			if(packedRefs) {
+				new GC(repository).packRefs();
+			}
+			return repository;
+		} catch (IOException | RuntimeException e) {
+			repository.close();
+			throw e;
+		}
+	}
+
+	private final class Generation {
+
+		private final Repository repository;
+		private final ObjectInserter inserter;
+		private final ObjectId tree;
+
+		private final List<ObjectId> mainLine = new ArrayList<>();
+		private final List<ObjectId> allCommits = new ArrayList<>();
+		private long time = START_TIME;
+
+		Generation(Repository repository, ObjectInserter inserter) throws IOException {
+			this.repository = repository;
+			this.inserter = inserter;
+			this.tree = inserter.insert(new TreeFormatter());
+		}
+
+		void run() throws IOException {
+			int branchCount = Math.min(branches, (commits - 1) / (commitsPerBranch + 1));
+			int mainLineCommits = commits - branchCount * commitsPerBranch;
+
+			List<Integer> forkPoints = new ArrayList<>();
+			for(int i=0; i<branchCount; ++i) {
+				forkPoints.add(random.nextInt(mainLineCommits - 1));
+			}
+			Collections.sort(forkPoints);
+
+			List<ObjectId> pendingMerges = new ArrayList<>();
+			int branch = 0;
+			ObjectId head = null;
+			for(int i=0; i<mainLineCommits; ++i) {
+				List<ObjectId> parents = new ArrayList<>();
+				if(head!=null) {
+					parents.add(head);
+				}
+				if(!pendingMerges.isEmpty() && random.nextInt(commitsPerBranch)==0) {
+					parents.add(pendingMerges.remove(0));
+				}
+				head = commit(parents);
+				mainLine.add(head);
+
+				while(branch < forkPoints.size() && forkPoints.get(branch)==i) {
+					ObjectId tip = head;
+					for(int j=0; j<commitsPerBranch; ++j) {
+						tip = commit(Collections.singletonList(tip));
+					}
+					updateRef(Constants.R_HEADS + "branch-" + branch, tip);
+					if(random.nextDouble() < mergedBranchRatio) {
+						pendingMerges.add(tip);
+					}
+					++branch;
+				}
+			}
+			updateRef(Constants.R_HEADS + Constants.MASTER, head);
+
+			tag();
+		}
+
+		private ObjectId commit(List<ObjectId> parents) throws IOException {
+			time += 1000 + random.nextInt(60000);
+			PersonIdent ident = new PersonIdent("Mr Blobby", "blobby@noelshouseparty.tv", time, 0);
+
+			CommitBuilder commit = new CommitBuilder();
+			commit.setTreeId(tree);
+			commit.setParentIds(parents);
+			commit.setAuthor(ident);
+			commit.setCommitter(ident);
+			commit.setMessage("Commit " + allCommits.size());
+			ObjectId id = inserter.insert(commit);
+			allCommits.add(id);
+			return id;
+		}
+
+		private void tag() throws IOException {
+			List<Integer> tagged = new ArrayList<>();
+			for(int i=0; i<allCommits.size(); ++i) {
+				tagged.add(i);
+			}
+			Collections.shuffle(tagged, random);
+			tagged = new ArrayList<>(tagged.subList(0, Math.min(tags, tagged.size())));
+			Collections.sort(tagged);
+
+			int major = 0, minor = 0, candidate = 0;
+			for(int t=0; t<tagged.size(); ++t) {
+				ObjectId commit = allCommits.get(tagged.get(t));
+				String name;
+				if(random.nextDouble() < nonVersionTagRatio) {
+					name = "build-" + t;
+				} else if(t % 4==3) {
+					name = "v" + major + '.' + (minor + 1) + ".0";
+					if(++minor==10) {
+						++major;
+						minor = 0;
+					}
+					candidate = 0;
+				} else {
+					name = "v" + major + '.' + (minor + 1) + ".0-rc." + (++candidate);
+				}
+
+				ObjectId target = commit;
+				if(random.nextDouble() < annotatedTagRatio) {
+					TagBuilder tag = new TagBuilder();
+					tag.setObjectId(commit, Constants.OBJ_COMMIT);
+					tag.setTag(name);
+					tag.setTagger(new PersonIdent("Mr Blobby", "blobby@noelshouseparty.tv", time, 0));
+					tag.setMessage("Tag " + name);
+					target = inserter.insert(tag);
+				}
+				updateRef(Constants.R_TAGS + name, target);
+			}
+		}
+
+		private void updateRef(String name, ObjectId id) throws IOException {
+			inserter.flush();
+			RefUpdate update = repository.updateRef(name);
+			update.setNewObjectId(id);
+			update.setForceUpdate(true);
+			RefUpdate.Result result = update.update();
+			if(result!=RefUpdate.Result.NEW && result!=RefUpdate.Result.FORCED) {
+				throw new IOException("Could not update " + name + ": " + result);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.uulib.reckon;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits reckoning measurements as Flight Recorder events. This class must only be loaded on JVMs that support JFR, so
+ * it is compiled separately from the rest of the module, and only {@linkplain ReckoningListeners loaded} reflectively.
+ *
+ * @author hWorblehat
+ */
+final class JfrReckoningListener implements ReckoningListener {
+
+	@Name("org.uulib.reckon.Phase")
+	@Label("Reckoning Phase")
+	@Description("A phase of reckoning a version")
+	@Category("Reckon")
+	@StackTrace(false)
+	static final class PhaseEvent extends Event {
+
+		@Label("Phase")
+		String phase;
+
+		@Label("Phase Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long phaseDuration;
+
+	}
+
+	@Name("org.uulib.reckon.InventoryScan")
+	@Label("Inventory Scan")
+	@Description("A scan of a repository to determine its inventory")
+	@Category("Reckon")
+	@StackTrace(false)
+	static final class InventoryScanEvent extends Event {
+
+		@Label("Tags Scanned")
+		int tagsScanned;
+
+		@Label("Tags Rejected")
+		int tagsRejected;
+
+		@Label("Commits Walked")
+		long commitsWalked;
+
+		@Label("Claimed Versions")
+		int claimedVersions;
+
+	}
+
+	@Override
+	public void phaseCompleted(Phase phase, long durationNanos) {
+		PhaseEvent event = new PhaseEvent();
+		if(event.isEnabled()) {
+			event.phase = phase.name();
+			event.phaseDuration = durationNanos;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void inventoryScanned(int tagsScanned, int tagsRejected, long commitsWalked, int claimedVersions) {
+		InventoryScanEvent event = new InventoryScanEvent();
+		if(event.isEnabled()) {
+			event.tagsScanned = tagsScanned;
+			event.tagsRejected = tagsRejected;
+			event.commitsWalked = commitsWalked;
+			event.claimedVersions = claimedVersions;
+			event.commit();
+		}
+	}
+
+}
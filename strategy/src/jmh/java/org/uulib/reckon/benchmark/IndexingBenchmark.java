@@ -0,0 +1,64 @@
+package org.uulib.reckon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.InventoryGenerator;
+
+/**
+ * The cost of indexing an inventory's claimed versions, which is paid the first time any strategy reckons against
+ * it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexingBenchmark {
+
+	@Param({"100", "10000", "1000000"})
+	public int claimedVersions;
+
+	private final VcsInventory[] inventories = new VcsInventory[2];
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		for(int i=0; i<inventories.length; ++i) {
+			inventories[i] = new InventoryGenerator(i).setClaimedVersions(claimedVersions).generate();
+		}
+	}
+
+	/**
+	 * Alternates between inventories so that each is indexed afresh.
+	 */
+	private VcsInventory nextInventory() {
+		next = (next + 1) % inventories.length;
+		return inventories[next];
+	}
+
+	/**
+	 * Indexes are built the first time they are used, so a lookup is included to build it.
+	 */
+	@Benchmark
+	public IndexedInventory index() {
+		IndexedInventory index = IndexedInventory.of(nextInventory());
+		index.isClaimed(index.getInventory().getBaseNormal());
+		return index;
+	}
+
+}
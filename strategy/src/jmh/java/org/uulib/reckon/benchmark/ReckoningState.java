@@ -0,0 +1,64 @@
+package org.uulib.reckon.benchmark;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.ajoberstar.reckon.core.NormalStrategy;
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.uulib.reckon.InventoryGenerator;
+import org.uulib.reckon.strategy.BuildMetadataPartStrategy;
+import org.uulib.reckon.strategy.CompoundPreReleaseStrategy;
+import org.uulib.reckon.strategy.CompoundStagePreReleaseStrategy;
+import org.uulib.reckon.strategy.ConstantVersionStrategy;
+import org.uulib.reckon.strategy.DatePreReleasePartStrategy;
+import org.uulib.reckon.strategy.NumberedStagePreReleasePartStrategy;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A synthetic inventory of a given size, and the strategies to reckon against it.
+ */
+@State(Scope.Benchmark)
+public class ReckoningState {
+
+	@Param({"100", "10000", "1000000"})
+	public int claimedVersions;
+
+	public VcsInventory inventory;
+	public Version targetNormal;
+	public Instant timestamp;
+
+	public NumberedStagePreReleasePartStrategy numberedStage;
+	public DatePreReleasePartStrategy date;
+	public CompoundPreReleaseStrategy compound;
+	public CompoundStagePreReleaseStrategy compoundStage;
+	public NormalStrategy normal;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		InventoryGenerator generator = new InventoryGenerator(42).setClaimedVersions(claimedVersions);
+		inventory = generator.generate();
+		targetNormal = generator.getTargetNormal();
+		timestamp = generator.getTimestamp();
+
+		numberedStage = NumberedStagePreReleasePartStrategy.forStage("beta");
+		date = new DatePreReleasePartStrategy(() -> timestamp);
+		compound = CompoundPreReleaseStrategy.builder()
+				.setPreReleasePart(numberedStage)
+				.setBuildMetadataPart(BuildMetadataPartStrategy.COMMIT_ID)
+				.build();
+		compoundStage = CompoundStagePreReleaseStrategy.builder()
+				.setPreReleaseStages("alpha", "beta", "rc")
+				.setDefaultPreReleasePartStrategy(NumberedStagePreReleasePartStrategy.forStage(() -> "beta"))
+				.setDevelopmentPreReleasePartStrategy(date)
+				.setDefaultBuildMetadataPartStrategy(BuildMetadataPartStrategy.COMMIT_ID)
+				.build(() -> Optional.of("beta"));
+		normal = new ConstantVersionStrategy(targetNormal);
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.uulib.reckon.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uulib.reckon.Reckoner;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * The throughput of each strategy reckoning against an inventory that has already been indexed, as when a build
+ * reckons several versions from the same inventory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmarks {
+
+	@Benchmark
+	public Optional<String> numberedStage(ReckoningState state) {
+		return state.numberedStage.reckonPreRelease(state.inventory, state.targetNormal);
+	}
+
+	@Benchmark
+	public Optional<String> date(ReckoningState state) {
+		return state.date.reckonPreRelease(state.inventory, state.targetNormal);
+	}
+
+	@Benchmark
+	public Version compoundPreRelease(ReckoningState state) {
+		return state.compound.reckonTargetVersion(state.inventory, state.targetNormal);
+	}
+
+	@Benchmark
+	public Version compoundStage(ReckoningState state) {
+		return state.compoundStage.reckonTargetVersion(state.inventory, state.targetNormal);
+	}
+
+	@Benchmark
+	public Version reckon(ReckoningState state) {
+		return Reckoner.reckon(state.inventory, state.normal, state.compoundStage);
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.uulib.reckon;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * The outcome of reckoning the version of a particular commit: either the reckoned version, or the reason it could
+ * not be reckoned.
+ * 
+ * @author hWorblehat
+ */
+public final class CommitVersion {
+	
+	private final String commitId;
+	private final Version version;
+	private final RuntimeException failure;
+	
+	static CommitVersion reckoned(String commitId, Version version) {
+		return new CommitVersion(commitId, Objects.requireNonNull(version), null);
+	}
+	
+	static CommitVersion failed(String commitId, RuntimeException failure) {
+		return new CommitVersion(commitId, null, Objects.requireNonNull(failure));
+	}
+	
+	private CommitVersion(String commitId, Version version, RuntimeException failure) {
+		this.commitId = commitId;
+		this.version = version;
+		this.failure = failure;
+	}
+	
+	/**
+	 * @return The ID of the commit.
+	 */
+	public String getCommitId() {
+		return commitId;
+	}
+	
+	/**
+	 * @return The version reckoned for the commit, or empty if reckoning failed.
+	 */
+	public Optional<Version> getVersion() {
+		return Optional.ofNullable(version);
+	}
+	
+	/**
+	 * @return The exception that prevented the version being reckoned, or empty if reckoning succeeded.
+	 */
+	public Optional<RuntimeException> getFailure() {
+		return Optional.ofNullable(failure);
+	}
+	
+	@Override
+	public String toString() {
+		return commitId + ' ' + (version!=null ? version : "<" + failure.getMessage() + ">");
+	}
+
+}
@@ -0,0 +1,432 @@
+package org.uulib.reckon;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * An immutable set of versions stored compactly, for the {@linkplain VcsInventory#getClaimedVersions() claimed
+ * versions} of repositories with many tags.
+ * <p>
+ * Rather than a parsed {@link Version} for each member, the distinct normal versions are packed into a sorted array of
+ * {@code int}s, and each member is stored as the part of its version string that follows its normal version, shared
+ * between all members with the same part (such as {@code -rc.1}). Members are only parsed into {@link Version}s as
+ * they are iterated, and neither {@link #contains(Object)}, which is a binary search, nor {@link #equals(Object)} or
+ * {@link #hashCode()} parse any members. Inventories built with a compact set should be
+ * {@linkplain #indexed(VcsInventory) indexed} by it, so strategies can find the versions claimed for a normal version
+ * without iterating the set.
+ * <p>
+ * As {@link Version#equals(Object)} ignores build metadata, so does membership: of versions which only differ in their
+ * build metadata, the first to be added is kept.
+ *
+ * @author hWorblehat
+ */
+public final class CompactVersionSet extends AbstractSet<Version> {
+
+	private static final CompactVersionSet EMPTY = new CompactVersionSet(new int[0], new int[] {0}, new String[0]);
+
+	/**
+	 * The major, minor and patch versions of each distinct normal version, in order.
+	 */
+	private final int[] normals;
+
+	/**
+	 * The index in {@link #suffixes} of the first member with each normal version, followed by the size of the set.
+	 */
+	private final int[] starts;
+
+	/**
+	 * The part of each member following its normal version, which is empty for normal versions, in
+	 * {@linkplain #compareSuffixes(String, String) order} within each normal version.
+	 */
+	private final String[] suffixes;
+
+	private final Map<Version, NavigableSet<String>> preReleases = new ConcurrentHashMap<>();
+
+	private int hash = 0;
+
+	private CompactVersionSet(int[] normals, int[] starts, String[] suffixes) {
+		this.normals = normals;
+		this.starts = starts;
+		this.suffixes = suffixes;
+	}
+
+	/**
+	 * @return A builder of a new set.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @param versions The versions.
+	 * @return A compact set of the given versions.
+	 */
+	public static CompactVersionSet copyOf(Iterable<? extends Version> versions) {
+		Builder builder = builder();
+		for(Version version : versions) {
+			builder.add(version);
+		}
+		return builder.build();
+	}
+
+	@Override
+	public int size() {
+		return suffixes.length;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if(!(o instanceof Version)) {
+			return false;
+		}
+		Version version = (Version) o;
+		int normal = find(version.getMajorVersion(), version.getMinorVersion(), version.getPatchVersion());
+		return normal >= 0 && Arrays.binarySearch(suffixes, starts[normal], starts[normal + 1],
+				suffix(version.getPreReleaseVersion(), ""), CompactVersionSet::compareSuffixes) >= 0;
+	}
+
+	@Override
+	public Iterator<Version> iterator() {
+		return new Iterator<Version>() {
+			private int normal = -1;
+			private String normalString = null;
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < suffixes.length;
+			}
+
+			@Override
+			public Version next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				while(next >= starts[normal + 1]) {
+					++normal;
+					normalString = normals[3 * normal] + "." + normals[3 * normal + 1] + "." + normals[3 * normal + 2];
+				}
+				return Version.valueOf(normalString + suffixes[next++]);
+			}
+		};
+	}
+
+	/**
+	 * Compact sets are equal if they have the same members, as for any other set, so they are only compared suffix by
+	 * suffix. Other sets are compared by looking up their members in this one.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if(o==this) {
+			return true;
+		}
+		if(!(o instanceof CompactVersionSet)) {
+			return super.equals(o);
+		}
+		CompactVersionSet other = (CompactVersionSet) o;
+		if(!Arrays.equals(normals, other.normals) || !Arrays.equals(starts, other.starts)) {
+			return false;
+		}
+		for(int i=0; i<suffixes.length; ++i) {
+			if(compareSuffixes(suffixes[i], other.suffixes[i])!=0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The sum of the {@linkplain Version#hashCode() hash codes} of the members, as for any other set, computed in the
+	 * same way as {@link Version} computes them but without parsing the members.
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if(h==0) {
+			for(int normal=0; normal<starts.length - 1; ++normal) {
+				int normalHash = 17;
+				normalHash = 31 * normalHash + normals[3 * normal];
+				normalHash = 31 * normalHash + normals[3 * normal + 1];
+				normalHash = 31 * normalHash + normals[3 * normal + 2];
+				int versionHash = 97 * 5 + normalHash;
+				for(int i=starts[normal]; i<starts[normal + 1]; ++i) {
+					h += 97 * versionHash + preReleaseHash(suffixes[i]);
+				}
+			}
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * @return The hash code of the pre-release part of a version, given the part following its normal version, as
+	 *         {@link Version} computes it from the pre-release's identifiers.
+	 */
+	private static int preReleaseHash(String suffix) {
+		if(!suffix.startsWith("-")) {
+			return 0;
+		}
+		int h = 1, identifier = 0;
+		for(int i=1; i<suffix.length() && suffix.charAt(i)!='+'; ++i) {
+			char c = suffix.charAt(i);
+			if(c=='.') {
+				h = 31 * h + identifier;
+				identifier = 0;
+			} else {
+				identifier = 31 * identifier + c;
+			}
+		}
+		return 31 * h + identifier;
+	}
+
+	/**
+	 * {@linkplain IndexedInventory#of(VcsInventory, java.util.function.Function) Indexes} an inventory whose claimed
+	 * versions are this set by {@link #preReleases(Version)}.
+	 *
+	 * @param inventory The inventory, built with this set as its claimed versions.
+	 * @return The indexed inventory.
+	 */
+	public IndexedInventory indexed(VcsInventory inventory) {
+		return IndexedInventory.of(inventory, this::preReleases);
+	}
+
+	/**
+	 * Finds the pre-release parts of the members with a normal version, for
+	 * {@linkplain IndexedInventory#of(VcsInventory, java.util.function.Function) indexing} an inventory whose claimed
+	 * versions are this set. The parts found for each normal version are kept.
+	 *
+	 * @param normalVersion The normal version.
+	 * @return The pre-release parts, in lexicographical order, or {@code null} if there are none.
+	 */
+	public NavigableSet<String> preReleases(Version normalVersion) {
+		NavigableSet<String> found = preReleases.get(normalVersion);
+		if(found==null) {
+			int normal = find(normalVersion.getMajorVersion(), normalVersion.getMinorVersion(),
+					normalVersion.getPatchVersion());
+			if(normal < 0) {
+				return null;
+			}
+			TreeSet<String> parts = new TreeSet<>();
+			for(int i=starts[normal]; i<starts[normal + 1]; ++i) {
+				parts.add(preRelease(suffixes[i]));
+			}
+			found = Collections.unmodifiableNavigableSet(parts);
+			preReleases.put(normalVersion, found);
+		}
+		return found;
+	}
+
+	/**
+	 * @return The index of the normal version in {@link #normals}, or {@code -1} if no member has it.
+	 */
+	private int find(int major, int minor, int patch) {
+		int low = 0, high = starts.length - 2;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(normals[3 * mid], normals[3 * mid + 1], normals[3 * mid + 2], major, minor, patch);
+			if(cmp < 0) {
+				low = mid + 1;
+			} else if(cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private static int compare(int major1, int minor1, int patch1, int major2, int minor2, int patch2) {
+		int cmp = Integer.compare(major1, major2);
+		if(cmp==0) {
+			cmp = Integer.compare(minor1, minor2);
+		}
+		if(cmp==0) {
+			cmp = Integer.compare(patch1, patch2);
+		}
+		return cmp;
+	}
+
+	/**
+	 * Orders the parts of version strings following their normal versions by their pre-release parts, ignoring any
+	 * build metadata.
+	 */
+	private static int compareSuffixes(String suffix1, String suffix2) {
+		int end1 = suffix1.indexOf('+'), end2 = suffix2.indexOf('+');
+		end1 = end1 < 0 ? suffix1.length() : end1;
+		end2 = end2 < 0 ? suffix2.length() : end2;
+		for(int i=0; i<end1 && i<end2; ++i) {
+			int cmp = Character.compare(suffix1.charAt(i), suffix2.charAt(i));
+			if(cmp!=0) {
+				return cmp;
+			}
+		}
+		return Integer.compare(end1, end2);
+	}
+
+	/**
+	 * @return The part of a version string following the normal version.
+	 */
+	private static String suffix(String preRelease, String buildMetadata) {
+		if(preRelease.isEmpty()) {
+			return buildMetadata.isEmpty() ? "" : "+" + buildMetadata;
+		}
+		return buildMetadata.isEmpty() ? "-" + preRelease : "-" + preRelease + "+" + buildMetadata;
+	}
+
+	/**
+	 * @return The pre-release part of a version, given the part following its normal version.
+	 */
+	private static String preRelease(String suffix) {
+		if(!suffix.startsWith("-")) {
+			return "";
+		}
+		int buildMetadata = suffix.indexOf('+');
+		return suffix.substring(1, buildMetadata < 0 ? suffix.length() : buildMetadata);
+	}
+
+	/**
+	 * Builds a {@link CompactVersionSet}. Each distinct suffix is only stored once, however many members share it.
+	 */
+	public static final class Builder {
+
+		private final List<Member> members = new ArrayList<>();
+		private final Map<String, String> suffixes = new HashMap<>();
+
+		private Builder() {}
+
+		/**
+		 * @param version The version to add.
+		 * @return This builder.
+		 */
+		public Builder add(Version version) {
+			return add(version.getMajorVersion(), version.getMinorVersion(), version.getPatchVersion(),
+					suffix(version.getPreReleaseVersion(), version.getBuildMetadata()));
+		}
+
+		/**
+		 * Adds a version without parsing it, other than its normal version. The rest of the version is only parsed
+		 * when it is iterated, so it must be known to be valid, such as a string from {@link Version#toString()}.
+		 *
+		 * @param version The version to add.
+		 * @return This builder.
+		 * @throws IllegalArgumentException If the version doesn't start with a valid normal version.
+		 */
+		public Builder add(String version) {
+			int end = 0;
+			while(end < version.length() && version.charAt(end)!='-' && version.charAt(end)!='+') {
+				++end;
+			}
+			int minorStart = version.indexOf('.') + 1;
+			int patchStart = minorStart==0 ? 0 : version.indexOf('.', minorStart) + 1;
+			if(patchStart==0 || patchStart > end) {
+				throw new IllegalArgumentException("Not a version: " + version);
+			}
+			return add(number(version, 0, minorStart - 1), number(version, minorStart, patchStart - 1),
+					number(version, patchStart, end), version.substring(end));
+		}
+
+		private static int number(String version, int start, int end) {
+			if(start==end || (version.charAt(start)=='0' && end - start > 1)) {
+				throw new IllegalArgumentException("Not a version: " + version);
+			}
+			try {
+				return Integer.parseInt(version.substring(start, end));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not a version: " + version, e);
+			}
+		}
+
+		private Builder add(int major, int minor, int patch, String suffix) {
+			members.add(new Member(major, minor, patch, suffixes.computeIfAbsent(suffix, s -> s)));
+			return this;
+		}
+
+		/**
+		 * @return The set of the versions added.
+		 */
+		public CompactVersionSet build() {
+			if(members.isEmpty()) {
+				return EMPTY;
+			}
+			// The sort is stable, so the first of any equal members is kept
+			Collections.sort(members);
+
+			int normalCount = 0, size = 0;
+			Member last = null;
+			for(Member member : members) {
+				if(last==null || member.compareTo(last)!=0) {
+					if(last==null || !member.sameNormal(last)) {
+						++normalCount;
+					}
+					++size;
+				}
+				last = member;
+			}
+
+			int[] normals = new int[3 * normalCount];
+			int[] starts = new int[normalCount + 1];
+			String[] suffixes = new String[size];
+			int normal = -1, i = 0;
+			last = null;
+			for(Member member : members) {
+				if(last!=null && member.compareTo(last)==0) {
+					continue;
+				}
+				if(last==null || !member.sameNormal(last)) {
+					++normal;
+					normals[3 * normal] = member.major;
+					normals[3 * normal + 1] = member.minor;
+					normals[3 * normal + 2] = member.patch;
+					starts[normal] = i;
+				}
+				suffixes[i++] = member.suffix;
+				last = member;
+			}
+			starts[normalCount] = size;
+			return new CompactVersionSet(normals, starts, suffixes);
+		}
+
+	}
+
+	private static final class Member implements Comparable<Member> {
+
+		final int major;
+		final int minor;
+		final int patch;
+		final String suffix;
+
+		Member(int major, int minor, int patch, String suffix) {
+			this.major = major;
+			this.minor = minor;
+			this.patch = patch;
+			this.suffix = suffix;
+		}
+
+		boolean sameNormal(Member other) {
+			return major==other.major && minor==other.minor && patch==other.patch;
+		}
+
+		@Override
+		public int compareTo(Member other) {
+			int cmp = compare(major, minor, patch, other.major, other.minor, other.patch);
+			return cmp!=0 ? cmp : compareSuffixes(suffix, other.suffix);
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+package org.uulib.reckon;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A view of a {@linkplain VcsInventory} whose {@linkplain VcsInventory#getClaimedVersions() claimed versions} are
+ * indexed by their normal version, so that strategies can look up the versions claimed for a particular normal version
+ * without scanning every claimed version.
+ * <p>
+ * The index is built the first time it is used, in time linear in the number of claimed versions, so a single instance
+ * should be shared by everything reckoning against the same inventory: the {@link Reckoner} indexes each inventory
+ * once per reckoning and passes the index to the strategies that can use it (see
+ * {@link org.uulib.reckon.strategy.IndexedPreReleaseStrategy}), and {@linkplain IndexedInventorySupplier suppliers}
+ * can share an index between reckonings. Inventories whose claimed versions are already stored by normal version, such
+ * as {@linkplain InventorySnapshot snapshots}, can be {@linkplain #of(VcsInventory, Function) indexed by a lookup}
+ * instead.
+ *
+ * @author hWorblehat
+ */
+public final class IndexedInventory {
+
+	private final VcsInventory inventory;
+	private volatile Function<Version, NavigableSet<String>> preReleasesByNormal;
+
+	/**
+	 * Indexes an inventory. The index is only built once it is used.
+	 *
+	 * @param inventory The inventory to index.
+	 * @return The indexed inventory.
+	 */
+	public static IndexedInventory of(VcsInventory inventory) {
+		return new IndexedInventory(Objects.requireNonNull(inventory), null);
+	}
+
+	/**
+	 * Indexes an inventory with a lookup of the pre-release parts claimed for each normal version, without scanning
+	 * its claimed versions. The lookup is only used by the returned index, so whatever creates the inventory should
+	 * supply it indexed, such as through an {@linkplain IndexedInventorySupplier}.
+	 *
+	 * @param inventory The inventory to index.
+	 * @param claimedPreReleases Finds the pre-release parts of all claimed versions with a normal version, in
+	 *                           lexicographical order, or {@code null} if there are none. It must agree with the
+	 *                           inventory's claimed versions.
+	 * @return The indexed inventory.
+	 */
+	public static IndexedInventory of(VcsInventory inventory,
+			Function<Version, NavigableSet<String>> claimedPreReleases) {
+		return new IndexedInventory(Objects.requireNonNull(inventory), Objects.requireNonNull(claimedPreReleases));
+	}
+
+	private IndexedInventory(VcsInventory inventory, Function<Version, NavigableSet<String>> preReleasesByNormal) {
+		this.inventory = inventory;
+		this.preReleasesByNormal = preReleasesByNormal;
+	}
+
+	/**
+	 * Builds the index the first time it is needed.
+	 */
+	private Function<Version, NavigableSet<String>> preReleasesByNormal() {
+		Function<Version, NavigableSet<String>> index = preReleasesByNormal;
+		if(index==null) {
+			synchronized(this) {
+				index = preReleasesByNormal;
+				if(index==null) {
+					Map<Version, NavigableSet<String>> built = new HashMap<>();
+					for(Version claimed : inventory.getClaimedVersions()) {
+						built.computeIfAbsent(Versions.getNormal(claimed), k -> new TreeSet<>())
+								.add(claimed.getPreReleaseVersion());
+					}
+					built.replaceAll((k, v) -> Collections.unmodifiableNavigableSet(v));
+					index = preReleasesByNormal = built::get;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Reuses this index for another inventory which has exactly the same claimed versions, such as the inventory of
+	 * another commit in the same repository.
+	 * 
+	 * @param other The other inventory.
+	 * @return The other inventory, indexed.
+	 */
+	public IndexedInventory forInventory(VcsInventory other) {
+		return new IndexedInventory(Objects.requireNonNull(other), preReleasesByNormal());
+	}
+
+	/**
+	 * @return The inventory that has been indexed.
+	 */
+	public VcsInventory getInventory() {
+		return inventory;
+	}
+
+	/**
+	 * Finds the pre-release parts of all claimed versions with the given normal version. If the normal version itself
+	 * has been claimed, the result will include the empty string.
+	 *
+	 * @param normalVersion The normal version.
+	 * @return The claimed pre-release parts, in lexicographical order.
+	 */
+	public NavigableSet<String> getClaimedPreReleases(Version normalVersion) {
+		if(!Versions.isNormal(normalVersion)) {
+			return Collections.emptyNavigableSet();
+		}
+		NavigableSet<String> preReleases = preReleasesByNormal().apply(normalVersion);
+		return preReleases==null ? Collections.emptyNavigableSet() : preReleases;
+	}
+
+	/**
+	 * Finds the pre-release parts of all claimed versions with the given normal version that start with the given
+	 * prefix.
+	 *
+	 * @param normalVersion The normal version.
+	 * @param prefix The prefix the pre-release parts must start with.
+	 * @return The claimed pre-release parts, in lexicographical order.
+	 */
+	public NavigableSet<String> getClaimedPreReleases(Version normalVersion, String prefix) {
+		NavigableSet<String> preReleases = getClaimedPreReleases(normalVersion);
+		return prefix.isEmpty() || preReleases.isEmpty()
+				? preReleases
+				: preReleases.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+	}
+
+	/**
+	 * Determines whether the given version (ignoring build metadata) has already been claimed.
+	 *
+	 * @param version The version.
+	 * @return {@code true} if the version has been claimed.
+	 */
+	public boolean isClaimed(Version version) {
+		return getClaimedPreReleases(Versions.getNormal(version)).contains(version.getPreReleaseVersion());
+	}
+
+}
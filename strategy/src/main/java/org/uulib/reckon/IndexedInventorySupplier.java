@@ -0,0 +1,39 @@
+package org.uulib.reckon;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.VcsInventorySupplier;
+
+/**
+ * A {@linkplain VcsInventorySupplier} that supplies its inventory {@linkplain IndexedInventory indexed}, so that
+ * reckonings of the same inventory can share its index, or so that the index can be built from however the supplier
+ * stores the claimed versions.
+ *
+ * @author hWorblehat
+ */
+@FunctionalInterface
+public interface IndexedInventorySupplier extends VcsInventorySupplier {
+
+	/**
+	 * @return The indexed inventory.
+	 */
+	IndexedInventory getIndexedInventory();
+
+	@Override
+	default VcsInventory getInventory() {
+		return getIndexedInventory().getInventory();
+	}
+
+	/**
+	 * Obtains the indexed inventory of any supplier, indexing it afresh unless it is an
+	 * {@linkplain IndexedInventorySupplier}.
+	 *
+	 * @param supplier The supplier.
+	 * @return The indexed inventory.
+	 */
+	static IndexedInventory indexedInventoryOf(VcsInventorySupplier supplier) {
+		return supplier instanceof IndexedInventorySupplier
+				? ((IndexedInventorySupplier) supplier).getIndexedInventory()
+				: IndexedInventory.of(supplier.getInventory());
+	}
+
+}
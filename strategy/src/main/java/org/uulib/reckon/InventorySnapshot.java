@@ -0,0 +1,398 @@
+package org.uulib.reckon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.ajoberstar.reckon.core.Versions;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A {@linkplain VcsInventory VCS inventory} stored in a file, so that versions can be reckoned where the repository
+ * isn't available, such as on build workers given only a source tarball. The inventory is
+ * {@linkplain #write(VcsInventory, Path) written} where the repository is available and shipped with the sources.
+ * <p>
+ * The file is memory-mapped when read, and the claimed versions, which are grouped by normal version in a table that
+ * can be binary searched, are only decoded as they are used. Reading a snapshot therefore takes the same time however
+ * many versions have been claimed, and strategies that look up the versions claimed for a particular normal version
+ * (through {@link IndexedInventory}) only decode those.
+ *
+ * @author hWorblehat
+ */
+public final class InventorySnapshot implements IndexedInventorySupplier {
+
+	private static final int MAGIC = 0x52434b53; // "RCKS"
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The size of each entry in the table of normal versions: the major, minor and patch versions, and the offset and
+	 * number of the versions claimed with that normal version. The claimed versions are a table of the offsets of their
+	 * parts following the normal version, which are sorted so they can be binary searched, followed by the parts
+	 * themselves.
+	 */
+	private static final int NORMAL_ENTRY_SIZE = 20;
+
+	private final Path file;
+	private volatile IndexedInventory inventory = null;
+
+	/**
+	 * @param file The snapshot file, as {@linkplain #write(VcsInventory, Path) written}.
+	 */
+	public InventorySnapshot(Path file) {
+		this.file = Objects.requireNonNull(file);
+	}
+
+	/**
+	 * Writes a snapshot of an inventory. The snapshot is written to a temporary file which is then moved into place,
+	 * so readers never observe an incomplete snapshot.
+	 *
+	 * @param inventory The inventory.
+	 * @param file The file to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(VcsInventory inventory, Path file) throws IOException {
+		Map<Version, List<String>> claimedByNormal = new TreeMap<>();
+		for(Version claimed : inventory.getClaimedVersions()) {
+			Version normal = Versions.getNormal(claimed);
+			claimedByNormal.computeIfAbsent(normal, k -> new ArrayList<>())
+					.add(claimed.toString().substring(normal.toString().length()));
+		}
+
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+		header.writeInt(MAGIC);
+		header.writeInt(FORMAT_VERSION);
+		writeString(header, inventory.getCommitId());
+		writeString(header, inventory.getCurrentVersion().map(Version::toString).orElse(null));
+		writeString(header, inventory.getBaseVersion().toString());
+		writeString(header, inventory.getBaseNormal().toString());
+		header.writeInt(inventory.getCommitsSinceBase());
+		header.writeInt(inventory.getParallelNormals().size());
+		for(Version parallel : inventory.getParallelNormals()) {
+			writeString(header, parallel.toString());
+		}
+		header.writeInt(inventory.getClaimedVersions().size());
+		header.writeInt(claimedByNormal.size());
+
+		int claimedStart = headerBytes.size() + claimedByNormal.size() * NORMAL_ENTRY_SIZE;
+		ByteArrayOutputStream claimedBytes = new ByteArrayOutputStream();
+		DataOutputStream claimed = new DataOutputStream(claimedBytes);
+		for(Map.Entry<Version, List<String>> normal : claimedByNormal.entrySet()) {
+			header.writeInt(normal.getKey().getMajorVersion());
+			header.writeInt(normal.getKey().getMinorVersion());
+			header.writeInt(normal.getKey().getPatchVersion());
+			header.writeInt(claimedStart + claimedBytes.size());
+			header.writeInt(normal.getValue().size());
+
+			Collections.sort(normal.getValue());
+			int suffixOffset = claimedStart + claimedBytes.size() + normal.getValue().size() * 4;
+			for(String suffix : normal.getValue()) {
+				claimed.writeInt(suffixOffset);
+				suffixOffset += 4 + suffix.getBytes(StandardCharsets.UTF_8).length;
+			}
+			for(String suffix : normal.getValue()) {
+				writeString(claimed, suffix);
+			}
+		}
+
+		Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try(FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				channel.write(new ByteBuffer[] {
+					ByteBuffer.wrap(headerBytes.toByteArray()),
+					ByteBuffer.wrap(claimedBytes.toByteArray())
+				});
+			}
+			try {
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Strings are written as their length in bytes, or {@code -1} for {@code null}, followed by their UTF-8 encoding.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if(value==null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads the snapshot the first time it's needed, and {@linkplain IndexedInventory#of(VcsInventory,
+	 * java.util.function.Function) indexes} it by its table of normal versions.
+	 *
+	 * @throws UncheckedIOException If the snapshot cannot be read.
+	 * @throws IllegalStateException If the file isn't a snapshot.
+	 */
+	@Override
+	public IndexedInventory getIndexedInventory() {
+		IndexedInventory read = inventory;
+		if(read==null) {
+			synchronized(this) {
+				read = inventory;
+				if(read==null) {
+					try {
+						read = inventory = new Reader(map()).read();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}
+		}
+		return read;
+	}
+
+	private ByteBuffer map() throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Reads a mapped snapshot. Only absolute reads are made of the buffer, so it can be shared by any threads that
+	 * decode the claimed versions.
+	 */
+	private final class Reader {
+
+		private final ByteBuffer buffer;
+		private int position = 0;
+
+		Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		IndexedInventory read() {
+			if(buffer.limit() < 8 || readInt()!=MAGIC || readInt()!=FORMAT_VERSION) {
+				throw new IllegalStateException("Not an inventory snapshot: " + file);
+			}
+			String commitId = readString();
+			String currentVersion = readString();
+			Version baseVersion = Version.valueOf(readString());
+			Version baseNormal = Version.valueOf(readString());
+			int commitsSinceBase = readInt();
+			int parallelCount = readInt();
+			Set<Version> parallelNormals = new HashSet<>();
+			for(int i=0; i<parallelCount; ++i) {
+				parallelNormals.add(Version.valueOf(readString()));
+			}
+			ClaimedVersions claimed = new ClaimedVersions(buffer, readInt(), readInt(), position);
+
+			VcsInventory inventory = new VcsInventory(commitId,
+					currentVersion==null ? null : Version.valueOf(currentVersion), baseVersion, baseNormal,
+					commitsSinceBase, parallelNormals, claimed);
+			return IndexedInventory.of(inventory, claimed::preReleases);
+		}
+
+		private int readInt() {
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		private String readString() {
+			int length = readInt();
+			if(length < 0) {
+				return null;
+			}
+			String value = decode(buffer, position, length);
+			position += length;
+			return value;
+		}
+
+	}
+
+	private static String decode(ByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The claimed versions of a snapshot, decoded from the mapped file on demand. Finding the versions claimed for a
+	 * normal version is a binary search of the table of normal versions, and the pre-release parts found for each are
+	 * kept once decoded. Whether a version is claimed is a binary search of the versions claimed with its normal
+	 * version, ignoring build metadata as {@link Version#equals(Object)} does.
+	 */
+	private static final class ClaimedVersions extends AbstractSet<Version> {
+
+		private final ByteBuffer buffer;
+		private final int size;
+		private final int normalCount;
+		private final int normalsStart;
+		private final Map<Version, NavigableSet<String>> preReleases = new ConcurrentHashMap<>();
+
+		ClaimedVersions(ByteBuffer buffer, int size, int normalCount, int normalsStart) {
+			this.buffer = buffer;
+			this.size = size;
+			this.normalCount = normalCount;
+			this.normalsStart = normalsStart;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if(!(o instanceof Version)) {
+				return false;
+			}
+			Version version = (Version) o;
+			int entry = find(Versions.getNormal(version));
+			if(entry < 0) {
+				return false;
+			}
+			// Sorting the parts following the normal version also sorts their pre-release parts, as '+' sorts before
+			// every character a pre-release part can continue with
+			String preRelease = version.getPreReleaseVersion();
+			int low = 0, high = buffer.getInt(entry + 16) - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = preRelease(suffix(entry, mid)).compareTo(preRelease);
+				if(cmp < 0) {
+					low = mid + 1;
+				} else if(cmp > 0) {
+					high = mid - 1;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Iterator<Version> iterator() {
+			return new Iterator<Version>() {
+				private int normal = 0;
+				private String normalString = null;
+				private int entry;
+				private int next = 0;
+				private int count = 0;
+
+				@Override
+				public boolean hasNext() {
+					while(next==count && normal < normalCount) {
+						entry = normalsStart + normal++ * NORMAL_ENTRY_SIZE;
+						normalString = buffer.getInt(entry) + "." + buffer.getInt(entry + 4) + "."
+								+ buffer.getInt(entry + 8);
+						next = 0;
+						count = buffer.getInt(entry + 16);
+					}
+					return next < count;
+				}
+
+				@Override
+				public Version next() {
+					if(!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return Version.valueOf(normalString + suffix(entry, next++));
+				}
+			};
+		}
+
+		/**
+		 * @return The pre-release parts claimed with the normal version, or {@code null} if there are none.
+		 */
+		NavigableSet<String> preReleases(Version normalVersion) {
+			NavigableSet<String> found = preReleases.get(normalVersion);
+			if(found==null) {
+				int entry = find(normalVersion);
+				if(entry < 0) {
+					return null;
+				}
+				TreeSet<String> decoded = new TreeSet<>();
+				for(int i=buffer.getInt(entry + 16) - 1; i>=0; --i) {
+					decoded.add(preRelease(suffix(entry, i)));
+				}
+				found = Collections.unmodifiableNavigableSet(decoded);
+				preReleases.put(normalVersion, found);
+			}
+			return found;
+		}
+
+		/**
+		 * @return The part following the normal version of a version claimed with the normal version of the given entry.
+		 */
+		private String suffix(int entry, int index) {
+			int offset = buffer.getInt(buffer.getInt(entry + 12) + index * 4);
+			return decode(buffer, offset + 4, buffer.getInt(offset));
+		}
+
+		/**
+		 * @return The pre-release part of a version, given the part following its normal version.
+		 */
+		private static String preRelease(String suffix) {
+			if(!suffix.startsWith("-")) {
+				return "";
+			}
+			int buildMetadata = suffix.indexOf('+');
+			return suffix.substring(1, buildMetadata < 0 ? suffix.length() : buildMetadata);
+		}
+
+		/**
+		 * @return The position of the normal version's entry in the table, or {@code -1} if it has none.
+		 */
+		private int find(Version normalVersion) {
+			int low = 0, high = normalCount - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				int entry = normalsStart + mid * NORMAL_ENTRY_SIZE;
+				int cmp = Integer.compare(buffer.getInt(entry), normalVersion.getMajorVersion());
+				if(cmp==0) {
+					cmp = Integer.compare(buffer.getInt(entry + 4), normalVersion.getMinorVersion());
+				}
+				if(cmp==0) {
+					cmp = Integer.compare(buffer.getInt(entry + 8), normalVersion.getPatchVersion());
+				}
+				if(cmp < 0) {
+					low = mid + 1;
+				} else if(cmp > 0) {
+					high = mid - 1;
+				} else {
+					return entry;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,189 @@
+package org.uulib.reckon;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ajoberstar.reckon.core.NormalStrategy;
+import org.ajoberstar.reckon.core.PreReleaseStrategy;
+import org.ajoberstar.reckon.core.VcsInventorySupplier;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Reckons the versions of many independent repositories in parallel. Each repository's inventory is scanned and its
+ * version reckoned as a separate task in a fixed-size thread pool, as scanning blocks on I/O, and the outcome of each
+ * is reported separately, so that one repository failing doesn't prevent the others' versions being reckoned.
+ * <p>
+ * Jobs must not share strategies or inventory suppliers that aren't safe to use from multiple threads.
+ *
+ * @author hWorblehat
+ */
+public final class MultiRepositoryReckoner {
+
+	private final int parallelism;
+
+	/**
+	 * Creates a reckoner that uses as many threads as there are available processors.
+	 */
+	public MultiRepositoryReckoner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism The maximum number of repositories to reckon at once.
+	 */
+	public MultiRepositoryReckoner(int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Reckons the version of each of the given jobs' repositories, waiting for all of them to finish.
+	 *
+	 * @param jobs The repositories to reckon, and how to reckon them.
+	 * @return The outcome of each job, in the same order as the jobs.
+	 * @throws IllegalStateException If the calling thread is interrupted while waiting, in which case the jobs are
+	 *                               cancelled.
+	 */
+	public List<Result> reckonAll(List<Job> jobs) {
+		if(jobs.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Callable<Result>> tasks = new ArrayList<>(jobs.size());
+		for(Job job : jobs) {
+			tasks.add(job::run);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, jobs.size()));
+		try {
+			List<Result> results = new ArrayList<>(jobs.size());
+			for(Future<Result> result : executor.invokeAll(tasks)) {
+				results.add(result.get());
+			}
+			return Collections.unmodifiableList(results);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reckoning versions.", e);
+		} catch (ExecutionException e) {
+			// Jobs report their own exceptions, so only errors, or throwables that are neither, reach here
+			if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Failed to reckon versions.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * A repository whose version is to be reckoned, and how to reckon it.
+	 *
+	 * @author hWorblehat
+	 */
+	public static final class Job {
+
+		private final String name;
+		private final VcsInventorySupplier vcsInventorySupplier;
+		private final NormalStrategy normalStrategy;
+		private final PreReleaseStrategy preReleaseStrategy;
+
+		/**
+		 * @param name Identifies the repository in the job's {@linkplain Result result}.
+		 * @param vcsInventorySupplier Scans the repository's inventory.
+		 * @param normalStrategy The strategy to reckon the normal version with.
+		 * @param preReleaseStrategy The strategy to reckon the pre-release version with.
+		 */
+		public Job(String name, VcsInventorySupplier vcsInventorySupplier, NormalStrategy normalStrategy,
+				PreReleaseStrategy preReleaseStrategy) {
+			this.name = Objects.requireNonNull(name);
+			this.vcsInventorySupplier = Objects.requireNonNull(vcsInventorySupplier);
+			this.normalStrategy = Objects.requireNonNull(normalStrategy);
+			this.preReleaseStrategy = Objects.requireNonNull(preReleaseStrategy);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		private Result run() {
+			long start = System.nanoTime();
+			Version version = null;
+			Exception failure = null;
+			try {
+				version = Reckoner.reckon(vcsInventorySupplier, normalStrategy, preReleaseStrategy);
+			} catch (Exception e) {
+				// Suppliers and strategies written in Groovy may throw checked exceptions without declaring them
+				failure = e;
+			}
+			return new Result(name, version, failure, Duration.ofNanos(System.nanoTime() - start));
+		}
+
+	}
+
+	/**
+	 * The outcome of a {@linkplain Job job}: either the reckoned version, or the reason it could not be reckoned.
+	 *
+	 * @author hWorblehat
+	 */
+	public static final class Result {
+
+		private final String name;
+		private final Version version;
+		private final Exception failure;
+		private final Duration duration;
+
+		private Result(String name, Version version, Exception failure, Duration duration) {
+			this.name = name;
+			this.version = version;
+			this.failure = failure;
+			this.duration = duration;
+		}
+
+		/**
+		 * @return The {@linkplain Job#getName() name} of the job.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return The reckoned version, or empty if reckoning failed.
+		 */
+		public Optional<Version> getVersion() {
+			return Optional.ofNullable(version);
+		}
+
+		/**
+		 * @return The exception that prevented the version being reckoned, or empty if reckoning succeeded.
+		 */
+		public Optional<Exception> getFailure() {
+			return Optional.ofNullable(failure);
+		}
+
+		/**
+		 * @return How long it took to scan the repository and reckon its version.
+		 */
+		public Duration getDuration() {
+			return duration;
+		}
+
+		@Override
+		public String toString() {
+			return name + ' ' + (version!=null ? version : "<" + failure.getMessage() + ">") + " in "
+					+ duration.toMillis() + "ms";
+		}
+
+	}
+
+}
@@ -1,9 +1,13 @@
 package org.uulib.reckon;
 
+import java.util.stream.Stream;
+
 import org.ajoberstar.reckon.core.NormalStrategy;
 import org.ajoberstar.reckon.core.PreReleaseStrategy;
 import org.ajoberstar.reckon.core.VcsInventory;
 import org.ajoberstar.reckon.core.VcsInventorySupplier;
+import org.uulib.reckon.ReckoningListener.Phase;
+import org.uulib.reckon.strategy.IndexedPreReleaseStrategy;
 
 import com.github.zafarkhaja.semver.Version;
 
@@ -13,15 +17,33 @@ public final class Reckoner {
 	
 	public static Version reckon(VcsInventorySupplier vcsInventorySupplier, NormalStrategy normalStrategy,
 			PreReleaseStrategy preReleaseStrategy) {
-		return reckon(vcsInventorySupplier.getInventory(), normalStrategy, preReleaseStrategy);
+		IndexedInventory index = ReckoningListeners.timed(Phase.INVENTORY,
+				() -> IndexedInventorySupplier.indexedInventoryOf(vcsInventorySupplier));
+		return reckon(index, normalStrategy, preReleaseStrategy);
 	}
 
 	public static Version reckon(VcsInventory vcsInventory, NormalStrategy normalStrategy,
 			PreReleaseStrategy preReleaseStrategy) {
-		Version normal = normalStrategy.reckonNormal(vcsInventory);
-		Version rc = preReleaseStrategy.reckonTargetVersion(vcsInventory, normal);
+		return reckon(IndexedInventory.of(vcsInventory), normalStrategy, preReleaseStrategy);
+	}
+
+	/**
+	 * Reckons a version with an indexed inventory, which is passed to the strategies that can use it, so the
+	 * inventory is indexed at most once.
+	 * 
+	 * @param index The indexed inventory.
+	 * @param normalStrategy The strategy to reckon the normal version with.
+	 * @param preReleaseStrategy The strategy to reckon the pre-release version with.
+	 * @return The reckoned version.
+	 */
+	public static Version reckon(IndexedInventory index, NormalStrategy normalStrategy,
+			PreReleaseStrategy preReleaseStrategy) {
+		VcsInventory vcsInventory = index.getInventory();
+		Version normal = ReckoningListeners.timed(Phase.NORMAL, () -> normalStrategy.reckonNormal(vcsInventory));
+		Version rc = ReckoningListeners.timed(Phase.PRE_RELEASE,
+				() -> IndexedPreReleaseStrategy.reckon(preReleaseStrategy, index, normal));
 
-		if(vcsInventory.getClaimedVersions().contains(rc)
+		if(index.isClaimed(rc)
 				&& !vcsInventory.getCurrentVersion().filter(c -> !rc.equals(c)).isPresent()) {
 			throw new IllegalStateException(
 					"Reckoned version " + rc + " has already been released.");
@@ -29,5 +51,26 @@ public final class Reckoner {
 		
 		return rc;
 	}
+	
+	/**
+	 * Reckons the version of each of a sequence of inventories, such as those of successive commits, which may share
+	 * an index. Failures to reckon a version are reported in the result rather than thrown.
+	 * 
+	 * @param vcsInventories The indexed inventories to reckon versions for.
+	 * @param normalStrategy The strategy to reckon normal versions with.
+	 * @param preReleaseStrategy The strategy to reckon pre-release versions with.
+	 * @return The version reckoned for each inventory's commit, in the same order as the inventories.
+	 */
+	public static Stream<CommitVersion> reckonEach(Stream<IndexedInventory> vcsInventories,
+			NormalStrategy normalStrategy, PreReleaseStrategy preReleaseStrategy) {
+		return vcsInventories.map(inventory -> {
+			String commitId = inventory.getInventory().getCommitId();
+			try {
+				return CommitVersion.reckoned(commitId, reckon(inventory, normalStrategy, preReleaseStrategy));
+			} catch (RuntimeException e) {
+				return CommitVersion.failed(commitId, e);
+			}
+		});
+	}
 
 }
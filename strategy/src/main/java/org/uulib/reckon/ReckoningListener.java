@@ -0,0 +1,87 @@
+package org.uulib.reckon;
+
+import java.util.List;
+
+/**
+ * Receives measurements of the work done while reckoning versions, to diagnose where the time goes. Listeners are
+ * {@linkplain ReckoningListeners#register(ReckoningListener) registered} globally, and may be notified from any
+ * thread, so must be thread-safe. They should return quickly and must not throw.
+ *
+ * @author hWorblehat
+ *
+ * @see ReckoningMetrics
+ */
+public interface ReckoningListener {
+
+	/**
+	 * The phases of reckoning a version. Phases may be nested within each other: {@link #REF_ENUMERATION} and
+	 * {@link #HISTORY_WALK} within {@link #INVENTORY}, and {@link #PRE_RELEASE_PART} and
+	 * {@link #BUILD_METADATA_PART} within {@link #PRE_RELEASE}.
+	 */
+	enum Phase {
+
+		/**
+		 * Obtaining the inventory of the VCS, whether by scanning it or from a cache.
+		 */
+		INVENTORY,
+
+		/**
+		 * Enumerating the tags of a git repository.
+		 */
+		REF_ENUMERATION,
+
+		/**
+		 * Walking the history of a git repository to determine its inventory.
+		 */
+		HISTORY_WALK,
+
+		/**
+		 * Reckoning the normal version.
+		 */
+		NORMAL,
+
+		/**
+		 * Reckoning the target version from the normal version.
+		 */
+		PRE_RELEASE,
+
+		/**
+		 * Reckoning the pre-release part of the version.
+		 */
+		PRE_RELEASE_PART,
+
+		/**
+		 * Reckoning the build metadata part of the version.
+		 */
+		BUILD_METADATA_PART
+
+	}
+
+	/**
+	 * Called when a phase of reckoning has completed, whether successfully or not.
+	 *
+	 * @param phase The phase.
+	 * @param durationNanos How long the phase took, in nanoseconds.
+	 */
+	default void phaseCompleted(Phase phase, long durationNanos) {}
+
+	/**
+	 * Called when a repository has been scanned to determine its inventory.
+	 *
+	 * @param tagsScanned The number of tags considered.
+	 * @param tagsRejected The number of tags rejected as not being versions.
+	 * @param commitsWalked The number of commits walked, or {@code -1} if unknown.
+	 * @param claimedVersions The number of versions claimed in the resulting inventory.
+	 */
+	default void inventoryScanned(int tagsScanned, int tagsRejected, long commitsWalked, int claimedVersions) {}
+
+	/**
+	 * Called when an inventory has been computed from incomplete history, such as a shallow clone, in a way that could
+	 * make it differ from the inventory of the complete history.
+	 *
+	 * @param commitId The ID of the commit whose inventory was computed, or {@code null} if there are no commits.
+	 * @param approximations Descriptions of the ways in which the inventory could differ.
+	 */
+	default void inventoryApproximated(String commitId, List<String> approximations) {}
+
+}
@@ -0,0 +1,117 @@
+package org.uulib.reckon;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.uulib.reckon.ReckoningListener.Phase;
+
+/**
+ * The registry of {@linkplain ReckoningListener listeners} notified of the work done while reckoning versions.
+ * <p>
+ * When running on a JVM with Flight Recorder, a listener that emits the measurements as JFR events
+ * ({@code org.uulib.reckon.Phase} and {@code org.uulib.reckon.InventoryScan}) is always registered, provided this
+ * module was built with its Flight Recorder listener ({@code -Pjfr}). The events are only recorded when enabled in a recording.
+ *
+ * @author hWorblehat
+ */
+public final class ReckoningListeners {
+
+	private static final Object lock = new Object();
+	private static volatile ReckoningListener[] listeners = defaultListeners();
+
+	private ReckoningListeners() {}
+
+	private static ReckoningListener[] defaultListeners() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return new ReckoningListener[] {Class.forName("org.uulib.reckon.JfrReckoningListener")
+					.asSubclass(ReckoningListener.class).getDeclaredConstructor().newInstance()};
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ReckoningListener[0];
+		}
+	}
+
+	/**
+	 * A registration of a listener, which is removed when closed.
+	 */
+	public interface Registration extends AutoCloseable {
+
+		@Override
+		void close();
+
+	}
+
+	/**
+	 * Registers a listener to be notified of all reckoning in this JVM, until the returned registration is closed.
+	 *
+	 * @param listener The listener.
+	 * @return The registration.
+	 */
+	public static Registration register(ReckoningListener listener) {
+		Objects.requireNonNull(listener);
+		synchronized(lock) {
+			ReckoningListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+			updated[listeners.length] = listener;
+			listeners = updated;
+		}
+		return () -> unregister(listener);
+	}
+
+	private static void unregister(ReckoningListener listener) {
+		synchronized(lock) {
+			listeners = Arrays.stream(listeners).filter(l -> l!=listener).toArray(ReckoningListener[]::new);
+		}
+	}
+
+	/**
+	 * Notifies all listeners that a phase has completed.
+	 *
+	 * @see ReckoningListener#phaseCompleted(Phase, long)
+	 */
+	public static void phaseCompleted(Phase phase, long durationNanos) {
+		for(ReckoningListener listener : listeners) {
+			listener.phaseCompleted(phase, durationNanos);
+		}
+	}
+
+	/**
+	 * Notifies all listeners that a repository has been scanned.
+	 *
+	 * @see ReckoningListener#inventoryScanned(int, int, long, int)
+	 */
+	public static void inventoryScanned(int tagsScanned, int tagsRejected, long commitsWalked, int claimedVersions) {
+		for(ReckoningListener listener : listeners) {
+			listener.inventoryScanned(tagsScanned, tagsRejected, commitsWalked, claimedVersions);
+		}
+	}
+
+	/**
+	 * Notifies all listeners that an inventory has been approximated.
+	 *
+	 * @see ReckoningListener#inventoryApproximated(String, List)
+	 */
+	public static void inventoryApproximated(String commitId, List<String> approximations) {
+		for(ReckoningListener listener : listeners) {
+			listener.inventoryApproximated(commitId, approximations);
+		}
+	}
+
+	/**
+	 * Performs an action, notifying all listeners of how long it took as a phase.
+	 *
+	 * @param phase The phase the action performs.
+	 * @param action The action.
+	 * @return The result of the action.
+	 */
+	public static <T> T timed(Phase phase, Supplier<T> action) {
+		long start = System.nanoTime();
+		try {
+			return action.get();
+		} finally {
+			phaseCompleted(phase, System.nanoTime() - start);
+		}
+	}
+
+}
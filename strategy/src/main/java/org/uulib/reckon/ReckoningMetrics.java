@@ -0,0 +1,125 @@
+package org.uulib.reckon;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@linkplain ReckoningListener listener} that accumulates the total time spent in each phase of reckoning, and
+ * totals of the inventory scans' statistics, for summarising the reckoning done by a build.
+ *
+ * @author hWorblehat
+ */
+public final class ReckoningMetrics implements ReckoningListener {
+
+	private final Map<Phase, LongAdder> nanos = new EnumMap<>(Phase.class);
+	private final Map<Phase, LongAdder> counts = new EnumMap<>(Phase.class);
+	private final LongAdder scans = new LongAdder();
+	private final LongAdder tagsScanned = new LongAdder();
+	private final LongAdder tagsRejected = new LongAdder();
+	private final LongAdder commitsWalked = new LongAdder();
+	private final LongAdder claimedVersions = new LongAdder();
+	private final LongAdder approximatedInventories = new LongAdder();
+
+	public ReckoningMetrics() {
+		for(Phase phase : Phase.values()) {
+			nanos.put(phase, new LongAdder());
+			counts.put(phase, new LongAdder());
+		}
+	}
+
+	@Override
+	public void phaseCompleted(Phase phase, long durationNanos) {
+		nanos.get(phase).add(durationNanos);
+		counts.get(phase).increment();
+	}
+
+	@Override
+	public void inventoryScanned(int tagsScanned, int tagsRejected, long commitsWalked, int claimedVersions) {
+		scans.increment();
+		this.tagsScanned.add(tagsScanned);
+		this.tagsRejected.add(tagsRejected);
+		if(commitsWalked > 0) {
+			this.commitsWalked.add(commitsWalked);
+		}
+		this.claimedVersions.add(claimedVersions);
+	}
+
+	@Override
+	public void inventoryApproximated(String commitId, List<String> approximations) {
+		approximatedInventories.increment();
+	}
+
+	/**
+	 * @param phase The phase.
+	 * @return The total time spent in the phase, in nanoseconds.
+	 */
+	public long getNanos(Phase phase) {
+		return nanos.get(phase).sum();
+	}
+
+	/**
+	 * @param phase The phase.
+	 * @return The number of times the phase has completed.
+	 */
+	public long getCount(Phase phase) {
+		return counts.get(phase).sum();
+	}
+
+	public long getScans() {
+		return scans.sum();
+	}
+
+	public long getTagsScanned() {
+		return tagsScanned.sum();
+	}
+
+	public long getTagsRejected() {
+		return tagsRejected.sum();
+	}
+
+	/**
+	 * @return The total number of commits walked by those scans that count them.
+	 */
+	public long getCommitsWalked() {
+		return commitsWalked.sum();
+	}
+
+	public long getClaimedVersions() {
+		return claimedVersions.sum();
+	}
+
+	/**
+	 * @return The number of inventories computed from incomplete history that could differ from those of the
+	 *         complete history.
+	 */
+	public long getApproximatedInventories() {
+		return approximatedInventories.sum();
+	}
+
+	/**
+	 * @return A one-line summary of the metrics.
+	 */
+	public String summary() {
+		return String.format("versions reckoned: %d; "
+				+ "inventory %s (refs %s, history %s; %d scans, %d tags, %d rejected, %d commits, %d claimed, %d approximated), "
+				+ "normal %s, pre-release %s (part %s, build metadata %s)",
+				getCount(Phase.NORMAL),
+				millis(Phase.INVENTORY), millis(Phase.REF_ENUMERATION), millis(Phase.HISTORY_WALK),
+				getScans(), getTagsScanned(), getTagsRejected(), getCommitsWalked(), getClaimedVersions(),
+				getApproximatedInventories(),
+				millis(Phase.NORMAL),
+				millis(Phase.PRE_RELEASE), millis(Phase.PRE_RELEASE_PART), millis(Phase.BUILD_METADATA_PART));
+	}
+
+	private String millis(Phase phase) {
+		return String.format("%.1fms", getNanos(phase) / 1e6);
+	}
+
+	@Override
+	public String toString() {
+		return summary();
+	}
+
+}
@@ -5,6 +5,9 @@ import java.util.function.Supplier;
 
 import org.ajoberstar.reckon.core.PreReleaseStrategy;
 import org.ajoberstar.reckon.core.VcsInventory;
+import org.uulib.reckon.IndexedInventory;
+import org.uulib.reckon.ReckoningListener.Phase;
+import org.uulib.reckon.ReckoningListeners;
 import org.uulib.util.ConstantSupplier;
 
 import com.github.zafarkhaja.semver.Version;
@@ -17,7 +20,7 @@ import com.github.zafarkhaja.semver.Version;
  * 
  * @author hWorblehat
  */
-public class CompoundPreReleaseStrategy implements PreReleaseStrategy {
+public class CompoundPreReleaseStrategy implements IndexedPreReleaseStrategy {
 	
 	private final Supplier<PreReleasePartStrategy> preReleasePart;
 	private final Supplier<BuildMetadataPartStrategy> buildMetadataPart;
@@ -37,20 +40,30 @@ public class CompoundPreReleaseStrategy implements PreReleaseStrategy {
 
 	@Override
 	public Version reckonTargetVersion(VcsInventory inventory, Version targetNormal) {
+		return reckonTargetVersion(IndexedInventory.of(inventory), targetNormal);
+	}
+
+	@Override
+	public Version reckonTargetVersion(IndexedInventory inventory, Version targetNormal) {
 		
-		Version withPreReleasePart = preReleasePart.get()
-				.reckonPreRelease(inventory, targetNormal)
+		Version withPreReleasePart = ReckoningListeners.timed(Phase.PRE_RELEASE_PART,
+				() -> IndexedPreReleasePartStrategy.reckon(preReleasePart.get(), inventory, targetNormal))
 				.map(targetNormal::setPreReleaseVersion)
 				.orElse(targetNormal);
 		
-		Version withBuildMetadataPart = buildMetadataPart.get()
-				.reckonBuildMetadata(inventory)
+		Version withBuildMetadataPart = ReckoningListeners.timed(Phase.BUILD_METADATA_PART,
+				() -> buildMetadataPart.get().reckonBuildMetadata(inventory.getInventory()))
 				.map(withPreReleasePart::setBuildMetadata)
 				.orElse(withPreReleasePart);
 		
 		return withBuildMetadataPart;
 	}
 	
+	@Override
+	public String toString() {
+		return "compound {preRelease = " + preReleasePart + ", buildMetadata = " + buildMetadataPart + "}";
+	}
+	
 	public static Builder builder() {
 		return builder(PreReleasePartStrategy.NONE);
 	}
@@ -71,7 +84,8 @@ public class CompoundPreReleaseStrategy implements PreReleaseStrategy {
 	public static class Builder {
 		
 		private Supplier<PreReleasePartStrategy> preReleasePart;
-		private Supplier<BuildMetadataPartStrategy> buildMetadataPart = () -> BuildMetadataPartStrategy.NONE;
+		private Supplier<BuildMetadataPartStrategy> buildMetadataPart =
+				ConstantSupplier.nonNull(BuildMetadataPartStrategy.NONE);
 		
 		private Builder(Supplier<PreReleasePartStrategy> preReleasePart) {
 			this.preReleasePart = preReleasePart;
@@ -11,6 +11,8 @@ import java.util.stream.Stream;
 
 import org.ajoberstar.reckon.core.PreReleaseStrategy;
 import org.ajoberstar.reckon.core.VcsInventory;
+import org.uulib.reckon.IndexedInventory;
+
 import com.github.zafarkhaja.semver.Version;
 
 /**
@@ -34,7 +36,7 @@ import com.github.zafarkhaja.semver.Version;
  * 
  * @author hWorblehat
  */
-public class CompoundStagePreReleaseStrategy implements PreReleaseStrategy {
+public class CompoundStagePreReleaseStrategy implements IndexedPreReleaseStrategy {
 	
 	public static final String DEFAULT_DEVELOPMENT_STAGE = "";
 	public static final String DEFAULT_FINAL_STAGE = "final";
@@ -52,6 +54,11 @@ public class CompoundStagePreReleaseStrategy implements PreReleaseStrategy {
 	
 	@Override
 	public Version reckonTargetVersion(VcsInventory inventory, Version targetNormal) {
+		return reckonTargetVersion(IndexedInventory.of(inventory), targetNormal);
+	}
+
+	@Override
+	public Version reckonTargetVersion(IndexedInventory inventory, Version targetNormal) {
 		return reckonTargetVersion(inventory, targetNormal, stageSupplier.get());
 	}
 
@@ -65,6 +72,21 @@ public class CompoundStagePreReleaseStrategy implements PreReleaseStrategy {
 	 * @return The reckoned version.
 	 */
 	public Version reckonTargetVersion(VcsInventory inventory, Version targetNormal, Optional<String> stageOptional) {
+		return reckonTargetVersion(IndexedInventory.of(inventory), targetNormal, stageOptional);
+	}
+
+	/**
+	 * Reckons the version using the stage provided by the <b>stageOptional</b> parameter,
+	 * rather than that supplied by the receiver's stage supplier.
+	 * 
+	 * @param inventory An indexed inventory of version labels on the current state of the associated version control
+	 *                  system.
+	 * @param targetNormal The reckoned normal version (without pre-release information).
+	 * @param stageOptional The stage to reckon with.
+	 * @return The reckoned version.
+	 */
+	public Version reckonTargetVersion(IndexedInventory inventory, Version targetNormal,
+			Optional<String> stageOptional) {
 		String stage = stageOptional.orElse(defaultStage);
 		CompoundPreReleaseStrategy specificStrategies = specificReckoners.get(stage);
 		if(specificStrategies==null) {
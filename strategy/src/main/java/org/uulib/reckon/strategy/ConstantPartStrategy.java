@@ -30,4 +30,9 @@ public final class ConstantPartStrategy implements PreReleasePartStrategy, Build
 		return part;
 	}
 
+	@Override
+	public String toString() {
+		return part.map(p -> "'" + p + "'").orElse("none");
+	}
+
 }
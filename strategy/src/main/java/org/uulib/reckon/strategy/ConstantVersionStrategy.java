@@ -26,4 +26,9 @@ public final class ConstantVersionStrategy implements NormalStrategy, PreRelease
 		return version;
 	}
 	
+	@Override
+	public String toString() {
+		return "version " + version;
+	}
+	
 }
\ No newline at end of file
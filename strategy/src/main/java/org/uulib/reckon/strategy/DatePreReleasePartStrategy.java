@@ -4,13 +4,12 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.Set;
 import java.util.Locale.Category;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import org.ajoberstar.reckon.core.VcsInventory;
-import org.ajoberstar.reckon.core.Versions;
+import org.uulib.reckon.IndexedInventory;
 
 import com.github.zafarkhaja.semver.Version;
 
@@ -29,10 +28,14 @@ import com.github.zafarkhaja.semver.Version;
  * </ul>
  * The time instant used to format all of the above timestamps will be identical. It is defined by the
  * {@linkplain Supplier} passed to this class's constructor.
+ * <p>
+ * The time of day and millisecond are formatted without leading zeros, as semver requires of numeric identifiers, so
+ * they are ordered numerically by precedence. If the millisecond is also claimed, reckoning fails, unless the strategy
+ * {@linkplain #withSequenceOnCollision() appends a sequence number} instead.
  * 
  * @author hWorblehat
  */
-public class DatePreReleasePartStrategy implements PreReleasePartStrategy {
+public class DatePreReleasePartStrategy implements IndexedPreReleasePartStrategy {
 	
 	private static final ZoneId UTC = ZoneId.of("UTC");
 	private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("uuuuMMdd").withZone(UTC);
@@ -41,6 +44,7 @@ public class DatePreReleasePartStrategy implements PreReleasePartStrategy {
 	
 	private final Supplier<Instant> timestampSupplier;
 	private final DateTimeFormatter[] formats;
+	private final boolean sequenced;
 	
 	/**
 	 * Creates a new DatePreReleasePartStrategy that uses the default locale for formatting timestamps.
@@ -58,36 +62,71 @@ public class DatePreReleasePartStrategy implements PreReleasePartStrategy {
 	 * @param formatLocale The locale to use to form the timestamps.
 	 */
 	public DatePreReleasePartStrategy(Supplier<Instant> timestampSupplier, Locale formatLocale) {
-		this.timestampSupplier = timestampSupplier;
-		this.formats = new DateTimeFormatter[] {
+		this(timestampSupplier, new DateTimeFormatter[] {
 			DATE.withLocale(formatLocale),
 			HOUR_MINUTE_SECOND.withLocale(formatLocale),
 			MILLISECOND.withLocale(formatLocale)
-		};
+		}, false);
+	}
+	
+	private DatePreReleasePartStrategy(Supplier<Instant> timestampSupplier, DateTimeFormatter[] formats,
+			boolean sequenced) {
+		this.timestampSupplier = timestampSupplier;
+		this.formats = formats;
+		this.sequenced = sequenced;
+	}
+	
+	/**
+	 * Creates a strategy like this one which, rather than failing when a similar version with an identical timestamp
+	 * (to millisecond precision) already exists, appends a sequence number after a dot, one greater than that of any
+	 * such version. Builds with the same timestamp thus each reckon a unique version, ordered by the sequence they
+	 * reckoned in, provided each has claimed its version before the next is reckoned.
+	 * <p>
+	 * The sequence is found only from the versions already claimed, so this doesn't make the versions of concurrent
+	 * builds unique: builds that fan out at once, such as the jobs of a matrix build, see the same claimed versions and
+	 * so reckon the same version as each other if their timestamps are identical. Such builds should use a
+	 * {@linkplain NumberedStagePreReleasePartStrategy#withReservations(StageNumberReservations) reserved} stage number
+	 * instead.
+	 * 
+	 * @return The new strategy.
+	 */
+	public DatePreReleasePartStrategy withSequenceOnCollision() {
+		return new DatePreReleasePartStrategy(timestampSupplier, formats, true);
 	}
 
 	@Override
 	public Optional<String> reckonPreRelease(VcsInventory inventory, Version normalVersion) {
-		Set<String> claimedPreReleases = inventory.getClaimedVersions().stream()
-				.filter(v -> normalVersion.equals(Versions.getNormal(v)))
-				.map(Version::getPreReleaseVersion)
-				.collect(Collectors.toSet());
-		
+		return reckonPreRelease(IndexedInventory.of(inventory), normalVersion);
+	}
+
+	@Override
+	public Optional<String> reckonPreRelease(IndexedInventory inventory, Version normalVersion) {
 		Instant timestamp = timestampSupplier.get();
-		StringBuilder sb = new StringBuilder();
-		for(DateTimeFormatter format : formats) {
-			sb.append(format.format(timestamp));
-			if(claimedPreReleases.contains(sb.toString())) {
-				sb.append('.');
-			} else {
-				break;
+		String date = formats[0].format(timestamp);
+		NavigableSet<String> claimedPreReleases = inventory.getClaimedPreReleases(normalVersion, date);
+		
+		StringBuilder sb = new StringBuilder(date);
+		for(int i=1; claimedPreReleases.contains(sb.toString()); ++i) {
+			if(i==formats.length) {
+				if(!sequenced) {
+					throw new IllegalStateException("A similar version with an identical timestamp (to millisecond precision) already exists in the VCS inventory.");
+				}
+				String prefix = sb.append('.').toString();
+				return Optional.of(prefix + NumberedStagePreReleasePartStrategy.nextNumber(
+						claimedPreReleases.subSet(prefix, true, prefix + Character.MAX_VALUE, false), prefix));
 			}
+			
+			sb.append('.').append(withoutLeadingZeros(formats[i].format(timestamp)));
 		}
-		String rc = sb.toString();
-		if(rc.endsWith(".")) {
-			throw new IllegalStateException("A similar version with an identical timestamp (to millisecond precision) already exists in the VCS inventory.");
+		return Optional.of(sb.toString());
+	}
+	
+	private static String withoutLeadingZeros(String digits) {
+		int start = 0;
+		while(start < digits.length() - 1 && digits.charAt(start)=='0') {
+			++start;
 		}
-		return Optional.of(rc);
+		return digits.substring(start);
 	}
 
 }
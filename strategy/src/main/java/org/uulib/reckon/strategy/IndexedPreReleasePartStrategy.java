@@ -0,0 +1,47 @@
+package org.uulib.reckon.strategy;
+
+import java.util.Optional;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.uulib.reckon.IndexedInventory;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A {@linkplain PreReleasePartStrategy} that looks up the inventory's claimed versions, and so reckons with the
+ * {@linkplain IndexedInventory index} shared by the rest of the reckoning rather than indexing the inventory itself.
+ *
+ * @author hWorblehat
+ */
+public interface IndexedPreReleasePartStrategy extends PreReleasePartStrategy {
+
+	/**
+	 * Determines the pre-release information to append to the given normal version.
+	 *
+	 * @param inventory An indexed inventory of the current version tags on the version control system.
+	 * @param normalVersion The normal version the pre-release information will be appended to.
+	 * @return The pre-release information to use.
+	 */
+	Optional<String> reckonPreRelease(IndexedInventory inventory, Version normalVersion);
+
+	@Override
+	default Optional<String> reckonPreRelease(VcsInventory inventory, Version normalVersion) {
+		return reckonPreRelease(IndexedInventory.of(inventory), normalVersion);
+	}
+
+	/**
+	 * Reckons the pre-release part with any strategy, passing it the index if it can use it.
+	 *
+	 * @param strategy The strategy.
+	 * @param inventory The indexed inventory.
+	 * @param normalVersion The normal version the pre-release information will be appended to.
+	 * @return The pre-release information to use.
+	 */
+	static Optional<String> reckon(PreReleasePartStrategy strategy, IndexedInventory inventory,
+			Version normalVersion) {
+		return strategy instanceof IndexedPreReleasePartStrategy
+				? ((IndexedPreReleasePartStrategy) strategy).reckonPreRelease(inventory, normalVersion)
+				: strategy.reckonPreRelease(inventory.getInventory(), normalVersion);
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.uulib.reckon.strategy;
+
+import org.ajoberstar.reckon.core.PreReleaseStrategy;
+import org.ajoberstar.reckon.core.VcsInventory;
+import org.uulib.reckon.IndexedInventory;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * A {@linkplain PreReleaseStrategy} that can reckon with the {@linkplain IndexedInventory index} shared by the rest of
+ * the reckoning, passing it on to any {@linkplain IndexedPreReleasePartStrategy part strategies} it delegates to.
+ *
+ * @author hWorblehat
+ */
+public interface IndexedPreReleaseStrategy extends PreReleaseStrategy {
+
+	/**
+	 * Reckons the target version.
+	 *
+	 * @param inventory An indexed inventory of the current version tags on the version control system.
+	 * @param targetNormal The reckoned normal version (without pre-release information).
+	 * @return The reckoned version.
+	 */
+	Version reckonTargetVersion(IndexedInventory inventory, Version targetNormal);
+
+	@Override
+	default Version reckonTargetVersion(VcsInventory inventory, Version targetNormal) {
+		return reckonTargetVersion(IndexedInventory.of(inventory), targetNormal);
+	}
+
+	/**
+	 * Reckons the target version with any strategy, passing it the index if it can use it.
+	 *
+	 * @param strategy The strategy.
+	 * @param inventory The indexed inventory.
+	 * @param targetNormal The reckoned normal version (without pre-release information).
+	 * @return The reckoned version.
+	 */
+	static Version reckon(PreReleaseStrategy strategy, IndexedInventory inventory, Version targetNormal) {
+		return strategy instanceof IndexedPreReleaseStrategy
+				? ((IndexedPreReleaseStrategy) strategy).reckonTargetVersion(inventory, targetNormal)
+				: strategy.reckonTargetVersion(inventory.getInventory(), targetNormal);
+	}
+
+}
@@ -16,4 +16,9 @@ public final class NoPreReleaseStrategy implements PreReleaseStrategy {
 		return targetNormal;
 	}
 
+	@Override
+	public String toString() {
+		return "none";
+	}
+
 }
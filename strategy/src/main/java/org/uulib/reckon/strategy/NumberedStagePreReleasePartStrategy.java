@@ -1,27 +1,30 @@
 package org.uulib.reckon.strategy;
 
+import java.math.BigInteger;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 import org.ajoberstar.reckon.core.VcsInventory;
-import org.ajoberstar.reckon.core.Versions;
+import org.uulib.reckon.IndexedInventory;
 
 import com.github.zafarkhaja.semver.Version;
 
 /**
  * A {@linkplain PreReleasePartStrategy} that formats pre-release version parts as {@code <stage>.<number>}, where
  * the number is incremented for each new version using the same normal version and stage.
+ * <p>
+ * The next number is found from the versions already claimed, so concurrent builds which see the same claimed
+ * versions reckon the same number, unless the numbers are {@linkplain #withReservations(StageNumberReservations)
+ * reserved}.
  * 
  * @author hWorblehat
  */
-public class NumberedStagePreReleasePartStrategy implements PreReleasePartStrategy {
-	
-	private static final Pattern STAGE_REGEX = Pattern.compile("^(?<name>\\w+)\\.(?<num>\\d+)");
+public class NumberedStagePreReleasePartStrategy implements IndexedPreReleasePartStrategy {
 	
 	private final Supplier<String> stageSupplier;
+	private final StageNumberReservations reservations;
 	
 	public static NumberedStagePreReleasePartStrategy forStageOrBlank(Supplier<Optional<String>> stageSupplier) {
 		return forStageOrDefault(stageSupplier, "");
@@ -44,40 +47,145 @@ public class NumberedStagePreReleasePartStrategy implements PreReleasePartStrate
 	}
 	
 	protected NumberedStagePreReleasePartStrategy(Supplier<String> stageSupplier) {
+		this(stageSupplier, null);
+	}
+	
+	private NumberedStagePreReleasePartStrategy(Supplier<String> stageSupplier, StageNumberReservations reservations) {
 		this.stageSupplier = stageSupplier;
+		this.reservations = reservations;
+	}
+	
+	/**
+	 * Creates a strategy like this one which reserves each number it reckons, owned by the commit being reckoned, so
+	 * that concurrent builds of different commits reckon different numbers.
+	 * 
+	 * @param reservations Where to reserve numbers.
+	 * @return The new strategy.
+	 */
+	public NumberedStagePreReleasePartStrategy withReservations(StageNumberReservations reservations) {
+		return new NumberedStagePreReleasePartStrategy(stageSupplier, Objects.requireNonNull(reservations));
 	}
 
 	@Override
 	public Optional<String> reckonPreRelease(VcsInventory inventory, Version normalVersion) {
-		Stream<String> existingPreReleases = inventory.getClaimedVersions().stream()
-				.filter(v -> normalVersion.equals(Versions.getNormal(v)))
-				.map(Version::getPreReleaseVersion);
+		return reckonPreRelease(IndexedInventory.of(inventory), normalVersion);
+	}
+
+	@Override
+	public Optional<String> reckonPreRelease(IndexedInventory index, Version normalVersion) {
+		VcsInventory inventory = index.getInventory();
 		
 		String stage = stageSupplier.get();
-		return Optional.of(stage.isEmpty()
-				? reckonWithBlankStage(existingPreReleases)
-				: reckonWithStage(existingPreReleases, stage));
+		if(stage.isEmpty()) {
+			return Optional.of(reserve(inventory, normalVersion, stage,
+					nextNumber(index.getClaimedPreReleases(normalVersion), "")));
+		}
+		
+		String prefix = stage + '.';
+		Iterable<String> existingPreReleases = isWord(stage)
+				? index.getClaimedPreReleases(normalVersion, prefix)
+				: Collections.emptySet();
+		return Optional.of(prefix + reserve(inventory, normalVersion, stage, nextNumber(existingPreReleases, prefix)));
 	}
 	
-	private String reckonWithBlankStage(Stream<String> existingPreReleases) {
-		int previousStageNum = existingPreReleases
-				.filter(s -> s.matches("\\d+"))
-				.mapToInt(Integer::parseInt)
-				.max()
-				.orElse(0);
-		
-		return Integer.toString(previousStageNum + 1);
+	private String reserve(VcsInventory inventory, Version normalVersion, String stage, String next) {
+		if(reservations==null) {
+			return next;
+		}
+		return reservations.reserve(normalVersion, stage, new BigInteger(next), inventory.getCommitId()).toString();
 	}
 	
-	private String reckonWithStage(Stream<String> existingPreReleases, String stage) {
-		int previousStageNum = existingPreReleases
-				.map(STAGE_REGEX::matcher)
-				.filter(m -> m.matches() && m.group("name").equals(stage))
-				.mapToInt(m -> Integer.parseInt(m.group("num")))
-				.max()
-				.orElse(0);
-		
-		return new StringBuilder(stage).append('.').append(previousStageNum + 1).toString();
+	/**
+	 * Stages can only be recognised in existing pre-releases if they consist solely of word characters
+	 * ({@code [a-zA-Z_0-9]}).
+	 */
+	private static boolean isWord(String stage) {
+		for(int i=0; i<stage.length(); ++i) {
+			char c = stage.charAt(i);
+			if(!(c>='a' && c<='z' || c>='A' && c<='Z' || c>='0' && c<='9' || c=='_')) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the largest number among the pre-releases which consist of the given prefix followed by one or more
+	 * decimal digits, and returns the number following it (or {@code 1} if there are no such pre-releases).
+	 * <p>
+	 * Numbers are compared as digit strings in place, so this allocates nothing per pre-release and handles numbers of
+	 * any magnitude.
+	 * 
+	 * @param preReleases The pre-releases to search.
+	 * @param prefix The prefix preceding the number.
+	 * @return The decimal representation of the next number.
+	 */
+	static String nextNumber(Iterable<String> preReleases, String prefix) {
+		String max = null;
+		int maxStart = 0;
+		for(String preRelease : preReleases) {
+			if(!preRelease.startsWith(prefix)) {
+				continue;
+			}
+			int start = significantDigitsStart(preRelease, prefix.length());
+			if(start >= 0 && (max==null || compareDigits(preRelease, start, max, maxStart) > 0)) {
+				max = preRelease;
+				maxStart = start;
+			}
+		}
+		return max==null ? "1" : increment(max, maxStart);
+	}
+	
+	/**
+	 * @return The index of the first non-zero digit from {@code offset} in {@code s} (or its length if all the digits
+	 *         are zero), or {@code -1} if {@code s} doesn't consist solely of at least one digit from {@code offset}.
+	 */
+	private static int significantDigitsStart(String s, int offset) {
+		int length = s.length();
+		if(offset >= length) {
+			return -1;
+		}
+		int start = -1;
+		for(int i=offset; i<length; ++i) {
+			char c = s.charAt(i);
+			if(c<'0' || c>'9') {
+				return -1;
+			}
+			if(start<0 && c!='0') {
+				start = i;
+			}
+		}
+		return start<0 ? length : start;
+	}
+	
+	private static int compareDigits(String a, int aStart, String b, int bStart) {
+		int aLength = a.length() - aStart;
+		int bLength = b.length() - bStart;
+		if(aLength!=bLength) {
+			return aLength - bLength;
+		}
+		for(int i=0; i<aLength; ++i) {
+			int diff = a.charAt(aStart + i) - b.charAt(bStart + i);
+			if(diff!=0) {
+				return diff;
+			}
+		}
+		return 0;
+	}
+	
+	private static String increment(String s, int start) {
+		char[] digits = new char[s.length() - start + 1];
+		s.getChars(start, s.length(), digits, 1);
+		int i = digits.length - 1;
+		while(i>0 && digits[i]=='9') {
+			digits[i--] = '0';
+		}
+		if(i>0) {
+			++digits[i];
+			return new String(digits, 1, digits.length - 1);
+		}
+		digits[0] = '1';
+		return new String(digits);
 	}
 
 }
@@ -0,0 +1,33 @@
+package org.uulib.reckon.strategy;
+
+import java.math.BigInteger;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Reserves the numbers of {@linkplain NumberedStagePreReleasePartStrategy numbered stages} before their versions are
+ * tagged, so that builds reckoning the same stage of the same normal version at the same time, which see the same
+ * tags, are still given distinct numbers.
+ * <p>
+ * Reservations are made by an owner (such as the commit being built) and last for a lease, after which the number may
+ * be reserved again if its version was never tagged. An owner that reserves a number for the same normal version and
+ * stage again while its reservation is held is given the same number, so reckoning the same commit's version more
+ * than once doesn't use up numbers.
+ *
+ * @author hWorblehat
+ */
+@FunctionalInterface
+public interface StageNumberReservations {
+
+	/**
+	 * Reserves the lowest number, no lower than the given minimum, that isn't reserved by anyone else.
+	 *
+	 * @param normalVersion The normal version the stage is of.
+	 * @param stage The stage, which may be empty for versions numbered without a stage.
+	 * @param minimum The lowest number that hasn't already been tagged.
+	 * @param owner Identifies the reserver, or {@code null} if it can't be identified.
+	 * @return The reserved number.
+	 */
+	BigInteger reserve(Version normalVersion, String stage, BigInteger minimum, String owner);
+
+}
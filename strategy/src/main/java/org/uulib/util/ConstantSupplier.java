@@ -30,4 +30,9 @@ public final class ConstantSupplier<T> implements Supplier<T>, Callable<T> {
 		return value;
 	}
 
+	@Override
+	public String toString() {
+		return String.valueOf(value);
+	}
+
 }
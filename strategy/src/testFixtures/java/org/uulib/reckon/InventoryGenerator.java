@@ -0,0 +1,138 @@
+package org.uulib.reckon;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ajoberstar.reckon.core.VcsInventory;
+
+import com.github.zafarkhaja.semver.Version;
+
+/**
+ * Generates synthetic {@linkplain VcsInventory inventories} with any number of claimed versions, for benchmarking and
+ * testing strategies at scale. Generation is deterministic for a given seed.
+ * <p>
+ * The claimed versions model a long-lived project: a series of released normal versions, each preceded by numbered
+ * pre-releases ({@code alpha.1}, {@code beta.2}, ...), followed by an unreleased {@linkplain #getTargetNormal() target
+ * normal version} with many pre-releases of its own, including timestamped ones at
+ * {@linkplain #getTimestamp() the generator's timestamp}.
+ */
+public class InventoryGenerator {
+
+	private static final String[] STAGES = {"alpha", "beta", "rc"};
+	private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("uuuuMMdd").withZone(ZoneId.of("UTC"));
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HHmmss").withZone(ZoneId.of("UTC"));
+
+	private final Random random;
+	private int claimedVersions = 100;
+	private int preReleasesPerNormal = 10;
+	private int targetPreReleases = -1;
+	private Instant timestamp = Instant.parse("2018-01-01T12:00:00.123Z");
+
+	private Version targetNormal = null;
+
+	public InventoryGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	public InventoryGenerator setClaimedVersions(int claimedVersions) {
+		assert claimedVersions > 0;
+		this.claimedVersions = claimedVersions;
+		return this;
+	}
+
+	public InventoryGenerator setPreReleasesPerNormal(int preReleasesPerNormal) {
+		assert preReleasesPerNormal >= 0;
+		this.preReleasesPerNormal = preReleasesPerNormal;
+		return this;
+	}
+
+	/**
+	 * @param targetPreReleases The number of pre-releases of the target normal version. By default, this is a tenth
+	 *                          of the claimed versions.
+	 */
+	public InventoryGenerator setTargetPreReleases(int targetPreReleases) {
+		assert targetPreReleases >= 0;
+		this.targetPreReleases = targetPreReleases;
+		return this;
+	}
+
+	public InventoryGenerator setTimestamp(Instant timestamp) {
+		this.timestamp = timestamp;
+		return this;
+	}
+
+	/**
+	 * @return The normal version that the most recently generated inventory's pre-releases are working towards.
+	 */
+	public Version getTargetNormal() {
+		return targetNormal;
+	}
+
+	/**
+	 * @return The timestamp whose date and time (to the second) are claimed as pre-releases of the target normal.
+	 */
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	public VcsInventory generate() {
+		int targetCount = Math.min(claimedVersions,
+				targetPreReleases >= 0 ? targetPreReleases : Math.max(preReleasesPerNormal, claimedVersions / 10));
+
+		List<Version> claimed = new ArrayList<>(claimedVersions);
+		Version normal = Version.forIntegers(0, 1, 0);
+		Version released = null;
+		while(claimed.size() + preReleasesPerNormal + 1 <= claimedVersions - targetCount) {
+			addPreReleases(claimed, normal, preReleasesPerNormal);
+			claimed.add(normal);
+			released = normal;
+			normal = nextNormal(normal);
+		}
+
+		targetNormal = normal;
+		List<Version> target = new ArrayList<>(targetCount);
+		String date = DATE.format(timestamp);
+		if(targetCount >= 2) {
+			target.add(normal.setPreReleaseVersion(date));
+			target.add(normal.setPreReleaseVersion(date + '.' + TIME.format(timestamp)));
+		}
+		addPreReleases(target, normal, claimedVersions - claimed.size() - target.size());
+		claimed.addAll(target);
+
+		VcsInventoryBuilder builder = new VcsInventoryBuilder()
+				.setCommitId(commitId())
+				.setCommitsSinceBase(1 + random.nextInt(50))
+				.addClaimedVersions(claimed);
+		if(released!=null) {
+			builder.setBaseNormal(released).setBaseVersion(released);
+		}
+		target.stream().max(Version::compareTo).ifPresent(builder::setBaseVersion);
+		return builder.build();
+	}
+
+	private void addPreReleases(List<Version> versions, Version normal, int count) {
+		int perStage = (count + STAGES.length - 1) / STAGES.length;
+		for(int i=0; i<count; ++i) {
+			versions.add(normal.setPreReleaseVersion(STAGES[i / perStage] + '.' + (i % perStage + 1)));
+		}
+	}
+
+	private Version nextNormal(Version normal) {
+		int r = random.nextInt(100);
+		return r < 2 ? normal.incrementMajorVersion() : r < 20 ? normal.incrementMinorVersion()
+				: normal.incrementPatchVersion();
+	}
+
+	private String commitId() {
+		StringBuilder sb = new StringBuilder(40);
+		for(int i=0; i<40; ++i) {
+			sb.append(Character.forDigit(random.nextInt(16), 16));
+		}
+		return sb.toString();
+	}
+
+}